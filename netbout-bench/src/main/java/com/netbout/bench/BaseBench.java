@@ -0,0 +1,206 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.bench;
+
+import com.google.common.collect.Iterables;
+import com.jcabi.urn.URN;
+import com.netbout.cached.CdBase;
+import com.netbout.dynamo.DyBase;
+import com.netbout.mock.MkBase;
+import com.netbout.spi.Aliases;
+import com.netbout.spi.Base;
+import com.netbout.spi.Bout;
+import com.netbout.spi.Inbox;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of posting, paging, counting unread messages and
+ * searching, in one bout of one alias.
+ *
+ * <p>By default, it runs against {@link MkBase}, which keeps everything
+ * in H2, alone and with the cache of {@link CdBase} on top. With
+ * {@code -p base=dynamo} it runs against {@link DyBase} and a local
+ * DynamoDB, which must be listening on the port given in
+ * {@code dynamo.port} system property and must have the tables from
+ * {@code netbout-web/src/test/dynamodb}, with "nb-" prefix.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 2.15
+ * @checkstyle MagicNumberCheck (500 lines)
+ * @checkstyle DesignForExtensionCheck (500 lines)
+ * @checkstyle VisibilityModifierCheck (500 lines)
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BaseBench {
+
+    /**
+     * Base to run against: "mk", "cached" or "dynamo".
+     */
+    @Param({ "mk", "cached" })
+    public String base;
+
+    /**
+     * Number of the last message posted.
+     */
+    private final transient AtomicLong posted = new AtomicLong();
+
+    /**
+     * The base.
+     */
+    private transient Base storage;
+
+    /**
+     * Inbox of the alias.
+     */
+    private transient Inbox inbox;
+
+    /**
+     * The bout.
+     */
+    private transient Bout bout;
+
+    /**
+     * Make an alias and a bout with a few pages of messages.
+     * @throws IOException If fails
+     */
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        this.storage = BaseBench.make(this.base);
+        final Aliases aliases = this.storage.user(
+            URN.create(String.format("urn:test:%d", System.nanoTime()))
+        ).aliases();
+        aliases.add(String.format("bench%d", System.nanoTime() % 1000000L));
+        this.inbox = aliases.iterate().iterator().next().inbox();
+        for (int idx = 0; idx < 20; ++idx) {
+            this.inbox.bout(this.inbox.start()).rename("other bout");
+        }
+        this.bout = this.inbox.bout(this.inbox.start());
+        this.bout.rename("benchmarked bout");
+        for (int idx = 0; idx < 50; ++idx) {
+            this.post();
+        }
+    }
+
+    /**
+     * Close the base.
+     * @throws IOException If fails
+     */
+    @TearDown(Level.Trial)
+    public void close() throws IOException {
+        this.storage.close();
+    }
+
+    /**
+     * Post a new message.
+     * @return Its number
+     * @throws IOException If fails
+     */
+    @Benchmark
+    public long post() throws IOException {
+        final long number = this.posted.incrementAndGet();
+        this.bout.messages().post(
+            String.format("message #%d, about **benchmarks**", number)
+        );
+        return number;
+    }
+
+    /**
+     * Read the first page of messages and the first page of the inbox.
+     * @return How many items were read
+     * @throws IOException If fails
+     */
+    @Benchmark
+    public int page() throws IOException {
+        return Iterables.size(
+            Iterables.limit(this.bout.messages().iterate(), Inbox.PAGE)
+        ) + Iterables.size(this.inbox.iterate());
+    }
+
+    /**
+     * Count unread messages in the inbox.
+     * @return How many of them
+     * @throws IOException If fails
+     */
+    @Benchmark
+    public long unread() throws IOException {
+        return this.inbox.unread();
+    }
+
+    /**
+     * Search messages of the bout.
+     * @return How many found
+     * @throws IOException If fails
+     */
+    @Benchmark
+    public int search() throws IOException {
+        return Iterables.size(this.bout.messages().search("benchmarks"));
+    }
+
+    /**
+     * Make a base by its name.
+     * @param name Name of the base
+     * @return Base
+     * @throws IOException If fails
+     */
+    private static Base make(final String name) throws IOException {
+        final Base made;
+        if ("mk".equals(name)) {
+            made = new MkBase();
+        } else if ("cached".equals(name)) {
+            made = new CdBase(new MkBase());
+        } else if ("dynamo".equals(name)) {
+            made = new DyBase();
+        } else {
+            throw new IllegalArgumentException(
+                String.format("unknown base \"%s\"", name)
+            );
+        }
+        return made;
+    }
+
+}
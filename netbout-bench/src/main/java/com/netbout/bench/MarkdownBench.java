@@ -0,0 +1,122 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.bench;
+
+import com.netbout.rest.Markdown;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of {@link Markdown} rendering in 1, 4 and 16 threads.
+ *
+ * <p>Every call renders a text never seen before, in order to measure
+ * PegDown and Tidy, not the cache of rendered HTML.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 2.15
+ * @checkstyle MagicNumberCheck (500 lines)
+ * @checkstyle DesignForExtensionCheck (500 lines)
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class MarkdownBench {
+
+    /**
+     * Text to render, with a few typical formatting features.
+     */
+    private static final String TEXT = new StringBuilder()
+        .append("Hi **everybody**, please take a look at\n")
+        .append("http://www.netbout.com and [this](http://www.google.com)\n\n")
+        .append("    java -jar netbout.jar\n\n")
+        .append(" * first _item_\n")
+        .append(" * second `item`\n")
+        .toString();
+
+    /**
+     * Number of the text rendered by this thread.
+     */
+    private transient long number;
+
+    /**
+     * Render in one thread.
+     * @return HTML
+     */
+    @Benchmark
+    @Threads(1)
+    public String renderInOneThread() {
+        return this.render();
+    }
+
+    /**
+     * Render in four threads.
+     * @return HTML
+     */
+    @Benchmark
+    @Threads(4)
+    public String renderInFourThreads() {
+        return this.render();
+    }
+
+    /**
+     * Render in sixteen threads.
+     * @return HTML
+     */
+    @Benchmark
+    @Threads(16)
+    public String renderInSixteenThreads() {
+        return this.render();
+    }
+
+    /**
+     * Render next unique text.
+     * @return HTML
+     */
+    private String render() {
+        ++this.number;
+        return new Markdown(
+            String.format(
+                "%s%d-%d", MarkdownBench.TEXT,
+                Thread.currentThread().getId(), this.number
+            )
+        ).html();
+    }
+
+}
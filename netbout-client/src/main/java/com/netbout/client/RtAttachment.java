@@ -33,6 +33,7 @@ import com.jcabi.http.response.RestResponse;
 import com.jcabi.http.response.XmlResponse;
 import com.jcabi.log.Logger;
 import com.netbout.spi.Attachment;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.HttpURLConnection;
@@ -119,13 +120,23 @@ final class RtAttachment implements Attachment {
     @Override
     public InputStream read() throws IOException {
         return IOUtils.toInputStream(
-            this.request.fetch()
-                .as(RestResponse.class)
-                .assertStatus(HttpURLConnection.HTTP_OK)
-                .as(XmlResponse.class)
-                .rel(this.xpath("links/link[@rel='download']/@href"))
-                .fetch().body(),
-            CharEncoding.UTF_8
+            this.download().fetch().body(), CharEncoding.UTF_8
+        );
+    }
+
+    @Override
+    public long size() throws IOException {
+        return (long) this.download().fetch().binary().length;
+    }
+
+    @Override
+    public InputStream read(final long first, final long last)
+        throws IOException {
+        return new ByteArrayInputStream(
+            this.download()
+                .header("Range", String.format("bytes=%d-%d", first, last))
+                .fetch()
+                .binary()
         );
     }
 
@@ -154,6 +165,19 @@ final class RtAttachment implements Attachment {
         Logger.info(this, "attachment '%s' written", this.attachment);
     }
 
+    /**
+     * Request to download the content.
+     * @return Request
+     * @throws IOException If fails
+     */
+    private Request download() throws IOException {
+        return this.request.fetch()
+            .as(RestResponse.class)
+            .assertStatus(HttpURLConnection.HTTP_OK)
+            .as(XmlResponse.class)
+            .rel(this.xpath("links/link[@rel='download']/@href"));
+    }
+
     /**
      * Xpath of the attachment in the page.
      * @param path Path to append
@@ -137,6 +137,12 @@ final class RtFriends implements Friends {
                         public String email() {
                             throw new UnsupportedOperationException("#email()");
                         }
+                        @Override
+                        public boolean subscribed() {
+                            throw new UnsupportedOperationException(
+                                "#subscribed()"
+                            );
+                        }
                     };
                 }
             }
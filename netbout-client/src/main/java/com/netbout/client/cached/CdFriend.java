@@ -78,4 +78,9 @@ public final class CdFriend implements Friend {
     public String email() throws IOException {
         return this.origin.email();
     }
+
+    @Override
+    public boolean subscribed() throws IOException {
+        return this.origin.subscribed();
+    }
 }
@@ -110,6 +110,25 @@ public final class ReAttachment implements Attachment {
         return this.origin.read();
     }
 
+    @Override
+    @RetryOnFailure(
+        verbose = false, attempts = Tv.TWENTY,
+        delay = Tv.FIVE, unit = TimeUnit.SECONDS
+    )
+    public long size() throws IOException {
+        return this.origin.size();
+    }
+
+    @Override
+    @RetryOnFailure(
+        verbose = false, attempts = Tv.TWENTY,
+        delay = Tv.FIVE, unit = TimeUnit.SECONDS
+    )
+    public InputStream read(final long first, final long last)
+        throws IOException {
+        return this.origin.read(first, last);
+    }
+
     @Override
     public void write(final InputStream stream, final String ctype,
         final String etag) throws IOException {
@@ -89,4 +89,13 @@ public final class ReFriend implements Friend {
     public String email() throws IOException {
         return this.origin.email();
     }
+
+    @Override
+    @RetryOnFailure(
+        verbose = false, attempts = Tv.TWENTY,
+        delay = Tv.FIVE, unit = TimeUnit.SECONDS
+    )
+    public boolean subscribed() throws IOException {
+        return this.origin.subscribed();
+    }
 }
@@ -32,6 +32,7 @@ import com.jcabi.jdbc.JdbcSession;
 import com.jcabi.jdbc.Outcome;
 import com.jcabi.jdbc.SingleOutcome;
 import com.netbout.spi.Attachment;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.sql.SQLException;
@@ -118,19 +119,23 @@ final class MkAttachment implements Attachment {
 
     @Override
     public InputStream read() throws IOException {
-        try {
-            return IOUtils.toInputStream(
-                new JdbcSession(this.sql.source())
-                    // @checkstyle LineLength (1 line)
-                    .sql("SELECT data FROM attachment WHERE bout = ? AND name = ?")
-                    .set(this.bout)
-                    .set(this.label)
-                    .select(new SingleOutcome<String>(String.class)),
-                CharEncoding.UTF_8
-            );
-        } catch (final SQLException ex) {
-            throw new IOException(ex);
-        }
+        return new ByteArrayInputStream(this.bytes());
+    }
+
+    @Override
+    public long size() throws IOException {
+        return (long) this.bytes().length;
+    }
+
+    @Override
+    public InputStream read(final long first, final long last)
+        throws IOException {
+        final byte[] bytes = this.bytes();
+        final int start = (int) Math.min(first, (long) bytes.length);
+        return new ByteArrayInputStream(
+            bytes, start,
+            (int) Math.min(last + 1L, (long) bytes.length) - start
+        );
     }
 
     @Override
@@ -150,4 +155,23 @@ final class MkAttachment implements Attachment {
             throw new IOException(ex);
         }
     }
+
+    /**
+     * Content.
+     * @return Bytes
+     * @throws IOException If fails
+     */
+    private byte[] bytes() throws IOException {
+        try {
+            return new JdbcSession(this.sql.source())
+                // @checkstyle LineLength (1 line)
+                .sql("SELECT data FROM attachment WHERE bout = ? AND name = ?")
+                .set(this.bout)
+                .set(this.label)
+                .select(new SingleOutcome<String>(String.class))
+                .getBytes(CharEncoding.UTF_8);
+        } catch (final SQLException ex) {
+            throw new IOException(ex);
+        }
+    }
 }
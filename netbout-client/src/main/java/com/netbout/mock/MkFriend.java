@@ -47,7 +47,7 @@ import lombok.ToString;
 @Immutable
 @ToString
 @Loggable(Loggable.DEBUG)
-@EqualsAndHashCode(of = { "sql", "name" })
+@EqualsAndHashCode(of = { "sql", "bout", "name" })
 final class MkFriend implements Friend {
 
     /**
@@ -55,6 +55,11 @@ final class MkFriend implements Friend {
      */
     private final transient Sql sql;
 
+    /**
+     * Number of the bout, or zero if it's not in a bout.
+     */
+    private final transient long bout;
+
     /**
      * Name of it (alias).
      */
@@ -66,7 +71,19 @@ final class MkFriend implements Friend {
      * @param alias Alias
      */
     MkFriend(final Sql src, final String alias) {
+        this(src, 0L, alias);
+    }
+
+    /**
+     * Public ctor.
+     * @param src Source
+     * @param bot Number of the bout
+     * @param alias Alias
+     * @since 2.15
+     */
+    MkFriend(final Sql src, final long bot, final String alias) {
         this.sql = src;
+        this.bout = bot;
         this.name = alias;
     }
 
@@ -100,4 +117,22 @@ final class MkFriend implements Friend {
             throw new IOException(ex);
         }
     }
+
+    @Override
+    public boolean subscribed() throws IOException {
+        boolean subs = true;
+        if (this.bout != 0L) {
+            try {
+                subs = new JdbcSession(this.sql.source())
+                    // @checkstyle LineLength (1 lines)
+                    .sql("SELECT subscription FROM friend WHERE bout = ? and alias = ?")
+                    .set(this.bout)
+                    .set(this.name)
+                    .select(new SingleOutcome<Boolean>(Boolean.class));
+            } catch (final SQLException ex) {
+                throw new IOException(ex);
+            }
+        }
+        return subs;
+    }
 }
@@ -128,6 +128,7 @@ final class MkFriends implements Friends {
                                 list.add(
                                     new MkFriend(
                                         MkFriends.this.sql,
+                                        MkFriends.this.bout,
                                         rset.getString(1)
                                     )
                                 );
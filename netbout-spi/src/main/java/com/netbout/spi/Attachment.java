@@ -80,6 +80,25 @@ public interface Attachment {
      */
     InputStream read() throws IOException;
 
+    /**
+     * Size of content.
+     * @return Size in bytes
+     * @throws IOException If fails
+     * @since 2.15
+     */
+    long size() throws IOException;
+
+    /**
+     * Read part of content.
+     * @param first Position of the first byte to read
+     * @param last Position of the last byte to read, inclusive, it may
+     *  be beyond the end of content
+     * @return Content
+     * @throws IOException If fails
+     * @since 2.15
+     */
+    InputStream read(long first, long last) throws IOException;
+
     /**
      * Write content (don't touch it if etag is the same as before).
      * @param stream Stream with content
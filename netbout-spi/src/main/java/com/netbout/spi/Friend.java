@@ -64,6 +64,17 @@ public interface Friend {
      */
     String email() throws IOException;
 
+    /**
+     * Get its subscription to the bout.
+     *
+     * <p>Friends found outside of a bout are always subscribed.
+     *
+     * @return Subscription status
+     * @throws IOException If fails
+     * @since 2.15
+     */
+    boolean subscribed() throws IOException;
+
     /**
      * Matcher of its alias.
      */
@@ -72,6 +72,100 @@ public interface Inbox extends Pageable<Bout>, Searchable<Bout> {
      */
     Bout bout(long number) throws Inbox.BoutNotFoundException;
 
+    /**
+     * Position in the inbox, to be given to {@link Inbox#jump(long)}.
+     *
+     * <p>A cursor packs together the time of the last update of a bout
+     * and its number, so that bouts updated in the same millisecond
+     * are neither skipped nor repeated when paging. A cursor is always
+     * negative, while a plain positive number is understood as a moment
+     * in time, the way it was before 2.15.
+     *
+     * @since 2.15
+     */
+    final class Cursor {
+        /**
+         * Beginning of times for a cursor (1-Jan-2014).
+         */
+        private static final long EPOCH = 1388534400000L;
+        /**
+         * How many bits are given to bout number.
+         */
+        private static final int BITS = 22;
+        /**
+         * Mask of bout number.
+         */
+        private static final long MASK = (1L << Inbox.Cursor.BITS) - 1L;
+        /**
+         * Maximum time since {@link #EPOCH} a cursor can hold.
+         */
+        private static final long MAX =
+            (1L << Long.SIZE - 1 - Inbox.Cursor.BITS) - 1L;
+        /**
+         * Utility class.
+         */
+        private Cursor() {
+            // intentionally empty
+        }
+        /**
+         * Make a cursor that points right after the given bout.
+         *
+         * <p>If the bout can't be packed into a cursor, a plain moment
+         * of its last update is returned.
+         * @param updated When the bout was updated, in msec
+         * @param bout Bout number
+         * @return Cursor
+         */
+        public static long of(final long updated, final long bout) {
+            final long time = updated - Inbox.Cursor.EPOCH;
+            final long cursor;
+            if (time < 0L || time > Inbox.Cursor.MAX
+                || bout < 0L || bout > Inbox.Cursor.MASK) {
+                cursor = updated;
+            } else {
+                cursor = ~(time << Inbox.Cursor.BITS | bout);
+            }
+            return cursor;
+        }
+        /**
+         * Is it a cursor, or just a moment in time?
+         * @param cursor The number given to {@link Inbox#jump(long)}
+         * @return TRUE if it's a cursor made by {@link #of(long, long)}
+         */
+        public static boolean exact(final long cursor) {
+            return cursor < 0L;
+        }
+        /**
+         * Get the moment of update.
+         * @param cursor The cursor
+         * @return Time in msec
+         */
+        public static long updated(final long cursor) {
+            final long updated;
+            if (Inbox.Cursor.exact(cursor)) {
+                updated = (~cursor >>> Inbox.Cursor.BITS)
+                    + Inbox.Cursor.EPOCH;
+            } else {
+                updated = cursor;
+            }
+            return updated;
+        }
+        /**
+         * Get the bout number.
+         * @param cursor The cursor
+         * @return Bout number, or zero if it's not an exact cursor
+         */
+        public static long bout(final long cursor) {
+            final long bout;
+            if (Inbox.Cursor.exact(cursor)) {
+                bout = ~cursor & Inbox.Cursor.MASK;
+            } else {
+                bout = 0L;
+            }
+            return bout;
+        }
+    }
+
     /**
      * Thowable when bout is not found.
      * @see Inbox#bout(long)
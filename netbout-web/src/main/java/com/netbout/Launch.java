@@ -32,8 +32,11 @@ import com.jcabi.email.wire.SMTP;
 import com.jcabi.manifests.Manifests;
 import com.netbout.cached.CdBase;
 import com.netbout.dynamo.DyBase;
+import com.netbout.dynamo.DyChannel;
 import com.netbout.email.EmBase;
+import com.netbout.email.PostOutbox;
 import com.netbout.rest.TkApp;
+import java.io.File;
 import org.takes.http.Exit;
 import org.takes.http.FtCLI;
 
@@ -62,14 +65,37 @@ public final class Launch {
         new FtCLI(
             new TkApp(
                 new EmBase(
-                    new CdBase(new DyBase()),
-                    new PostNoLoops(Launch.postman())
+                    new CdBase(new DyBase(), new DyChannel()),
+                    new PostOutbox(
+                        new PostNoLoops(Launch.postman()),
+                        Launch.outbox()
+                    )
                 )
             ),
             args
         ).start(Exit.NEVER);
     }
 
+    /**
+     * Directory of the outbox journal.
+     *
+     * <p>It's set by "netbout.outbox" system property, and must be
+     * on a disk that survives restarts, otherwise emails not delivered
+     * yet are lost.
+     *
+     * @return Directory
+     */
+    private static File outbox() {
+        return new File(
+            System.getProperty(
+                "netbout.outbox",
+                new File(
+                    System.getProperty("user.home"), ".netbout-outbox"
+                ).getPath()
+            )
+        );
+    }
+
     /**
      * Create a postman.
      * @return Postman
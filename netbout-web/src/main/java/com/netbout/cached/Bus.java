@@ -0,0 +1,165 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.cached;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.jcabi.aspects.Immutable;
+import com.jcabi.aspects.Tv;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+/**
+ * Bus of new messages in bouts, for those who wait for them.
+ *
+ * <p>{@link CdMessages} rings the bell of the bout after every post, and
+ * so do changes that come from other nodes through the {@link Channel},
+ * when the bus listens to it. A reader remembers how many times the bell
+ * rang, reads what it needs, and then waits for the next ring, without
+ * reading anything while nothing happens. A ring doesn't say what
+ * changed, the reader has to look.
+ *
+ * <p>Bells are shared by all buses in the JVM and are forgotten when
+ * nobody touches them for a while.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 2.15
+ */
+@Immutable
+@ToString
+@EqualsAndHashCode
+public final class Bus implements Channel.Listener {
+
+    /**
+     * Scope of the bout, where {@link CdMessages} forgets the time
+     * of update after every post.
+     */
+    private static final Pattern POSTED = Pattern.compile("bout:(\\d+)");
+
+    /**
+     * Bells, by bout numbers.
+     */
+    private static final LoadingCache<Long, Bus.Bell> BELLS =
+        CacheBuilder.newBuilder()
+            .expireAfterAccess((long) Tv.TEN, TimeUnit.MINUTES)
+            .build(
+                new CacheLoader<Long, Bus.Bell>() {
+                    @Override
+                    public Bus.Bell load(final Long bout) {
+                        return new Bus.Bell();
+                    }
+                }
+            );
+
+    /**
+     * How many times the bell of the bout rang so far.
+     * @param bout Bout number
+     * @return Number of rings
+     */
+    public long rings(final long bout) {
+        return Bus.BELLS.getUnchecked(bout).rings();
+    }
+
+    /**
+     * Ring the bell of the bout, something new was posted there.
+     * @param bout Bout number
+     */
+    public void ring(final long bout) {
+        final Bus.Bell bell = Bus.BELLS.getIfPresent(bout);
+        if (bell != null) {
+            bell.ring();
+        }
+    }
+
+    /**
+     * Wait until the bell of the bout rings more times than it did.
+     * @param bout Bout number
+     * @param rings How many times it rang before
+     * @param msec How long to wait, in milliseconds
+     * @return TRUE if it rang, FALSE if time is over
+     * @throws InterruptedException If interrupted
+     */
+    public boolean await(final long bout, final long rings, final long msec)
+        throws InterruptedException {
+        return Bus.BELLS.getUnchecked(bout).await(rings, msec);
+    }
+
+    @Override
+    public void changed(final String scope, final String key) {
+        final Matcher matcher = Bus.POSTED.matcher(scope);
+        if (matcher.matches() && "updated".equals(key)) {
+            this.ring(Long.parseLong(matcher.group(1)));
+        }
+    }
+
+    /**
+     * Bell of one bout.
+     */
+    private static final class Bell {
+        /**
+         * Rings so far.
+         */
+        private transient long count;
+        /**
+         * How many times it rang.
+         * @return Number of rings
+         */
+        public synchronized long rings() {
+            return this.count;
+        }
+        /**
+         * Ring it and wake up everybody waiting.
+         */
+        public synchronized void ring() {
+            ++this.count;
+            this.notifyAll();
+        }
+        /**
+         * Wait until it rings more times than it did.
+         * @param rings How many times it rang before
+         * @param msec How long to wait, in milliseconds
+         * @return TRUE if it rang
+         * @throws InterruptedException If interrupted
+         */
+        public synchronized boolean await(final long rings, final long msec)
+            throws InterruptedException {
+            final long deadline = System.currentTimeMillis() + msec;
+            long left = msec;
+            while (this.count == rings && left > 0L) {
+                this.wait(left);
+                left = deadline - System.currentTimeMillis();
+            }
+            return this.count != rings;
+        }
+    }
+
+}
@@ -26,16 +26,14 @@
  */
 package com.netbout.cached;
 
-import com.jcabi.aspects.Cacheable;
 import com.jcabi.aspects.Immutable;
 import com.jcabi.aspects.Loggable;
-import com.jcabi.aspects.Tv;
 import com.netbout.spi.Alias;
 import com.netbout.spi.Inbox;
 import java.io.IOException;
 import java.net.URI;
 import java.util.Locale;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.Callable;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
 
@@ -57,52 +55,90 @@ final class CdAlias implements Alias {
      */
     private final transient Alias origin;
 
+    /**
+     * Scopes of the base.
+     */
+    private final transient Scopes scopes;
+
     /**
      * Public ctor.
      * @param org Origin
+     * @param scps Scopes of the base
      */
-    CdAlias(final Alias org) {
+    CdAlias(final Alias org, final Scopes scps) {
         this.origin = org;
+        this.scopes = scps;
     }
 
     @Override
-    @Cacheable(lifetime = Tv.FIVE, unit = TimeUnit.HOURS)
     public String name() throws IOException {
         return this.origin.name();
     }
 
     @Override
-    @Cacheable(lifetime = Tv.FIVE, unit = TimeUnit.HOURS)
     public URI photo() throws IOException {
-        return this.origin.photo();
+        return this.scope().get(
+            "photo",
+            new Callable<URI>() {
+                @Override
+                public URI call() throws IOException {
+                    return CdAlias.this.origin.photo();
+                }
+            }
+        );
     }
 
     @Override
-    @Cacheable(lifetime = Tv.FIVE, unit = TimeUnit.HOURS)
     public Locale locale() throws IOException {
-        return this.origin.locale();
+        return this.scope().get(
+            "locale",
+            new Callable<Locale>() {
+                @Override
+                public Locale call() throws IOException {
+                    return CdAlias.this.origin.locale();
+                }
+            }
+        );
     }
 
     @Override
-    @Cacheable.FlushBefore
     public void photo(final URI uri) throws IOException {
         this.origin.photo(uri);
+        this.scope().forget("photo");
     }
 
     @Override
-    @Cacheable(lifetime = Tv.FIVE, unit = TimeUnit.HOURS)
     public String email() throws IOException {
-        return this.origin.email();
+        return this.scope().get(
+            "email",
+            new Callable<String>() {
+                @Override
+                public String call() throws IOException {
+                    return CdAlias.this.origin.email();
+                }
+            }
+        );
     }
 
     @Override
-    @Cacheable.FlushBefore
     public void email(final String email) throws IOException {
         this.origin.email(email);
+        this.scope().forget("email");
     }
 
     @Override
     public Inbox inbox() throws IOException {
-        return new CdInbox(this.origin.inbox());
+        return new CdInbox(
+            this.origin.inbox(), this.origin.name(), this.scopes
+        );
+    }
+
+    /**
+     * Scope of this alias.
+     * @return Scope
+     * @throws IOException If fails
+     */
+    private Scope scope() throws IOException {
+        return this.scopes.scope("alias", this.origin.name());
     }
 }
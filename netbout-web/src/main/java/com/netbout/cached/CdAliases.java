@@ -58,12 +58,19 @@ final class CdAliases implements Aliases {
      */
     private final transient Aliases origin;
 
+    /**
+     * Scopes of the base.
+     */
+    private final transient Scopes scopes;
+
     /**
      * Public ctor.
      * @param org Origin
+     * @param scps Scopes of the base
      */
-    CdAliases(final Aliases org) {
+    CdAliases(final Aliases org, final Scopes scps) {
         this.origin = org;
+        this.scopes = scps;
     }
 
     @Override
@@ -86,7 +93,7 @@ final class CdAliases implements Aliases {
                 new Function<Alias, Alias>() {
                     @Override
                     public Alias apply(final Alias input) {
-                        return new CdAlias(input);
+                        return new CdAlias(input, CdAliases.this.scopes);
                     }
                 }
             )
@@ -26,14 +26,12 @@
  */
 package com.netbout.cached;
 
-import com.jcabi.aspects.Cacheable;
 import com.jcabi.aspects.Immutable;
 import com.jcabi.aspects.Loggable;
-import com.jcabi.aspects.Tv;
 import com.netbout.spi.Attachment;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.Callable;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
 
@@ -47,7 +45,7 @@ import lombok.ToString;
 @Immutable
 @Loggable(Loggable.DEBUG)
 @ToString(of = "origin")
-@EqualsAndHashCode(of = "origin")
+@EqualsAndHashCode(of = { "origin", "bout", "self" })
 final class CdAttachment implements Attachment {
 
     /**
@@ -55,47 +53,116 @@ final class CdAttachment implements Attachment {
      */
     private final transient Attachment origin;
 
+    /**
+     * Bout number.
+     */
+    private final transient long bout;
+
+    /**
+     * Alias of the reader.
+     */
+    private final transient String self;
+
+    /**
+     * Scopes of the base.
+     */
+    private final transient Scopes scopes;
+
     /**
      * Public ctor.
      * @param org Origin
+     * @param bot Bout number
+     * @param slf Alias of the reader
+     * @param scps Scopes of the base
      */
-    CdAttachment(final Attachment org) {
+    CdAttachment(final Attachment org, final long bot, final String slf,
+        final Scopes scps) {
         this.origin = org;
+        this.bout = bot;
+        this.self = slf;
+        this.scopes = scps;
     }
 
     @Override
-    @Cacheable(lifetime = Tv.FIVE, unit = TimeUnit.HOURS)
     public String name() throws IOException {
         return this.origin.name();
     }
 
     @Override
-    @Cacheable(lifetime = Tv.FIVE, unit = TimeUnit.HOURS)
     public String ctype() throws IOException {
-        return this.origin.ctype();
+        return this.scopes.scope("bout", this.bout).get(
+            String.format("attachment:%s:ctype", this.origin.name()),
+            new Callable<String>() {
+                @Override
+                public String call() throws IOException {
+                    return CdAttachment.this.origin.ctype();
+                }
+            }
+        );
     }
 
     @Override
-    @Cacheable(lifetime = Tv.FIVE, unit = TimeUnit.HOURS)
     public String etag() throws IOException {
-        return this.origin.etag();
+        return this.scopes.scope("bout", this.bout).get(
+            String.format("attachment:%s:etag", this.origin.name()),
+            new Callable<String>() {
+                @Override
+                public String call() throws IOException {
+                    return CdAttachment.this.origin.etag();
+                }
+            }
+        );
     }
 
     @Override
-    @Cacheable(lifetime = Tv.FIVE, unit = TimeUnit.HOURS)
     public boolean unseen() throws IOException {
-        return this.origin.unseen();
+        return this.scopes.scope("unseen", this.bout).get(
+            String.format("%s/%s", this.self, this.origin.name()),
+            new Callable<Boolean>() {
+                @Override
+                public Boolean call() throws IOException {
+                    return CdAttachment.this.origin.unseen();
+                }
+            }
+        );
     }
 
     @Override
     public InputStream read() throws IOException {
-        return this.origin.read();
+        final InputStream stream = this.origin.read();
+        this.seen();
+        return stream;
+    }
+
+    @Override
+    public long size() throws IOException {
+        return this.origin.size();
+    }
+
+    @Override
+    public InputStream read(final long first, final long last)
+        throws IOException {
+        final InputStream stream = this.origin.read(first, last);
+        this.seen();
+        return stream;
     }
 
     @Override
-    @Cacheable.FlushAfter
     public void write(final InputStream stream, final String ctype,
         final String etag) throws IOException {
         this.origin.write(stream, ctype, etag);
+        CdAttachments.forget(
+            this.scopes, this.bout, this.origin.name()
+        );
+    }
+
+    /**
+     * Forget that it's unseen, since it was just read.
+     * @throws IOException If fails
+     */
+    private void seen() throws IOException {
+        final Scope scope = this.scopes.scope("unseen", this.bout);
+        scope.forget(this.self);
+        scope.forget(String.format("%s/%s", this.self, this.origin.name()));
     }
 }
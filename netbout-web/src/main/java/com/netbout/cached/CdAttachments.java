@@ -29,14 +29,12 @@ package com.netbout.cached;
 import com.google.common.base.Function;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
-import com.jcabi.aspects.Cacheable;
 import com.jcabi.aspects.Immutable;
 import com.jcabi.aspects.Loggable;
-import com.jcabi.aspects.Tv;
 import com.netbout.spi.Attachment;
 import com.netbout.spi.Attachments;
 import java.io.IOException;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.Callable;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
 
@@ -50,7 +48,7 @@ import lombok.ToString;
 @Immutable
 @Loggable(Loggable.DEBUG)
 @ToString(of = "origin")
-@EqualsAndHashCode(of = "origin")
+@EqualsAndHashCode(of = { "origin", "bout", "self" })
 final class CdAttachments implements Attachments {
 
     /**
@@ -58,51 +56,119 @@ final class CdAttachments implements Attachments {
      */
     private final transient Attachments origin;
 
+    /**
+     * Bout number.
+     */
+    private final transient long bout;
+
+    /**
+     * Alias of the reader.
+     */
+    private final transient String self;
+
+    /**
+     * Scopes of the base.
+     */
+    private final transient Scopes scopes;
+
     /**
      * Public ctor.
      * @param org Origin
+     * @param bot Bout number
+     * @param slf Alias of the reader
+     * @param scps Scopes of the base
      */
-    CdAttachments(final Attachments org) {
+    CdAttachments(final Attachments org, final long bot, final String slf,
+        final Scopes scps) {
         this.origin = org;
+        this.bout = bot;
+        this.self = slf;
+        this.scopes = scps;
     }
 
     @Override
-    @Cacheable(lifetime = Tv.FIVE, unit = TimeUnit.HOURS)
     public int unseen() throws IOException {
-        return this.origin.unseen();
+        return this.scopes.scope("unseen", this.bout).get(
+            this.self,
+            new Callable<Integer>() {
+                @Override
+                public Integer call() throws IOException {
+                    return CdAttachments.this.origin.unseen();
+                }
+            }
+        );
     }
 
     @Override
-    @Cacheable.FlushBefore
     public void create(final String name) throws IOException {
         this.origin.create(name);
+        CdAttachments.forget(this.scopes, this.bout, name);
     }
 
     @Override
-    @Cacheable.FlushBefore
     public void delete(final String name) throws IOException {
         this.origin.delete(name);
+        CdAttachments.forget(this.scopes, this.bout, name);
     }
 
     @Override
-    @Cacheable(lifetime = Tv.FIVE, unit = TimeUnit.HOURS)
     public Attachment get(final String name) throws IOException {
-        return new CdAttachment(this.origin.get(name));
+        return this.scopes.scope("attachments", this.bout).get(
+            String.format("%s/%s", this.self, name),
+            new Callable<Attachment>() {
+                @Override
+                public Attachment call() throws IOException {
+                    return new CdAttachment(
+                        CdAttachments.this.origin.get(name),
+                        CdAttachments.this.bout, CdAttachments.this.self,
+                        CdAttachments.this.scopes
+                    );
+                }
+            }
+        );
     }
 
     @Override
-    @Cacheable(lifetime = Tv.FIVE, unit = TimeUnit.HOURS)
     public Iterable<Attachment> iterate() throws IOException {
-        return Lists.newArrayList(
-            Iterables.transform(
-                this.origin.iterate(),
-                new Function<Attachment, Attachment>() {
-                    @Override
-                    public Attachment apply(final Attachment attachment) {
-                        return new CdAttachment(attachment);
-                    }
+        return this.scopes.scope("attachments", this.bout).get(
+            this.self,
+            new Callable<Iterable<Attachment>>() {
+                @Override
+                public Iterable<Attachment> call() throws IOException {
+                    return Lists.newArrayList(
+                        Iterables.transform(
+                            CdAttachments.this.origin.iterate(),
+                            new Function<Attachment, Attachment>() {
+                                @Override
+                                public Attachment apply(
+                                    final Attachment attachment) {
+                                    return new CdAttachment(
+                                        attachment,
+                                        CdAttachments.this.bout,
+                                        CdAttachments.this.self,
+                                        CdAttachments.this.scopes
+                                    );
+                                }
+                            }
+                        )
+                    );
                 }
-            )
+            }
         );
     }
+
+    /**
+     * Forget everything that changes with the content of an attachment.
+     * @param scopes Scopes of the base
+     * @param bout Bout number
+     * @param name Name of the attachment
+     */
+    static void forget(final Scopes scopes, final long bout,
+        final String name) {
+        scopes.scope("attachments", bout).flush();
+        scopes.scope("unseen", bout).flush();
+        final Scope scope = scopes.scope("bout", bout);
+        scope.forget(String.format("attachment:%s:ctype", name));
+        scope.forget(String.format("attachment:%s:etag", name));
+    }
 }
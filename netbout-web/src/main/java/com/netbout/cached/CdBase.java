@@ -53,22 +53,46 @@ public final class CdBase implements Base {
      */
     private final transient Base origin;
 
+    /**
+     * Scopes of this base.
+     */
+    private final transient Scopes scopes;
+
     /**
      * Public ctor.
      * @param org Origin
      */
     public CdBase(final Base org) {
         this.origin = org;
+        this.scopes = new Scopes();
+    }
+
+    /**
+     * Public ctor, for a node that shares its data with other nodes.
+     *
+     * <p>The channel is closed when the base is closed.
+     *
+     * @param org Origin
+     * @param channel Channel to exchange cache invalidations through
+     * @since 2.15
+     */
+    public CdBase(final Base org, final Channel channel) {
+        this(org);
+        this.scopes.connect(channel);
     }
 
     @Override
     public User user(final URN urn) throws IOException {
-        return new CdUser(this.origin.user(urn));
+        return new CdUser(this.origin.user(urn), this.scopes);
     }
 
     @Override
     public void close() throws IOException {
-        this.origin.close();
+        try {
+            this.scopes.close();
+        } finally {
+            this.origin.close();
+        }
     }
 
 }
@@ -26,17 +26,15 @@
  */
 package com.netbout.cached;
 
-import com.jcabi.aspects.Cacheable;
 import com.jcabi.aspects.Immutable;
 import com.jcabi.aspects.Loggable;
-import com.jcabi.aspects.Tv;
 import com.netbout.spi.Attachments;
 import com.netbout.spi.Bout;
 import com.netbout.spi.Friends;
 import com.netbout.spi.Messages;
 import java.io.IOException;
 import java.util.Date;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.Callable;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
 
@@ -50,7 +48,7 @@ import lombok.ToString;
 @Immutable
 @Loggable(Loggable.DEBUG)
 @ToString(of = "origin")
-@EqualsAndHashCode(of = "origin")
+@EqualsAndHashCode(of = { "origin", "self" })
 @SuppressWarnings("PMD.TooManyMethods")
 final class CdBout implements Bout {
 
@@ -59,12 +57,26 @@ final class CdBout implements Bout {
      */
     private final transient Bout origin;
 
+    /**
+     * Alias of the reader.
+     */
+    private final transient String self;
+
+    /**
+     * Scopes of the base.
+     */
+    private final transient Scopes scopes;
+
     /**
      * Public ctor.
      * @param org Origin
+     * @param slf Alias of the reader
+     * @param scps Scopes of the base
      */
-    CdBout(final Bout org) {
+    CdBout(final Bout org, final String slf, final Scopes scps) {
         this.origin = org;
+        this.self = slf;
+        this.scopes = scps;
     }
 
     @Override
@@ -73,59 +85,110 @@ final class CdBout implements Bout {
     }
 
     @Override
-    @Cacheable(lifetime = Tv.FIVE, unit = TimeUnit.HOURS)
     public Date date() throws IOException {
-        return this.origin.date();
+        return this.scope().get(
+            "date",
+            new Callable<Date>() {
+                @Override
+                public Date call() throws IOException {
+                    return CdBout.this.origin.date();
+                }
+            }
+        );
     }
 
     @Override
-    @Cacheable(lifetime = Tv.FIVE, unit = TimeUnit.HOURS)
     public Date updated() throws IOException {
-        return this.origin.updated();
+        return this.scope().brief(
+            "updated",
+            new Callable<Date>() {
+                @Override
+                public Date call() throws IOException {
+                    return CdBout.this.origin.updated();
+                }
+            }
+        );
     }
 
     @Override
-    @Cacheable(lifetime = Tv.FIVE, unit = TimeUnit.HOURS)
     public String title() throws IOException {
-        return this.origin.title();
+        return this.scope().get(
+            "title",
+            new Callable<String>() {
+                @Override
+                public String call() throws IOException {
+                    return CdBout.this.origin.title();
+                }
+            }
+        );
     }
 
     @Override
-    @Cacheable.FlushBefore
     public void rename(final String text) throws IOException {
         this.origin.rename(text);
+        this.scope().forget("title");
     }
 
     @Override
-    @Cacheable(lifetime = Tv.FIVE, unit = TimeUnit.HOURS)
     public boolean subscription() throws IOException {
-        return this.origin.subscription();
+        return this.scope().get(
+            String.format("subscription:%s", this.self),
+            new Callable<Boolean>() {
+                @Override
+                public Boolean call() throws IOException {
+                    return CdBout.this.origin.subscription();
+                }
+            }
+        );
     }
 
     @Override
-    @Cacheable(lifetime = Tv.FIVE, unit = TimeUnit.HOURS)
     public boolean subscription(final String alias) throws IOException {
-        return this.origin.subscription(alias);
+        return this.scope().get(
+            String.format("subscription:%s", alias),
+            new Callable<Boolean>() {
+                @Override
+                public Boolean call() throws IOException {
+                    return CdBout.this.origin.subscription(alias);
+                }
+            }
+        );
     }
 
     @Override
-    @Cacheable.FlushBefore
     public void subscribe(final boolean subs) throws IOException {
         this.origin.subscribe(subs);
+        this.scope().forget(String.format("subscription:%s", this.self));
     }
 
     @Override
     public Messages messages() throws IOException {
-        return new CdMessages(this.origin.messages());
+        return new CdMessages(
+            this.origin.messages(), this, this.self, this.scopes
+        );
     }
 
     @Override
     public Friends friends() throws IOException {
-        return new CdFriends(this.origin.friends());
+        return new CdFriends(
+            this.origin.friends(), this.number(), this.scopes
+        );
     }
 
     @Override
     public Attachments attachments() throws IOException {
-        return new CdAttachments(this.origin.attachments());
+        return new CdAttachments(
+            this.origin.attachments(), this.number(), this.self,
+            this.scopes
+        );
+    }
+
+    /**
+     * Scope of this bout.
+     * @return Scope
+     * @throws IOException If fails
+     */
+    private Scope scope() throws IOException {
+        return this.scopes.scope("bout", this.origin.number());
     }
 }
@@ -26,14 +26,12 @@
  */
 package com.netbout.cached;
 
-import com.jcabi.aspects.Cacheable;
 import com.jcabi.aspects.Immutable;
 import com.jcabi.aspects.Loggable;
-import com.jcabi.aspects.Tv;
 import com.netbout.spi.Friend;
 import java.io.IOException;
 import java.net.URI;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.Callable;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
 
@@ -55,29 +53,63 @@ final class CdFriend implements Friend {
      */
     private final transient Friend origin;
 
+    /**
+     * Scopes of the base.
+     */
+    private final transient Scopes scopes;
+
     /**
      * Public ctor.
      * @param org Origin
+     * @param scps Scopes of the base
      */
-    CdFriend(final Friend org) {
+    CdFriend(final Friend org, final Scopes scps) {
         this.origin = org;
+        this.scopes = scps;
     }
 
     @Override
-    @Cacheable(lifetime = Tv.FIVE, unit = TimeUnit.HOURS)
     public String alias() throws IOException {
         return this.origin.alias();
     }
 
     @Override
-    @Cacheable(lifetime = Tv.FIVE, unit = TimeUnit.HOURS)
     public URI photo() throws IOException {
-        return this.origin.photo();
+        return this.scope().get(
+            "photo",
+            new Callable<URI>() {
+                @Override
+                public URI call() throws IOException {
+                    return CdFriend.this.origin.photo();
+                }
+            }
+        );
     }
 
     @Override
-    @Cacheable(lifetime = Tv.FIVE, unit = TimeUnit.HOURS)
     public String email() throws IOException {
-        return this.origin.email();
+        return this.scope().get(
+            "email",
+            new Callable<String>() {
+                @Override
+                public String call() throws IOException {
+                    return CdFriend.this.origin.email();
+                }
+            }
+        );
+    }
+
+    @Override
+    public boolean subscribed() throws IOException {
+        return this.origin.subscribed();
+    }
+
+    /**
+     * Scope of the alias of this friend, shared with {@link CdAlias}.
+     * @return Scope
+     * @throws IOException If fails
+     */
+    private Scope scope() throws IOException {
+        return this.scopes.scope("alias", this.origin.alias());
     }
 }
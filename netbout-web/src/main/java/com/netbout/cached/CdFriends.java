@@ -29,14 +29,12 @@ package com.netbout.cached;
 import com.google.common.base.Function;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
-import com.jcabi.aspects.Cacheable;
 import com.jcabi.aspects.Immutable;
 import com.jcabi.aspects.Loggable;
-import com.jcabi.aspects.Tv;
 import com.netbout.spi.Friend;
 import com.netbout.spi.Friends;
 import java.io.IOException;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.Callable;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
 
@@ -50,7 +48,7 @@ import lombok.ToString;
 @Immutable
 @Loggable(Loggable.DEBUG)
 @ToString(of = "origin")
-@EqualsAndHashCode(of = "origin")
+@EqualsAndHashCode(of = { "origin", "bout" })
 final class CdFriends implements Friends {
 
     /**
@@ -58,39 +56,76 @@ final class CdFriends implements Friends {
      */
     private final transient Friends origin;
 
+    /**
+     * Bout number.
+     */
+    private final transient long bout;
+
+    /**
+     * Scopes of the base.
+     */
+    private final transient Scopes scopes;
+
     /**
      * Public ctor.
      * @param org Origin
+     * @param bot Bout number
+     * @param scps Scopes of the base
      */
-    CdFriends(final Friends org) {
+    CdFriends(final Friends org, final long bot, final Scopes scps) {
         this.origin = org;
+        this.bout = bot;
+        this.scopes = scps;
     }
 
     @Override
-    @Cacheable.FlushBefore
     public void invite(final String friend) throws IOException {
         this.origin.invite(friend);
+        this.forget(friend);
     }
 
     @Override
-    @Cacheable.FlushBefore
     public void kick(final String friend) throws IOException {
         this.origin.kick(friend);
+        this.forget(friend);
     }
 
     @Override
-    @Cacheable(lifetime = Tv.FIVE, unit = TimeUnit.HOURS)
     public Iterable<Friend> iterate() throws IOException {
-        return Lists.newArrayList(
-            Iterables.transform(
-                this.origin.iterate(),
-                new Function<Friend, Friend>() {
-                    @Override
-                    public Friend apply(final Friend input) {
-                        return new CdFriend(input);
-                    }
+        return this.scopes.scope("bout", this.bout).get(
+            "friends",
+            new Callable<Iterable<Friend>>() {
+                @Override
+                public Iterable<Friend> call() throws IOException {
+                    return Lists.newArrayList(
+                        Iterables.transform(
+                            CdFriends.this.origin.iterate(),
+                            new Function<Friend, Friend>() {
+                                @Override
+                                public Friend apply(final Friend input) {
+                                    return new CdFriend(
+                                        input, CdFriends.this.scopes
+                                    );
+                                }
+                            }
+                        )
+                    );
                 }
-            )
+            }
         );
     }
+
+    /**
+     * Forget everything that changes when a friend joins or leaves.
+     * @param friend Alias of the friend
+     */
+    private void forget(final String friend) {
+        this.scopes.scope("bout", this.bout).forget("friends");
+        this.scopes.scope("unread", this.bout).forget(friend);
+        this.scopes.scope("unseen", this.bout).flush();
+        this.scopes.scope("attachments", this.bout).flush();
+        final Scope alias = this.scopes.scope("alias", friend);
+        alias.forget("unread");
+        alias.forget(String.format("bout:%d", this.bout));
+    }
 }
@@ -28,15 +28,13 @@ package com.netbout.cached;
 
 import com.google.common.base.Function;
 import com.google.common.collect.Iterables;
-import com.jcabi.aspects.Cacheable;
 import com.jcabi.aspects.Immutable;
 import com.jcabi.aspects.Loggable;
-import com.jcabi.aspects.Tv;
 import com.netbout.spi.Bout;
 import com.netbout.spi.Inbox;
 import com.netbout.spi.Pageable;
 import java.io.IOException;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.Callable;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
 
@@ -50,7 +48,7 @@ import lombok.ToString;
 @Immutable
 @Loggable(Loggable.DEBUG)
 @ToString(of = "origin")
-@EqualsAndHashCode(of = "origin")
+@EqualsAndHashCode(of = { "origin", "self" })
 final class CdInbox implements Inbox {
 
     /**
@@ -58,39 +56,77 @@ final class CdInbox implements Inbox {
      */
     private final transient Inbox origin;
 
+    /**
+     * Alias of the owner.
+     */
+    private final transient String self;
+
+    /**
+     * Scopes of the base.
+     */
+    private final transient Scopes scopes;
+
     /**
      * Public ctor.
      * @param org Origin
+     * @param slf Alias of the owner of the inbox
+     * @param scps Scopes of the base
      */
-    CdInbox(final Inbox org) {
+    CdInbox(final Inbox org, final String slf, final Scopes scps) {
         this.origin = org;
+        this.self = slf;
+        this.scopes = scps;
     }
 
     @Override
-    @Cacheable.FlushBefore
     public long start() throws IOException {
         return this.origin.start();
     }
 
     @Override
-    @Cacheable(lifetime = Tv.FIVE, unit = TimeUnit.HOURS)
     public long unread() throws IOException {
-        return this.origin.unread();
+        return this.scopes.scope("alias", this.self).brief(
+            "unread",
+            new Callable<Long>() {
+                @Override
+                public Long call() throws IOException {
+                    return CdInbox.this.origin.unread();
+                }
+            }
+        );
     }
 
     @Override
-    @Cacheable(lifetime = Tv.FIVE, unit = TimeUnit.HOURS)
     @Loggable(
         value = Loggable.DEBUG,
         ignore = Inbox.BoutNotFoundException.class
     )
     public Bout bout(final long number) throws Inbox.BoutNotFoundException {
-        return new CdBout(this.origin.bout(number));
+        try {
+            return this.scopes.scope("alias", this.self).get(
+                String.format("bout:%d", number),
+                new Callable<Bout>() {
+                    @Override
+                    public Bout call() throws IOException {
+                        return new CdBout(
+                            CdInbox.this.origin.bout(number), CdInbox.this.self,
+                            CdInbox.this.scopes
+                        );
+                    }
+                }
+            );
+        } catch (final Inbox.BoutNotFoundException ex) {
+            throw ex;
+        } catch (final IOException ex) {
+            throw new Inbox.BoutNotFoundException(number, ex);
+        }
     }
 
     @Override
     public Pageable<Bout> jump(final long number) throws IOException {
-        return new CdPageable<Bout>(this.origin.jump(number));
+        return new CdPageable<Bout>(
+            this.origin.jump(number), this.self, this.scopes
+        );
     }
 
     @Override
@@ -100,7 +136,9 @@ final class CdInbox implements Inbox {
             new Function<Bout, Bout>() {
                 @Override
                 public Bout apply(final Bout input) {
-                    return new CdBout(input);
+                    return new CdBout(
+                        input, CdInbox.this.self, CdInbox.this.scopes
+                    );
                 }
             }
         );
@@ -113,7 +151,9 @@ final class CdInbox implements Inbox {
             new Function<Bout, Bout>() {
                 @Override
                 public Bout apply(final Bout input) {
-                    return new CdBout(input);
+                    return new CdBout(
+                        input, CdInbox.this.self, CdInbox.this.scopes
+                    );
                 }
             }
         );
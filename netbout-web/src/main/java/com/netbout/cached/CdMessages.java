@@ -28,15 +28,15 @@ package com.netbout.cached;
 
 import com.google.common.base.Function;
 import com.google.common.collect.Iterables;
-import com.jcabi.aspects.Cacheable;
 import com.jcabi.aspects.Immutable;
 import com.jcabi.aspects.Loggable;
-import com.jcabi.aspects.Tv;
+import com.netbout.spi.Bout;
+import com.netbout.spi.Friend;
 import com.netbout.spi.Message;
 import com.netbout.spi.Messages;
 import com.netbout.spi.Pageable;
 import java.io.IOException;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.Callable;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
 
@@ -50,7 +50,7 @@ import lombok.ToString;
 @Immutable
 @Loggable(Loggable.DEBUG)
 @ToString(of = "origin")
-@EqualsAndHashCode(of = "origin")
+@EqualsAndHashCode(of = { "origin", "bout", "self" })
 final class CdMessages implements Messages {
 
     /**
@@ -59,40 +59,73 @@ final class CdMessages implements Messages {
     private final transient Messages origin;
 
     /**
-     * Flag to use for caching.
+     * Bout they belong to.
      */
-    private final transient CdMessages.Flag flag;
+    private final transient Bout bout;
+
+    /**
+     * Alias of the reader.
+     */
+    private final transient String self;
+
+    /**
+     * Scopes of the base.
+     */
+    private final transient Scopes scopes;
 
     /**
      * Public ctor.
      * @param org Origin
+     * @param bot Bout they belong to
+     * @param slf Alias of the reader
+     * @param scps Scopes of the base
      */
-    CdMessages(final Messages org) {
+    CdMessages(final Messages org, final Bout bot, final String slf,
+        final Scopes scps) {
         this.origin = org;
-        this.flag = new CdMessages.Flag(org);
+        this.bout = bot;
+        this.self = slf;
+        this.scopes = scps;
     }
 
     @Override
-    @Cacheable.FlushBefore
     public void post(final String text) throws IOException {
         this.origin.post(text);
+        final long number = this.bout.number();
+        this.scopes.scope("bout", number).forget("updated");
+        new Bus().ring(number);
+        this.scopes.scope("unread", number).flush();
+        for (final Friend friend : this.bout.friends().iterate()) {
+            this.scopes.scope("alias", friend.alias()).forget("unread");
+        }
     }
 
     @Override
     public long unread() throws IOException {
-        return this.flag.unread();
+        return this.scopes.scope("unread", this.bout.number()).brief(
+            this.self,
+            new Callable<Long>() {
+                @Override
+                public Long call() throws IOException {
+                    return CdMessages.this.origin.unread();
+                }
+            }
+        );
     }
 
     @Override
     public Pageable<Message> jump(final long number) throws IOException {
-        return new CdPageable<Message>(this.origin.jump(number));
+        return new CdPageable<Message>(
+            this.origin.jump(number), this.self, this.scopes
+        );
     }
 
     @Override
     public Iterable<Message> iterate() throws IOException {
-        this.flag.touch();
+        final Iterable<Message> list = this.origin.iterate();
+        this.seen();
         return Iterables.transform(
-            this.origin.iterate(),
+            list,
             new Function<Message, Message>() {
                 @Override
                 public Message apply(final Message input) {
@@ -104,9 +137,10 @@ final class CdMessages implements Messages {
 
     @Override
     public Iterable<Message> search(final String term) throws IOException {
-        this.flag.touch();
+        final Iterable<Message> list = this.origin.search(term);
+        this.seen();
         return Iterables.transform(
-            this.origin.search(term),
+            list,
             new Function<Message, Message>() {
                 @Override
                 public Message apply(final Message input) {
@@ -115,42 +149,13 @@ final class CdMessages implements Messages {
             }
         );
     }
+
     /**
-     * Flag of read/unread.
-     * @since 2.6
+     * I've seen them all, forget my unread numbers.
+     * @throws IOException If fails
      */
-    @Immutable
-    @Loggable(Loggable.DEBUG)
-    @ToString(of = "messages")
-    @EqualsAndHashCode(of = "messages")
-    private static final class Flag {
-        /**
-         * Original.
-         */
-        private final transient Messages messages;
-        /**
-         * Public ctor.
-         * @param org Origin
-         */
-        Flag(final Messages org) {
-            this.messages = org;
-        }
-        /**
-         * How many unread.
-         * @return Number
-         * @throws IOException If fails
-         */
-        @Cacheable(lifetime = Tv.FIVE, unit = TimeUnit.MINUTES)
-        public long unread() throws IOException {
-            return this.messages.unread();
-        }
-        /**
-         * I've seen them all.
-         */
-        @Cacheable.FlushBefore
-        public void touch() {
-            // nothing special
-        }
+    private void seen() throws IOException {
+        this.scopes.scope("unread", this.bout.number()).forget(this.self);
+        this.scopes.scope("alias", this.self).forget("unread");
     }
-
 }
@@ -47,7 +47,7 @@ import lombok.ToString;
 @Immutable
 @Loggable(Loggable.DEBUG)
 @ToString(of = "origin")
-@EqualsAndHashCode(of = "origin")
+@EqualsAndHashCode(of = { "origin", "self" })
 final class CdPageable<T> implements Pageable<T> {
 
     /**
@@ -55,17 +55,33 @@ final class CdPageable<T> implements Pageable<T> {
      */
     private final transient Pageable<T> origin;
 
+    /**
+     * Alias of the reader.
+     */
+    private final transient String self;
+
+    /**
+     * Scopes of the base.
+     */
+    private final transient Scopes scopes;
+
     /**
      * Public ctor.
      * @param org Origin
+     * @param slf Alias of the reader
+     * @param scps Scopes of the base
      */
-    CdPageable(final Pageable<T> org) {
+    CdPageable(final Pageable<T> org, final String slf, final Scopes scps) {
         this.origin = org;
+        this.self = slf;
+        this.scopes = scps;
     }
 
     @Override
     public Pageable<T> jump(final long number) throws IOException {
-        return new CdPageable<T>(this.origin.jump(number));
+        return new CdPageable<T>(
+            this.origin.jump(number), this.self, this.scopes
+        );
     }
 
     @Override
@@ -80,7 +96,10 @@ final class CdPageable<T> implements Pageable<T> {
                     if (input instanceof Message) {
                         result = new CdMessage(Message.class.cast(input));
                     } else {
-                        result = new CdBout(Bout.class.cast(input));
+                        result = new CdBout(
+                            Bout.class.cast(input), CdPageable.this.self,
+                            CdPageable.this.scopes
+                        );
                     }
                     return (T) result;
                 }
@@ -53,17 +53,24 @@ final class CdUser implements User {
      */
     private final transient User origin;
 
+    /**
+     * Scopes of the base.
+     */
+    private final transient Scopes scopes;
+
     /**
      * Public ctor.
      * @param org Origin
+     * @param scps Scopes of the base
      */
-    CdUser(final User org) {
+    CdUser(final User org, final Scopes scps) {
         this.origin = org;
+        this.scopes = scps;
     }
 
     @Override
     public Aliases aliases() {
-        return new CdAliases(this.origin.aliases());
+        return new CdAliases(this.origin.aliases(), this.scopes);
     }
 
     @Override
@@ -0,0 +1,106 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.cached;
+
+import java.io.Closeable;
+import java.util.Collection;
+import java.util.concurrent.CopyOnWriteArrayList;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+/**
+ * Channel of cache invalidations, shared by all nodes.
+ *
+ * <p>Every key forgotten and every scope flushed by one node is published
+ * to the channel, and all other nodes listening to it forget the same
+ * entries in their local caches. An implementation must never throw
+ * from {@link #publish(String, String)}: a cache can't break a write that
+ * already happened. Delivery is at least once, since forgetting twice
+ * is harmless.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 2.15
+ */
+public interface Channel extends Closeable {
+
+    /**
+     * Publish a change.
+     * @param scope Name of the scope
+     * @param key The key forgotten, or empty if the entire scope is flushed
+     */
+    void publish(String scope, String key);
+
+    /**
+     * Start delivering changes published by others to the listener.
+     * @param listener The listener
+     */
+    void listen(Channel.Listener listener);
+
+    /**
+     * Listener of changes.
+     */
+    interface Listener {
+        /**
+         * Something was changed.
+         * @param scope Name of the scope
+         * @param key The key, or empty if the entire scope is flushed
+         */
+        void changed(String scope, String key);
+    }
+
+    /**
+     * In-memory channel, which delivers changes to listeners in this JVM.
+     *
+     * <p>It's good for a single node and for tests, where a few listeners
+     * may pretend to be different nodes.
+     */
+    @ToString
+    @EqualsAndHashCode(of = "listeners")
+    final class Loopback implements Channel {
+        /**
+         * Listeners.
+         */
+        private final transient Collection<Channel.Listener> listeners =
+            new CopyOnWriteArrayList<Channel.Listener>();
+        @Override
+        public void publish(final String scope, final String key) {
+            for (final Channel.Listener listener : this.listeners) {
+                listener.changed(scope, key);
+            }
+        }
+        @Override
+        public void listen(final Channel.Listener listener) {
+            this.listeners.add(listener);
+        }
+        @Override
+        public void close() {
+            this.listeners.clear();
+        }
+    }
+
+}
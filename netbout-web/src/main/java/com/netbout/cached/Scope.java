@@ -0,0 +1,261 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.cached;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.jcabi.aspects.Immutable;
+import com.jcabi.aspects.Tv;
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+/**
+ * Scope of cached values, for example, everything about one bout.
+ *
+ * <p>All scopes share one bounded LRU cache in the JVM, their keys
+ * start with the name of their {@link Scopes}. Values are
+ * cached by keys inside their scopes, and every write either forgets
+ * the keys it changes or, when too much changes at once, flushes
+ * the entire scope. A flush doesn't walk the cache: the scope gets
+ * a new generation number, which is a part of every key, and old
+ * entries are never seen again until the LRU evicts them.
+ *
+ * <p>When a {@link Channel} is connected to the scopes, every key
+ * forgotten and every scope flushed here is published to other nodes,
+ * and their changes are applied here.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 2.15
+ */
+@Immutable
+@ToString
+@EqualsAndHashCode(of = { "scopes", "name" })
+final class Scope {
+
+    /**
+     * Sequence of generations.
+     */
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+
+    /**
+     * Current generations of scopes.
+     *
+     * <p>When a generation is evicted, the scope gets a new one from
+     * the sequence, so its old entries can't come back.
+     */
+    private static final LoadingCache<String, Long> GENERATIONS =
+        CacheBuilder.newBuilder()
+            .maximumSize((long) Tv.HUNDRED * (long) Tv.THOUSAND)
+            .build(
+                new CacheLoader<String, Long>() {
+                    @Override
+                    public Long load(final String scope) {
+                        return Scope.SEQUENCE.incrementAndGet();
+                    }
+                }
+            );
+
+    /**
+     * Cached values.
+     */
+    private static final Cache<String, Object> VALUES =
+        CacheBuilder.newBuilder()
+            .maximumSize((long) Tv.HUNDRED * (long) Tv.THOUSAND)
+            .expireAfterWrite((long) Tv.FIVE, TimeUnit.HOURS)
+            .build();
+
+    /**
+     * Values cached briefly.
+     */
+    private static final Cache<String, Object> BRIEF =
+        CacheBuilder.newBuilder()
+            .maximumSize((long) Tv.TEN * (long) Tv.THOUSAND)
+            .expireAfterWrite((long) Tv.TEN, TimeUnit.SECONDS)
+            .build();
+
+    /**
+     * Scopes it belongs to.
+     */
+    private final transient Scopes scopes;
+
+    /**
+     * Name of the scope.
+     */
+    private final transient String name;
+
+    /**
+     * Ctor.
+     * @param scps Scopes it belongs to
+     * @param scope Full name of the scope, for example "bout:45"
+     */
+    Scope(final Scopes scps, final String scope) {
+        this.scopes = scps;
+        this.name = scope;
+    }
+
+    /**
+     * Get value by key, loading it if it's absent.
+     * @param key The key
+     * @param loader Loader of the value
+     * @param <T> Type of value
+     * @return The value
+     * @throws IOException If fails to load
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(final String key, final Callable<T> loader)
+        throws IOException {
+        try {
+            return (T) Scope.VALUES.get(this.key(key), loader);
+        } catch (final ExecutionException ex) {
+            throw Scope.unwrap(ex.getCause());
+        } catch (final UncheckedExecutionException ex) {
+            throw Scope.unwrap(ex.getCause());
+        }
+    }
+
+    /**
+     * Get value by key, loading it if it's absent, and keep it
+     * only for a few seconds.
+     *
+     * <p>This is for values that are changed in background, after
+     * the write that forgets them is finished, like numbers of unread
+     * messages. A reader may load such a value before the change is
+     * done, and it will be stale until it expires.
+     *
+     * @param key The key
+     * @param loader Loader of the value
+     * @param <T> Type of value
+     * @return The value
+     * @throws IOException If fails to load
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T brief(final String key, final Callable<T> loader)
+        throws IOException {
+        try {
+            return (T) Scope.BRIEF.get(this.key(key), loader);
+        } catch (final ExecutionException ex) {
+            throw Scope.unwrap(ex.getCause());
+        } catch (final UncheckedExecutionException ex) {
+            throw Scope.unwrap(ex.getCause());
+        }
+    }
+
+    /**
+     * Forget the value of the key.
+     * @param key The key
+     */
+    public void forget(final String key) {
+        this.drop(key);
+        this.scopes.publish(this.name, key);
+    }
+
+    /**
+     * Forget all values of the scope.
+     */
+    public void flush() {
+        this.renew();
+        this.scopes.publish(this.name, "");
+    }
+
+    /**
+     * Apply a change that came from another node.
+     * @param key The key forgotten, or empty if the entire scope is flushed
+     */
+    public void apply(final String key) {
+        if (key.isEmpty()) {
+            this.renew();
+        } else {
+            this.drop(key);
+        }
+    }
+
+    /**
+     * Forget the value of the key, only here.
+     * @param key The key
+     */
+    private void drop(final String key) {
+        final String full = this.key(key);
+        Scope.VALUES.invalidate(full);
+        Scope.BRIEF.invalidate(full);
+    }
+
+    /**
+     * Forget all values of the scope, only here.
+     */
+    private void renew() {
+        Scope.GENERATIONS.put(
+            this.generation(), Scope.SEQUENCE.incrementAndGet()
+        );
+    }
+
+    /**
+     * Full key in the cache.
+     * @param key Key in this scope
+     * @return Full key
+     */
+    private String key(final String key) {
+        return String.format(
+            "%s#%d:%s", this.generation(),
+            Scope.GENERATIONS.getUnchecked(this.generation()), key
+        );
+    }
+
+    /**
+     * Key of the generation of this scope.
+     * @return Key, unique in the JVM
+     */
+    private String generation() {
+        return String.format("%s/%s", this.scopes.name(), this.name);
+    }
+
+    /**
+     * Turn the cause of failed load into IOException.
+     * @param cause The cause
+     * @return Exception to throw
+     */
+    private static IOException unwrap(final Throwable cause) {
+        final IOException error;
+        if (cause instanceof IOException) {
+            error = IOException.class.cast(cause);
+        } else if (cause instanceof RuntimeException) {
+            throw RuntimeException.class.cast(cause);
+        } else {
+            error = new IOException(cause);
+        }
+        return error;
+    }
+
+}
@@ -0,0 +1,140 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.cached;
+
+import com.jcabi.aspects.Immutable;
+import java.io.IOException;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+/**
+ * Scopes of one cached base.
+ *
+ * <p>Every {@link CdBase} has its own scopes, so two bases in one JVM
+ * never see values of each other, and each of them publishes its
+ * changes only to its own {@link Channel}. Scopes are immutable, so
+ * the channel is kept in a static map by their unique name; it is
+ * removed from there and closed when the base is closed.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 2.15
+ */
+@Immutable
+@ToString
+@EqualsAndHashCode(of = "name")
+final class Scopes {
+
+    /**
+     * Channels, by names of scopes.
+     */
+    private static final ConcurrentMap<String, Channel> CHANNELS =
+        new ConcurrentHashMap<>(0);
+
+    /**
+     * Unique name.
+     */
+    private final transient String name;
+
+    /**
+     * Ctor.
+     */
+    Scopes() {
+        this(UUID.randomUUID().toString());
+    }
+
+    /**
+     * Ctor.
+     * @param label Unique name
+     */
+    private Scopes(final String label) {
+        this.name = label;
+    }
+
+    /**
+     * Get one scope.
+     * @param kind Kind of scope, for example "bout"
+     * @param id Its unique ID, for example bout number
+     * @return Scope
+     */
+    public Scope scope(final String kind, final Object id) {
+        return new Scope(this, String.format("%s:%s", kind, id));
+    }
+
+    /**
+     * Publish all changes to the channel and apply all changes
+     * that come from it, ringing the {@link Bus} on new messages.
+     * @param channel The channel
+     */
+    public void connect(final Channel channel) {
+        channel.listen(
+            new Channel.Listener() {
+                @Override
+                public void changed(final String scope, final String key) {
+                    new Scope(Scopes.this, scope).apply(key);
+                }
+            }
+        );
+        channel.listen(new Bus());
+        Scopes.CHANNELS.put(this.name, channel);
+    }
+
+    /**
+     * Publish a change to the channel, if it's connected.
+     * @param scope Name of the scope
+     * @param key The key, or empty if the entire scope is flushed
+     */
+    public void publish(final String scope, final String key) {
+        final Channel channel = Scopes.CHANNELS.get(this.name);
+        if (channel != null) {
+            channel.publish(scope, key);
+        }
+    }
+
+    /**
+     * Disconnect from the channel, if it's connected, and close it.
+     * @throws IOException If fails
+     */
+    public void close() throws IOException {
+        final Channel channel = Scopes.CHANNELS.remove(this.name);
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    /**
+     * Unique name, which is a part of every key in the cache.
+     * @return Name
+     */
+    public String name() {
+        return this.name;
+    }
+
+}
@@ -26,6 +26,10 @@
  */
 package com.netbout.dynamo;
 
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.ConditionalCheckFailedException;
+import com.amazonaws.services.dynamodbv2.model.ExpectedAttributeValue;
+import com.amazonaws.services.dynamodbv2.model.PutItemRequest;
 import com.amazonaws.services.dynamodbv2.model.Select;
 import com.google.common.base.Function;
 import com.google.common.collect.Iterables;
@@ -90,6 +94,12 @@ final class DyAliases implements Aliases {
      */
     public static final String ATTR_EMAIL = "email";
 
+    /**
+     * Total number of unread messages in all bouts.
+     * @since 2.15
+     */
+    public static final String ATTR_UNREAD = "unread";
+
     /**
      * Index name.
      */
@@ -142,18 +152,38 @@ final class DyAliases implements Aliases {
         if (name.length() > Tv.HUNDRED) {
             throw new IllegalArgumentException("alias is too long");
         }
-        if (new Everybody(this.region).occupied(name)) {
+        final Everybody everybody = new Everybody(this.region);
+        if (everybody.occupied(name)) {
             throw new IllegalArgumentException(
                 String.format("alias '%s' is occupied", name)
             );
         }
-        this.region.table(DyAliases.TBL).put(
-            new Attributes()
-                .with(DyAliases.ATTR_URN, this.urn)
-                .with(DyAliases.HASH, name)
-                .with(DyAliases.ATTR_PHOTO, Alias.BLANK)
-                .with(DyAliases.ATTR_LOCALE, Locale.ENGLISH)
-        );
+        final AmazonDynamoDB aws = this.region.aws();
+        try {
+            aws.putItem(
+                new PutItemRequest()
+                    .withTableName(this.region.table(DyAliases.TBL).name())
+                    .withItem(
+                        new Attributes()
+                            .with(DyAliases.ATTR_URN, this.urn)
+                            .with(DyAliases.HASH, name)
+                            .with(DyAliases.ATTR_PHOTO, Alias.BLANK)
+                            .with(DyAliases.ATTR_LOCALE, Locale.ENGLISH)
+                            .with(DyAliases.ATTR_UNREAD, 0L)
+                    )
+                    .addExpectedEntry(
+                        DyAliases.HASH, new ExpectedAttributeValue(false)
+                    )
+            );
+        } catch (final ConditionalCheckFailedException ex) {
+            everybody.add(name);
+            throw new IllegalArgumentException(
+                String.format("alias '%s' is occupied", name), ex
+            );
+        } finally {
+            aws.shutdown();
+        }
+        everybody.add(name);
         Logger.info(this, "alias @%s added to %s", name, this.urn);
     }
 
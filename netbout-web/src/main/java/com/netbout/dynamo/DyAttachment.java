@@ -26,10 +26,14 @@
  */
 package com.netbout.dynamo;
 
+import com.amazonaws.AmazonClientException;
 import com.amazonaws.services.dynamodbv2.model.AttributeAction;
 import com.amazonaws.services.dynamodbv2.model.AttributeValue;
 import com.amazonaws.services.dynamodbv2.model.AttributeValueUpdate;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.GetObjectRequest;
 import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.S3Object;
 import com.google.common.base.Predicate;
 import com.google.common.collect.Iterables;
 import com.jcabi.aspects.Async;
@@ -49,19 +53,31 @@ import com.jcabi.s3.mock.MkRegion;
 import com.netbout.spi.Attachment;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.HashSet;
 import java.util.Set;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
 import org.apache.commons.codec.CharEncoding;
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 
 /**
  * Dynamo attachment.
  *
+ * <p>Content of a file stream, for example the one {@code TkAttach}
+ * spools an upload to, is stored as is, since its length is known.
+ * Any other stream is copied into a temporary file first. Content stored
+ * in S3 is read straight from there, without copying.
+ *
  * @author Yegor Bugayenko (yegor@teamed.io)
  * @version $Id$
  * @since 2.0
@@ -79,6 +95,11 @@ final class DyAttachment implements Attachment {
      */
     private static final int MAX_SIZE = 50000;
 
+    /**
+     * Maximum size of an attachment.
+     */
+    private static final long MAX_TOTAL = (long) Tv.TEN * (long) Tv.MILLION;
+
     /**
      * Bucket with attachments.
      */
@@ -166,23 +187,53 @@ final class DyAttachment implements Attachment {
     @Override
     public InputStream read() throws IOException {
         this.seen();
-        final byte[] bytes;
+        final InputStream input;
         if (this.item.has(DyAttachments.ATTR_KEY)) {
-            final ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            this.bucket.ocket(
+            input = this.object(
+                new GetObjectRequest(
+                    this.bucket.name(),
+                    this.item.get(DyAttachments.ATTR_KEY).getS()
+                )
+            );
+        } else {
+            input = new ByteArrayInputStream(this.inline());
+        }
+        return input;
+    }
+
+    @Override
+    public long size() throws IOException {
+        final long size;
+        if (this.item.has(DyAttachments.ATTR_SIZE)) {
+            size = Long.parseLong(
+                this.item.get(DyAttachments.ATTR_SIZE).getN()
+            );
+        } else if (this.item.has(DyAttachments.ATTR_KEY)) {
+            size = this.bucket.ocket(
                 this.item.get(DyAttachments.ATTR_KEY).getS()
-            ).read(baos);
-            bytes = baos.toByteArray();
+            ).meta().getContentLength();
         } else {
-            final ByteBuffer buf =
-                this.item.get(DyAttachments.ATTR_DATA).getB();
-            if (buf == null) {
-                bytes = "temporary unavailable".getBytes(CharEncoding.UTF_8);
-            } else {
-                bytes = buf.array();
-            }
+            size = (long) this.inline().length;
         }
-        return new ByteArrayInputStream(bytes);
+        return size;
+    }
+
+    @Override
+    public InputStream read(final long first, final long last)
+        throws IOException {
+        this.seen();
+        final InputStream input;
+        if (this.item.has(DyAttachments.ATTR_KEY)) {
+            input = this.object(
+                new GetObjectRequest(
+                    this.bucket.name(),
+                    this.item.get(DyAttachments.ATTR_KEY).getS()
+                ).withRange(first, last)
+            );
+        } else {
+            input = DyAttachment.slice(this.inline(), first, last);
+        }
+        return input;
     }
 
     @Override
@@ -208,8 +259,41 @@ final class DyAttachment implements Attachment {
                 "ctype is too long, 100 bytes maximum allowed"
             );
         }
-        final byte[] data = IOUtils.toByteArray(stream);
-        if (data.length == 0) {
+        if (stream instanceof FileInputStream) {
+            final FileChannel channel =
+                FileInputStream.class.cast(stream).getChannel();
+            this.store(
+                stream, channel.size() - channel.position(), ctype, etag
+            );
+        } else {
+            final File file = File.createTempFile("netbout", ".bin");
+            try {
+                final long size = DyAttachment.copy(stream, file);
+                final InputStream input = new FileInputStream(file);
+                try {
+                    this.store(input, size, ctype, etag);
+                } finally {
+                    input.close();
+                }
+            } finally {
+                FileUtils.deleteQuietly(file);
+            }
+        }
+    }
+
+    /**
+     * Store the content, if it's not too big and differs from what
+     * we have already.
+     * @param input Stream with the content
+     * @param size How many bytes are in the stream
+     * @param ctype Content type
+     * @param etag ETag of the content
+     * @throws IOException If fails
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    private void store(final InputStream input, final long size,
+        final String ctype, final String etag) throws IOException {
+        if (size == 0L) {
             throw new Attachment.BrokenContentException(
                 String.format(
                     "content of attachment \"%s\" can't be empty",
@@ -217,35 +301,40 @@ final class DyAttachment implements Attachment {
                 )
             );
         }
-        if (data.length > Tv.TEN * Tv.MILLION) {
+        if (size > DyAttachment.MAX_TOTAL) {
             throw new Attachment.TooBigException(
                 "attachment is too big, 10Mb is the maximum size"
             );
         }
         if (!etag.equals(this.etag())) {
-            final AttributeUpdates updates = this.save(data, ctype)
-                .with(DyAttachments.ATTR_ETAG, etag);
+            final AttributeUpdates updates = this.save(input, size, ctype)
+                .with(DyAttachments.ATTR_ETAG, etag)
+                .with(
+                    DyAttachments.ATTR_SIZE,
+                    new AttributeValue().withN(Long.toString(size))
+                );
             this.item.put(updates);
             this.updated();
             Logger.info(
                 this, "attachment %s (%d bytes) uploaded into #%d by @%s",
-                this.name(), data.length, this.bout(), this.self
+                this.name(), size, this.bout(), this.self
             );
         }
     }
 
     /**
      * Save content.
-     * @param data Data to save
+     * @param input Stream with data to save
+     * @param size How many bytes are in the stream
      * @param ctype CType
      * @return Updates to apply
      * @throws IOException If fails
      */
-    private AttributeUpdates save(final byte[] data, final String ctype)
-        throws IOException {
+    private AttributeUpdates save(final InputStream input, final long size,
+        final String ctype) throws IOException {
         AttributeUpdates updates = new AttributeUpdates()
             .with(DyAttachments.ATTR_CTYPE, ctype);
-        if (data.length < DyAttachment.MAX_SIZE) {
+        if (size < (long) DyAttachment.MAX_SIZE) {
             if (this.item.has(DyAttachments.ATTR_KEY)) {
                 this.bucket.remove(
                     this.item.get(DyAttachments.ATTR_KEY).getS()
@@ -253,7 +342,9 @@ final class DyAttachment implements Attachment {
             }
             updates = updates.with(
                 DyAttachments.ATTR_DATA,
-                new AttributeValue().withB(ByteBuffer.wrap(data))
+                new AttributeValue().withB(
+                    ByteBuffer.wrap(IOUtils.toByteArray(input, size))
+                )
             );
             updates = updates.with(
                 DyAttachments.ATTR_KEY,
@@ -276,11 +367,8 @@ final class DyAttachment implements Attachment {
             }
             final ObjectMetadata meta = new ObjectMetadata();
             meta.setContentType(ctype);
-            meta.setContentLength((long) data.length);
-            this.bucket.ocket(key).write(
-                new ByteArrayInputStream(data),
-                meta
-            );
+            meta.setContentLength(size);
+            this.bucket.ocket(key).write(input, meta);
             updates = updates
                 .with(DyAttachments.ATTR_DATA, key)
                 .with(DyAttachments.ATTR_KEY, key);
@@ -288,6 +376,106 @@ final class DyAttachment implements Attachment {
         return updates;
     }
 
+    /**
+     * Copy the stream into the file, but not more than allowed.
+     * @param stream Stream to copy
+     * @param file File to copy to
+     * @return How many bytes were copied, or more than
+     *  {@link #MAX_TOTAL} if the stream is too long
+     * @throws IOException If fails
+     */
+    private static long copy(final InputStream stream, final File file)
+        throws IOException {
+        final OutputStream output = new FileOutputStream(file);
+        try {
+            return IOUtils.copyLarge(
+                stream, output, 0L, DyAttachment.MAX_TOTAL + 1L
+            );
+        } finally {
+            output.close();
+        }
+    }
+
+    /**
+     * Stream of the object in S3, which shuts the client down when closed.
+     *
+     * <p>The content is not copied anywhere, the caller reads it straight
+     * from S3. The mock region has no client, its object is read
+     * into memory instead.
+     *
+     * @param request The request
+     * @return Stream
+     * @throws IOException If fails
+     */
+    private InputStream object(final GetObjectRequest request)
+        throws IOException {
+        final InputStream input;
+        if (this.bucket.region() instanceof MkRegion) {
+            final ByteArrayOutputStream output = new ByteArrayOutputStream();
+            this.bucket.ocket(request.getKey()).read(output);
+            final long[] range = request.getRange();
+            if (range == null) {
+                input = new ByteArrayInputStream(output.toByteArray());
+            } else {
+                input = DyAttachment.slice(
+                    output.toByteArray(), range[0], range[1]
+                );
+            }
+        } else {
+            final AmazonS3 aws = this.bucket.region().aws();
+            final S3Object object;
+            try {
+                object = aws.getObject(request);
+            } catch (final AmazonClientException ex) {
+                aws.shutdown();
+                throw new IOException(ex);
+            }
+            input = new FilterInputStream(object.getObjectContent()) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        aws.shutdown();
+                    }
+                }
+            };
+        }
+        return input;
+    }
+
+    /**
+     * Stream of the range of bytes.
+     * @param bytes All bytes
+     * @param first First byte of the range
+     * @param last Last byte of the range, inclusive
+     * @return Stream
+     */
+    private static InputStream slice(final byte[] bytes, final long first,
+        final long last) {
+        final int start = (int) Math.min(first, (long) bytes.length);
+        return new ByteArrayInputStream(
+            bytes, start,
+            (int) Math.min(last + 1L, (long) bytes.length) - start
+        );
+    }
+
+    /**
+     * Content stored in DynamoDB.
+     * @return Bytes
+     * @throws IOException If fails
+     */
+    private byte[] inline() throws IOException {
+        final ByteBuffer buf = this.item.get(DyAttachments.ATTR_DATA).getB();
+        final byte[] bytes;
+        if (buf == null) {
+            bytes = "temporary unavailable".getBytes(CharEncoding.UTF_8);
+        } else {
+            bytes = buf.array();
+        }
+        return bytes;
+    }
+
     /**
      * Bout we're in.
      * @return Bout number
@@ -303,38 +491,32 @@ final class DyAttachment implements Attachment {
      */
     @Async
     private void updated() throws IOException {
-        Iterables.all(
+        final long now = System.currentTimeMillis();
+        new Fanout(String.format("#%d", this.bout())).apply(
             this.region.table(DyFriends.TBL).frame()
                 .through(new QueryValve())
                 .where(DyFriends.HASH, Conditions.equalTo(this.bout())),
             // @checkstyle AnonInnerLengthCheck (50 lines)
-            new Predicate<Item>() {
+            new Fanout.Update<Item>() {
                 @Override
-                public boolean apply(final Item input) {
-                    AttributeUpdates updates = new AttributeUpdates().with(
-                        DyFriends.ATTR_UPDATED,
-                        System.currentTimeMillis()
-                    );
-                    try {
-                        final String alias = input.get(DyFriends.RANGE).getS();
-                        if (!alias.equals(DyAttachment.this.self)) {
-                            final Set<String> list =
-                                DyAttachment.this.list(alias);
-                            list.add(DyAttachment.this.name());
-                            updates = updates.with(
-                                DyFriends.ATTR_UNSEEN,
-                                new AttributeValueUpdate()
-                                    .withAction(AttributeAction.PUT)
-                                    .withValue(
-                                        new AttributeValue().withSS(list)
-                                    )
-                            );
-                        }
-                        input.put(updates);
-                    } catch (final IOException ex) {
-                        throw new IllegalStateException(ex);
+                public void apply(final Item input) throws IOException {
+                    AttributeUpdates updates = new AttributeUpdates()
+                        .with(DyFriends.ATTR_UPDATED, now);
+                    final String alias = input.get(DyFriends.RANGE).getS();
+                    if (!alias.equals(DyAttachment.this.self)) {
+                        final Set<String> list =
+                            DyAttachment.this.list(alias);
+                        list.add(DyAttachment.this.name());
+                        updates = updates.with(
+                            DyFriends.ATTR_UNSEEN,
+                            new AttributeValueUpdate()
+                                .withAction(AttributeAction.PUT)
+                                .withValue(
+                                    new AttributeValue().withSS(list)
+                                )
+                        );
                     }
-                    return true;
+                    input.put(updates);
                 }
             }
         );
@@ -97,6 +97,12 @@ final class DyAttachments implements Attachments {
      */
     public static final String ATTR_KEY = "s3";
 
+    /**
+     * Size of content, in bytes.
+     * @since 2.15
+     */
+    public static final String ATTR_SIZE = "size";
+
     /**
      * Region to work with.
      */
@@ -112,16 +118,25 @@ final class DyAttachments implements Attachments {
      */
     private final transient String self;
 
+    /**
+     * My item in "friends" table.
+     */
+    private final transient Item row;
+
     /**
      * Ctor.
      * @param reg Region
      * @param num Bout number
      * @param slf Self
+     * @param itm My item in "friends" table
+     * @checkstyle ParameterNumberCheck (5 lines)
      */
-    DyAttachments(final Region reg, final long num, final String slf) {
+    DyAttachments(final Region reg, final long num, final String slf,
+        final Item itm) {
         this.region = reg;
         this.bout = num;
         this.self = slf;
+        this.row = itm;
     }
 
     @Override
@@ -135,7 +150,8 @@ final class DyAttachments implements Attachments {
                     .withAttributesToGet(
                         DyAttachments.ATTR_CTYPE,
                         DyAttachments.ATTR_ETAG,
-                        DyAttachments.ATTR_KEY
+                        DyAttachments.ATTR_KEY,
+                        DyAttachments.ATTR_SIZE
                     )
             )
             .where(DyAttachments.HASH, Conditions.equalTo(this.bout))
@@ -176,19 +192,9 @@ final class DyAttachments implements Attachments {
 
     @Override
     public int unseen() throws IOException {
-        final Item itm = this.region.table(DyFriends.TBL)
-            .frame()
-            .through(
-                new QueryValve()
-                    .withLimit(1)
-                    .withAttributesToGet(DyFriends.ATTR_UNSEEN)
-            )
-            .where(DyFriends.HASH, Conditions.equalTo(this.bout))
-            .where(DyFriends.RANGE, Conditions.equalTo(this.self))
-            .iterator().next();
         final int unseen;
-        if (itm.has(DyFriends.ATTR_UNSEEN)) {
-            unseen = itm.get(DyFriends.ATTR_UNSEEN).getSS().size();
+        if (this.row.has(DyFriends.ATTR_UNSEEN)) {
+            unseen = this.row.get(DyFriends.ATTR_UNSEEN).getSS().size();
         } else {
             unseen = 0;
         }
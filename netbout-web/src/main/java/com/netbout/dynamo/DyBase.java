@@ -61,6 +61,34 @@ public final class DyBase implements Base {
      * Public ctor.
      */
     public DyBase() {
+        this(DyBase.region());
+    }
+
+    /**
+     * Ctor.
+     * @param reg Region
+     * @since 2.15
+     */
+    DyBase(final Region reg) {
+        this.region = reg;
+    }
+
+    @Override
+    public User user(final URN urn) {
+        return new DyUser(this.region, urn);
+    }
+
+    @Override
+    public void close() throws IOException {
+        // nothing to do here
+    }
+
+    /**
+     * Region configured in the manifest.
+     * @return Region
+     * @since 2.15
+     */
+    static Region region() {
         final String key = Manifests.read("Netbout-DynamoKey");
         Credentials creds = new Credentials.Simple(
             key,
@@ -71,20 +99,10 @@ public final class DyBase implements Base {
                 creds, Integer.parseInt(System.getProperty("dynamo.port"))
             );
         }
-        this.region = new Region.Prefixed(
+        return new Region.Prefixed(
             new ReRegion(new Region.Simple(creds)),
             Manifests.read("Netbout-DynamoPrefix")
         );
     }
 
-    @Override
-    public User user(final URN urn) {
-        return new DyUser(this.region, urn);
-    }
-
-    @Override
-    public void close() throws IOException {
-        // nothing to do here
-    }
-
 }
@@ -172,7 +172,9 @@ final class DyBout implements Bout {
 
     @Override
     public Messages messages() throws IOException {
-        return new DyMessages(this.region, this.number(), this.self);
+        return new DyMessages(
+            this.region, this.number(), this.self, this.item
+        );
     }
 
     @Override
@@ -182,6 +184,8 @@ final class DyBout implements Bout {
 
     @Override
     public Attachments attachments() throws IOException {
-        return new DyAttachments(this.region, this.number(), this.self);
+        return new DyAttachments(
+            this.region, this.number(), this.self, this.item
+        );
     }
 }
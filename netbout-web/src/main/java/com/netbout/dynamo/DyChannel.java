@@ -0,0 +1,582 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.dynamo;
+
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.ComparisonOperator;
+import com.amazonaws.services.dynamodbv2.model.Condition;
+import com.amazonaws.services.dynamodbv2.model.DeleteRequest;
+import com.amazonaws.services.dynamodbv2.model.PutRequest;
+import com.amazonaws.services.dynamodbv2.model.QueryRequest;
+import com.amazonaws.services.dynamodbv2.model.QueryResult;
+import com.amazonaws.services.dynamodbv2.model.WriteRequest;
+import com.jcabi.aspects.Tv;
+import com.jcabi.dynamo.Attributes;
+import com.jcabi.dynamo.Conditions;
+import com.jcabi.dynamo.Item;
+import com.jcabi.dynamo.QueryValve;
+import com.jcabi.dynamo.Region;
+import com.jcabi.log.Logger;
+import com.jcabi.log.VerboseRunnable;
+import com.jcabi.log.VerboseThreads;
+import com.netbout.cached.Channel;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+/**
+ * Channel of cache invalidations, in DynamoDB table.
+ *
+ * <p>Every change is an item in the "changes" table, in one of a few
+ * streams, ordered by the time it was published. All changes of one
+ * scope go to the same stream, so they are seen in the order they
+ * were made, while different scopes are spread among streams and none
+ * of them gets all the traffic. Every node polls all streams every
+ * second and remembers the ID of the last change it read in each of
+ * them, so the next poll asks only for what comes after it (and only
+ * for the attributes it needs), and every change is read once.
+ * A poll doesn't read changes of the last {@link #SETTLE} milliseconds:
+ * a change may reach the table a bit after a later one, because of
+ * clock skew between nodes and network latency, and it would be behind
+ * the cursor already. Changes of this node are skipped.
+ *
+ * <p>Changes are published in background, in batches, and get their IDs
+ * when they are written, not when they are queued, so a change doesn't
+ * fall behind cursors of other nodes while it waits in the queue.
+ * When too many of them are waiting, the change is published
+ * in the calling thread.
+ * Changes older than an hour are removed by the nodes in batches,
+ * one stream per poll.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 2.15
+ * @checkstyle ClassDataAbstractionCouplingCheck (500 lines)
+ * @checkstyle ClassFanOutComplexityCheck (500 lines)
+ */
+@ToString(of = "node")
+@EqualsAndHashCode(of = { "region", "node" })
+@SuppressWarnings({ "PMD.DoNotUseThreads", "PMD.TooManyMethods" })
+public final class DyChannel implements Channel {
+
+    /**
+     * Table name.
+     */
+    public static final String TBL = "changes";
+
+    /**
+     * Hash, the name of the stream.
+     */
+    public static final String HASH = "stream";
+
+    /**
+     * Range, time of publishing and unique suffix.
+     */
+    public static final String RANGE = "id";
+
+    /**
+     * Scope attribute.
+     */
+    public static final String ATTR_SCOPE = "scope";
+
+    /**
+     * Key attribute, absent when the entire scope is flushed.
+     */
+    public static final String ATTR_KEY = "key";
+
+    /**
+     * Node attribute.
+     */
+    public static final String ATTR_NODE = "node";
+
+    /**
+     * How many streams we have.
+     */
+    private static final int STREAMS = Tv.EIGHT;
+
+    /**
+     * How old a change must be to be read, in msec.
+     */
+    private static final long SETTLE = TimeUnit.SECONDS.toMillis(
+        (long) Tv.THREE
+    );
+
+    /**
+     * How long to keep changes, in msec.
+     */
+    private static final long KEEP = TimeUnit.HOURS.toMillis(1L);
+
+    /**
+     * Most changes waiting to be published.
+     */
+    private static final int WAITING = Tv.TEN * Tv.THOUSAND;
+
+    /**
+     * Most old changes removed in one poll.
+     */
+    private static final int TRIM = Tv.THOUSAND;
+
+    /**
+     * Region we're in.
+     */
+    private final transient Region region;
+
+    /**
+     * Unique name of this node.
+     */
+    private final transient String node;
+
+    /**
+     * Number of changes published by this node.
+     */
+    private final transient AtomicLong published = new AtomicLong();
+
+    /**
+     * Number of polls done by this node.
+     */
+    private final transient AtomicLong polls = new AtomicLong();
+
+    /**
+     * Listeners.
+     */
+    private final transient Collection<Channel.Listener> listeners =
+        new CopyOnWriteArrayList<Channel.Listener>();
+
+    /**
+     * Changes waiting to be published.
+     */
+    private final transient BlockingQueue<Attributes> waiting =
+        new LinkedBlockingQueue<Attributes>(DyChannel.WAITING);
+
+    /**
+     * IDs of the last changes read, by names of streams.
+     */
+    private final transient ConcurrentMap<String, String> cursors =
+        new ConcurrentHashMap<>(0);
+
+    /**
+     * Is polling started?
+     */
+    private final transient AtomicBoolean started = new AtomicBoolean();
+
+    /**
+     * Is publishing started?
+     */
+    private final transient AtomicBoolean writing = new AtomicBoolean();
+
+    /**
+     * Thread that publishes changes.
+     */
+    private final transient ScheduledExecutorService writer =
+        Executors.newSingleThreadScheduledExecutor(
+            new VerboseThreads(DyChannel.class)
+        );
+
+    /**
+     * Thread that polls changes.
+     */
+    private final transient ScheduledExecutorService poller =
+        Executors.newSingleThreadScheduledExecutor(
+            new VerboseThreads(DyChannel.class)
+        );
+
+    /**
+     * Public ctor.
+     */
+    public DyChannel() {
+        this(DyBase.region());
+    }
+
+    /**
+     * Ctor.
+     * @param reg Region
+     */
+    DyChannel(final Region reg) {
+        this.region = reg;
+        this.node = UUID.randomUUID().toString();
+    }
+
+    @Override
+    public void publish(final String scope, final String key) {
+        Attributes attrs = new Attributes()
+            .with(DyChannel.HASH, DyChannel.stream(scope))
+            .with(DyChannel.ATTR_SCOPE, scope)
+            .with(DyChannel.ATTR_NODE, this.node);
+        if (!key.isEmpty()) {
+            attrs = attrs.with(DyChannel.ATTR_KEY, key);
+        }
+        if (this.writing.compareAndSet(false, true)) {
+            this.writer.scheduleWithFixedDelay(
+                new VerboseRunnable(
+                    new Runnable() {
+                        @Override
+                        public void run() {
+                            DyChannel.this.flush();
+                        }
+                    },
+                    true
+                ),
+                (long) Tv.HUNDRED, (long) Tv.HUNDRED, TimeUnit.MILLISECONDS
+            );
+        }
+        if (!this.waiting.offer(attrs)) {
+            this.put(Collections.singletonList(attrs));
+        }
+    }
+
+    @Override
+    public void listen(final Channel.Listener listener) {
+        this.listeners.add(listener);
+        if (this.started.compareAndSet(false, true)) {
+            final String start = DyChannel.id(
+                System.currentTimeMillis() - DyChannel.SETTLE, ""
+            );
+            for (int idx = 0; idx < DyChannel.STREAMS; ++idx) {
+                this.cursors.put(DyChannel.stream(idx), start);
+            }
+            this.poller.scheduleWithFixedDelay(
+                new VerboseRunnable(
+                    new Runnable() {
+                        @Override
+                        public void run() {
+                            DyChannel.this.poll();
+                        }
+                    },
+                    true
+                ),
+                1L, 1L, TimeUnit.SECONDS
+            );
+        }
+    }
+
+    @Override
+    public void close() {
+        this.poller.shutdown();
+        this.writer.shutdown();
+        try {
+            this.writer.awaitTermination(1L, TimeUnit.MINUTES);
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        this.flush();
+    }
+
+    /**
+     * Publish all changes waiting, in batches.
+     */
+    private void flush() {
+        final List<Attributes> batch = new ArrayList<>(Terms.BATCH);
+        while (this.waiting.drainTo(batch, Terms.BATCH) > 0) {
+            this.put(batch);
+            batch.clear();
+        }
+    }
+
+    /**
+     * Save a batch of changes, giving them their IDs.
+     * @param changes Changes, no more than {@link Terms#BATCH}
+     */
+    private void put(final List<Attributes> changes) {
+        final List<WriteRequest> puts = new ArrayList<>(changes.size());
+        final long now = System.currentTimeMillis();
+        for (final Attributes change : changes) {
+            puts.add(
+                new WriteRequest().withPutRequest(
+                    new PutRequest().withItem(
+                        change.with(
+                            DyChannel.RANGE,
+                            DyChannel.id(
+                                now,
+                                String.format(
+                                    "%s-%08d", this.node,
+                                    this.published.incrementAndGet()
+                                )
+                            )
+                        )
+                    )
+                )
+            );
+        }
+        try {
+            this.write(puts);
+        } catch (final IOException ex) {
+            Logger.warn(
+                this, "failed to publish %d change(s): %s",
+                changes.size(), ex
+            );
+        }
+    }
+
+    /**
+     * Read new changes and deliver them to listeners, and remove
+     * old ones from one stream.
+     */
+    private void poll() {
+        final long now = System.currentTimeMillis();
+        final String until = DyChannel.id(now - DyChannel.SETTLE, "");
+        int total = 0;
+        final AmazonDynamoDB aws = this.region.aws();
+        try {
+            for (int idx = 0; idx < DyChannel.STREAMS; ++idx) {
+                total += this.read(aws, DyChannel.stream(idx), until);
+            }
+        } finally {
+            aws.shutdown();
+        }
+        if (total > 0) {
+            Logger.info(this, "%d change(s) received", total);
+        }
+        this.trim(
+            DyChannel.stream(
+                (int) (this.polls.getAndIncrement() % DyChannel.STREAMS)
+            ),
+            now - DyChannel.KEEP
+        );
+    }
+
+    /**
+     * Read changes of the stream after its cursor, deliver them
+     * and move the cursor.
+     * @param aws DynamoDB client
+     * @param stream Name of the stream
+     * @param until ID to read up to, inclusive
+     * @return How many changes were delivered
+     */
+    private int read(final AmazonDynamoDB aws, final String stream,
+        final String until) {
+        final String table = this.region.table(DyChannel.TBL).name();
+        int total = 0;
+        String cursor = this.cursors.get(stream);
+        Map<String, AttributeValue> last = new Attributes()
+            .with(DyChannel.HASH, stream)
+            .with(DyChannel.RANGE, cursor);
+        while (last != null) {
+            final QueryResult result = aws.query(
+                new QueryRequest()
+                    .withTableName(table)
+                    .withConsistentRead(false)
+                    .withLimit(Tv.HUNDRED)
+                    .withAttributesToGet(
+                        DyChannel.RANGE, DyChannel.ATTR_SCOPE,
+                        DyChannel.ATTR_KEY, DyChannel.ATTR_NODE
+                    )
+                    .withKeyConditions(
+                        new Conditions()
+                            .with(DyChannel.HASH, Conditions.equalTo(stream))
+                            .with(
+                                DyChannel.RANGE,
+                                new Condition()
+                                    .withComparisonOperator(
+                                        ComparisonOperator.LE
+                                    )
+                                    .withAttributeValueList(
+                                        new AttributeValue(until)
+                                    )
+                            )
+                    )
+                    .withExclusiveStartKey(last)
+            );
+            for (final Map<String, AttributeValue> item : result.getItems()) {
+                cursor = item.get(DyChannel.RANGE).getS();
+                if (!this.node.equals(item.get(DyChannel.ATTR_NODE).getS())) {
+                    this.deliver(item);
+                    ++total;
+                }
+            }
+            last = result.getLastEvaluatedKey();
+        }
+        this.cursors.put(stream, cursor);
+        return total;
+    }
+
+    /**
+     * Remove old changes from the stream, in batches.
+     * @param stream Name of the stream
+     * @param time Changes before this moment are removed, in msec
+     */
+    private void trim(final String stream, final long time) {
+        final Iterator<Item> expired = this.stream(
+            stream, ComparisonOperator.LT, time,
+            new QueryValve()
+                .withLimit(Tv.HUNDRED)
+                .withAttributesToGet(DyChannel.RANGE)
+        );
+        final List<WriteRequest> deletes = new ArrayList<>(0);
+        while (deletes.size() < DyChannel.TRIM && expired.hasNext()) {
+            deletes.add(
+                new WriteRequest().withDeleteRequest(
+                    new DeleteRequest().withKey(
+                        new Attributes()
+                            .with(DyChannel.HASH, stream)
+                            .with(
+                                DyChannel.RANGE,
+                                DyChannel.attr(expired.next(), DyChannel.RANGE)
+                            )
+                    )
+                )
+            );
+        }
+        if (!deletes.isEmpty()) {
+            try {
+                this.write(deletes);
+                Logger.info(
+                    this, "%d old change(s) removed from %s",
+                    deletes.size(), stream
+                );
+            } catch (final IOException ex) {
+                Logger.warn(this, "failed to remove old changes: %s", ex);
+            }
+        }
+    }
+
+    /**
+     * Write items to the table, in batches.
+     * @param requests Write requests
+     * @throws IOException If fails
+     */
+    private void write(final List<WriteRequest> requests) throws IOException {
+        final String table = this.region.table(DyChannel.TBL).name();
+        final AmazonDynamoDB aws = this.region.aws();
+        try {
+            for (int pos = 0; pos < requests.size(); pos += Terms.BATCH) {
+                Terms.write(
+                    aws, table,
+                    requests.subList(
+                        pos, Math.min(requests.size(), pos + Terms.BATCH)
+                    )
+                );
+            }
+        } finally {
+            aws.shutdown();
+        }
+    }
+
+    /**
+     * Deliver one change to listeners.
+     * @param item The change
+     */
+    private void deliver(final Map<String, AttributeValue> item) {
+        String key = "";
+        if (item.containsKey(DyChannel.ATTR_KEY)) {
+            key = item.get(DyChannel.ATTR_KEY).getS();
+        }
+        final String scope = item.get(DyChannel.ATTR_SCOPE).getS();
+        for (final Channel.Listener listener : this.listeners) {
+            listener.changed(scope, key);
+        }
+    }
+
+    /**
+     * Changes in the stream, before or after the moment.
+     * @param stream Name of the stream
+     * @param operator Comparison operator, LT or GT
+     * @param time The moment, in msec
+     * @param valve Valve to read through
+     * @return Changes
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    private Iterator<Item> stream(final String stream,
+        final ComparisonOperator operator, final long time,
+        final QueryValve valve) {
+        return this.region.table(DyChannel.TBL)
+            .frame()
+            .through(valve)
+            .where(DyChannel.HASH, stream)
+            .where(
+                DyChannel.RANGE,
+                new Condition()
+                    .withComparisonOperator(operator)
+                    .withAttributeValueList(
+                        new AttributeValue(DyChannel.id(time, ""))
+                    )
+            )
+            .iterator();
+    }
+
+    /**
+     * Name of the stream for changes of the scope.
+     * @param scope Name of the scope
+     * @return Name of the stream
+     */
+    private static String stream(final String scope) {
+        return DyChannel.stream(
+            Math.abs(scope.hashCode() % DyChannel.STREAMS)
+        );
+    }
+
+    /**
+     * Name of the stream by its number.
+     * @param number Number of the stream
+     * @return Name of the stream
+     */
+    private static String stream(final int number) {
+        return String.format("s%d", number);
+    }
+
+    /**
+     * Read string attribute.
+     * @param item The item
+     * @param name Attribute name
+     * @return Value
+     */
+    private static String attr(final Item item, final String name) {
+        try {
+            return item.get(name).getS();
+        } catch (final IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Make an ID of a change, which sorts by time.
+     * @param time Time, in msec
+     * @param suffix Unique suffix
+     * @return ID
+     */
+    private static String id(final long time, final String suffix) {
+        return String.format("%013d-%s", time, suffix);
+    }
+
+}
@@ -0,0 +1,319 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.dynamo;
+
+import co.stateful.Counter;
+import co.stateful.RtSttc;
+import co.stateful.cached.CdSttc;
+import co.stateful.retry.ReSttc;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.AttributeAction;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.AttributeValueUpdate;
+import com.amazonaws.services.dynamodbv2.model.ConditionalCheckFailedException;
+import com.amazonaws.services.dynamodbv2.model.ExpectedAttributeValue;
+import com.amazonaws.services.dynamodbv2.model.GetItemRequest;
+import com.amazonaws.services.dynamodbv2.model.UpdateItemRequest;
+import com.jcabi.aspects.Cacheable;
+import com.jcabi.aspects.Immutable;
+import com.jcabi.aspects.Tv;
+import com.jcabi.dynamo.Attributes;
+import com.jcabi.dynamo.Region;
+import com.jcabi.log.Logger;
+import com.jcabi.manifests.Manifests;
+import com.jcabi.urn.URN;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+/**
+ * Dynamo counter, which leases blocks of numbers.
+ *
+ * <p>The item in "counters" table keeps the highest number ever
+ * leased. Every JVM reserves {@link #BLOCK} numbers at a time, moving
+ * that mark with a conditional write, and then hands them out from
+ * memory, without any network calls. Numbers are unique, but not
+ * sequential across JVMs and some of them are lost on restart.
+ *
+ * <p>When the item is absent, the counter starts where the old
+ * stateful.co counter with the same name stopped.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 2.15
+ */
+@Immutable
+@ToString(of = "name")
+@EqualsAndHashCode(of = { "region", "name" })
+final class DyCounter implements Counter {
+
+    /**
+     * Table name.
+     */
+    public static final String TBL = "counters";
+
+    /**
+     * Name of the counter.
+     */
+    public static final String HASH = "name";
+
+    /**
+     * Highest number leased.
+     */
+    public static final String ATTR_VALUE = "value";
+
+    /**
+     * How many numbers to lease at a time.
+     */
+    private static final long BLOCK = (long) Tv.HUNDRED;
+
+    /**
+     * Leases in this JVM, by table and counter name.
+     */
+    private static final ConcurrentMap<String, DyCounter.Lease> LEASES =
+        new ConcurrentHashMap<>(0);
+
+    /**
+     * Region we're in.
+     */
+    private final transient Region region;
+
+    /**
+     * Name of the counter.
+     */
+    private final transient String name;
+
+    /**
+     * Ctor.
+     * @param reg Region we're in
+     * @param label Name of the counter
+     */
+    DyCounter(final Region reg, final String label) {
+        this.region = reg;
+        this.name = label;
+    }
+
+    @Override
+    public void set(final long value) throws IOException {
+        final DyCounter.Lease lease = this.lease();
+        synchronized (lease) {
+            final AmazonDynamoDB aws = this.region.aws();
+            try {
+                aws.updateItem(
+                    new UpdateItemRequest()
+                        .withTableName(this.table())
+                        .withKey(
+                            new Attributes().with(DyCounter.HASH, this.name)
+                        )
+                        .addAttributeUpdatesEntry(
+                            DyCounter.ATTR_VALUE,
+                            new AttributeValueUpdate()
+                                .withAction(AttributeAction.PUT)
+                                .withValue(DyCounter.number(value))
+                        )
+                );
+            } finally {
+                aws.shutdown();
+            }
+            lease.next.set(value);
+            lease.ceiling.set(value);
+        }
+    }
+
+    @Override
+    public long incrementAndGet(final long delta) throws IOException {
+        final DyCounter.Lease lease = this.lease();
+        long number = lease.take(delta);
+        if (number == 0L) {
+            synchronized (lease) {
+                number = lease.take(delta);
+                if (number == 0L) {
+                    final long size = Math.max(delta, DyCounter.BLOCK);
+                    final long base = this.reserve(size);
+                    lease.next.set(base + delta);
+                    lease.ceiling.set(base + size);
+                    number = base + delta;
+                }
+            }
+        }
+        return number;
+    }
+
+    /**
+     * Get the lease of this counter.
+     * @return Lease
+     */
+    private DyCounter.Lease lease() {
+        final String key = String.format("%s/%s", this.table(), this.name);
+        DyCounter.Lease lease = DyCounter.LEASES.get(key);
+        if (lease == null) {
+            DyCounter.LEASES.putIfAbsent(key, new DyCounter.Lease());
+            lease = DyCounter.LEASES.get(key);
+        }
+        return lease;
+    }
+
+    /**
+     * Reserve a block of numbers in DynamoDB.
+     * @param size How many numbers to reserve
+     * @return The number right before the block
+     * @throws IOException If fails
+     */
+    private long reserve(final long size) throws IOException {
+        final long start = System.currentTimeMillis();
+        final Map<String, AttributeValue> key =
+            new Attributes().with(DyCounter.HASH, this.name);
+        final AmazonDynamoDB aws = this.region.aws();
+        int attempt = 0;
+        try {
+            while (true) {
+                final Map<String, AttributeValue> item = aws.getItem(
+                    new GetItemRequest()
+                        .withTableName(this.table())
+                        .withKey(key)
+                        .withConsistentRead(true)
+                ).getItem();
+                final long base;
+                final ExpectedAttributeValue expected;
+                if (item == null || !item.containsKey(DyCounter.ATTR_VALUE)) {
+                    base = DyCounter.sttc(this.name).incrementAndGet(0L);
+                    expected = new ExpectedAttributeValue(false);
+                } else {
+                    base = Long.parseLong(
+                        item.get(DyCounter.ATTR_VALUE).getN()
+                    );
+                    expected = new ExpectedAttributeValue(
+                        DyCounter.number(base)
+                    );
+                }
+                try {
+                    aws.updateItem(
+                        new UpdateItemRequest()
+                            .withTableName(this.table())
+                            .withKey(key)
+                            .addAttributeUpdatesEntry(
+                                DyCounter.ATTR_VALUE,
+                                new AttributeValueUpdate()
+                                    .withAction(AttributeAction.PUT)
+                                    .withValue(DyCounter.number(base + size))
+                            )
+                            .addExpectedEntry(DyCounter.ATTR_VALUE, expected)
+                    );
+                    Logger.info(
+                        this, "%d number(s) leased in %s after #%d in %[ms]s",
+                        size, this.name, base,
+                        System.currentTimeMillis() - start
+                    );
+                    return base;
+                } catch (final ConditionalCheckFailedException ex) {
+                    ++attempt;
+                    if (attempt > Tv.TEN) {
+                        throw new IOException(ex);
+                    }
+                }
+            }
+        } finally {
+            aws.shutdown();
+        }
+    }
+
+    /**
+     * Full name of the table.
+     * @return Table name
+     */
+    private String table() {
+        return this.region.table(DyCounter.TBL).name();
+    }
+
+    /**
+     * Make a numeric attribute value.
+     * @param value The value
+     * @return Attribute value
+     */
+    private static AttributeValue number(final long value) {
+        return new AttributeValue().withN(Long.toString(value));
+    }
+
+    /**
+     * Sttc counter.
+     * @param label Name of the counter
+     * @return Counter
+     */
+    @Cacheable(forever = true)
+    private static Counter sttc(final String label) {
+        try {
+            return new CdSttc(
+                new ReSttc(
+                    RtSttc.make(
+                        URN.create(Manifests.read("Netbout-SttcUrn")),
+                        Manifests.read("Netbout-SttcToken")
+                    )
+                )
+            ).counters().get(label);
+        } catch (final IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Numbers leased and not used yet.
+     */
+    private static final class Lease {
+        /**
+         * Last number given out.
+         */
+        private final transient AtomicLong next = new AtomicLong();
+        /**
+         * Last number leased.
+         */
+        private final transient AtomicLong ceiling = new AtomicLong();
+        /**
+         * Take next number from the lease.
+         * @param delta How much to increment
+         * @return The number or zero if the lease is exhausted
+         */
+        public long take(final long delta) {
+            long number = 0L;
+            while (true) {
+                final long current = this.next.get();
+                if (current + delta > this.ceiling.get()) {
+                    break;
+                }
+                if (this.next.compareAndSet(current, current + delta)) {
+                    number = current + delta;
+                    break;
+                }
+            }
+            return number;
+        }
+    }
+
+}
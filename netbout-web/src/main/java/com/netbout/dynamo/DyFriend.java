@@ -28,15 +28,12 @@ package com.netbout.dynamo;
 
 import com.jcabi.aspects.Immutable;
 import com.jcabi.aspects.Loggable;
-import com.jcabi.dynamo.Item;
-import com.jcabi.dynamo.QueryValve;
+import com.jcabi.dynamo.Attributes;
 import com.jcabi.dynamo.Region;
-import com.jcabi.dynamo.Table;
 import com.netbout.spi.Alias;
 import com.netbout.spi.Friend;
 import java.io.IOException;
 import java.net.URI;
-import java.util.Iterator;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
 
@@ -50,18 +47,18 @@ import lombok.ToString;
 @Immutable
 @Loggable(Loggable.DEBUG)
 @ToString(of = "name")
-@EqualsAndHashCode(of = { "table", "name" })
+@EqualsAndHashCode(of = { "name", "roster" })
 final class DyFriend implements Friend {
 
     /**
-     * Table with aliases.
+     * This alias.
      */
-    private final transient Table table;
+    private final transient String name;
 
     /**
-     * This alias.
+     * Friends it is loaded together with.
      */
-    private final transient String name;
+    private final transient Roster roster;
 
     /**
      * Ctor.
@@ -69,8 +66,18 @@ final class DyFriend implements Friend {
      * @param alias Alias
      */
     DyFriend(final Region region, final String alias) {
-        this.table = region.table(DyAliases.TBL);
+        this(alias, new Roster(region, alias));
+    }
+
+    /**
+     * Ctor.
+     * @param alias Alias
+     * @param rstr Friends it is loaded together with
+     * @since 2.15
+     */
+    DyFriend(final String alias, final Roster rstr) {
         this.name = alias;
+        this.roster = rstr;
     }
 
     @Override
@@ -80,17 +87,10 @@ final class DyFriend implements Friend {
 
     @Override
     public URI photo() throws IOException {
-        final Iterator<Item> items = this.table.frame()
-            .where(DyAliases.HASH, this.name)
-            .through(
-                new QueryValve()
-                    .withLimit(1)
-                    .withAttributesToGet(DyAliases.ATTR_PHOTO)
-            )
-            .iterator();
+        final Attributes attrs = this.roster.alias(this.name);
         final URI uri;
-        if (items.hasNext()) {
-            uri = URI.create(items.next().get(DyAliases.ATTR_PHOTO).getS());
+        if (attrs.containsKey(DyAliases.ATTR_PHOTO)) {
+            uri = URI.create(attrs.get(DyAliases.ATTR_PHOTO).getS());
         } else {
             uri = Alias.BLANK;
         }
@@ -99,21 +99,18 @@ final class DyFriend implements Friend {
 
     @Override
     public String email() throws IOException {
-        final Iterator<Item> items = this.table.frame()
-            .where(DyAliases.HASH, this.name)
-            .through(
-                new QueryValve()
-                    .withLimit(1)
-                    .withAttributesToGet(DyAliases.ATTR_EMAIL)
-            )
-            .iterator();
-        String email = "";
-        if (items.hasNext()) {
-            final Item item = items.next();
-            if (item.has(DyAliases.ATTR_EMAIL)) {
-                email = item.get(DyAliases.ATTR_EMAIL).getS();
-            }
+        final Attributes attrs = this.roster.alias(this.name);
+        final String email;
+        if (attrs.containsKey(DyAliases.ATTR_EMAIL)) {
+            email = attrs.get(DyAliases.ATTR_EMAIL).getS();
+        } else {
+            email = "";
         }
         return email;
     }
+
+    @Override
+    public boolean subscribed() throws IOException {
+        return this.roster.subscribed(this.name);
+    }
 }
@@ -26,12 +26,23 @@
  */
 package com.netbout.dynamo;
 
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.AttributeAction;
 import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.AttributeValueUpdate;
+import com.amazonaws.services.dynamodbv2.model.ConditionalCheckFailedException;
+import com.amazonaws.services.dynamodbv2.model.DeleteItemRequest;
+import com.amazonaws.services.dynamodbv2.model.ExpectedAttributeValue;
+import com.amazonaws.services.dynamodbv2.model.PutItemRequest;
+import com.amazonaws.services.dynamodbv2.model.ReturnValue;
 import com.google.common.base.Function;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.jcabi.aspects.Async;
 import com.jcabi.aspects.Immutable;
 import com.jcabi.aspects.Loggable;
 import com.jcabi.aspects.Tv;
+import com.jcabi.dynamo.AttributeUpdates;
 import com.jcabi.dynamo.Attributes;
 import com.jcabi.dynamo.Conditions;
 import com.jcabi.dynamo.Item;
@@ -41,7 +52,9 @@ import com.jcabi.log.Logger;
 import com.netbout.spi.Friend;
 import com.netbout.spi.Friends;
 import java.io.IOException;
-import java.util.Iterator;
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeSet;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
 import org.apache.commons.lang3.StringUtils;
@@ -104,6 +117,12 @@ final class DyFriends implements Friends {
      */
     public static final String ATTR_UNSEEN = "unseen";
 
+    /**
+     * Aliases of all friends in the bout.
+     * @since 2.15
+     */
+    public static final String ATTR_FRIENDS = "friends";
+
     /**
      * Region to work with.
      */
@@ -127,63 +146,252 @@ final class DyFriends implements Friends {
     @Override
     public void invite(final String friend) throws IOException {
         final String alias = DyFriends.clean(friend);
-        if (!new Everybody(this.region).occupied(alias)) {
+        if (!new Everybody(this.region).registered(alias)) {
             throw new Friends.UnknownAliasException(
                 String.format("alias '%s' doesn't exist", friend)
             );
         }
-        this.region.table(DyFriends.TBL).put(
-            new Attributes()
-                .with(DyFriends.HASH, this.bout())
-                .with(DyFriends.RANGE, alias)
-                .with(DyFriends.ATTR_TITLE, this.item.get(DyFriends.ATTR_TITLE))
-                .with(DyFriends.ATTR_SUBSCRIPTION, true)
-                .with(DyFriends.ATTR_UPDATED, System.currentTimeMillis())
-        );
-        Logger.info(this, "@%s invited to #%s", friend, this.bout().getN());
+        final Collection<String> names = new TreeSet<>();
+        names.add(alias);
+        for (final Item row : this.rows()) {
+            names.add(row.get(DyFriends.RANGE).getS());
+        }
+        if (this.join(alias, names)) {
+            this.repair();
+            this.indexed(alias);
+            Logger.info(
+                this, "@%s invited to #%s", friend, this.bout().getN()
+            );
+        } else {
+            Logger.info(
+                this, "@%s is in #%s already", friend, this.bout().getN()
+            );
+        }
     }
 
     @Override
     public void kick(final String friend) throws IOException {
         final String alias = DyFriends.clean(friend);
-        final Iterator<Item> items = this.region.table(DyFriends.TBL).frame()
-            .through(new QueryValve())
-            .where(DyFriends.HASH, Conditions.equalTo(this.bout()))
-            .where(DyFriends.RANGE, alias)
-            .iterator();
-        if (!items.hasNext()) {
+        final AmazonDynamoDB aws = this.region.aws();
+        final Map<String, AttributeValue> old;
+        try {
+            old = aws.deleteItem(
+                new DeleteItemRequest()
+                    .withTableName(this.region.table(DyFriends.TBL).name())
+                    .withKey(
+                        new Attributes()
+                            .with(DyFriends.HASH, this.bout())
+                            .with(DyFriends.RANGE, alias)
+                    )
+                    .withReturnValues(ReturnValue.ALL_OLD)
+            ).getAttributes();
+        } finally {
+            aws.shutdown();
+        }
+        if (old == null || old.isEmpty()) {
             throw new Friends.UnknownAliasException(
                 String.format("alias '%s' is not in the bout", friend)
             );
         }
-        items.next();
-        items.remove();
+        if (old.containsKey(DyFriends.ATTR_UNREAD)) {
+            new Unread(this.region, alias).add(
+                -Long.parseLong(old.get(DyFriends.ATTR_UNREAD).getN())
+            );
+        }
+        this.repair();
         Logger.info(this, "@%s kicked off #%s", friend, this.bout().getN());
     }
 
     @Override
     public Iterable<Friend> iterate() throws IOException {
+        final Collection<String> names = new TreeSet<>();
+        if (this.item.has(DyFriends.ATTR_FRIENDS)) {
+            names.addAll(this.item.get(DyFriends.ATTR_FRIENDS).getSS());
+        } else {
+            for (final Item row : this.rows()) {
+                names.add(row.get(DyFriends.RANGE).getS());
+            }
+        }
+        final Roster roster = new Roster(
+            this.region, Long.parseLong(this.bout().getN()),
+            names.toArray(new String[names.size()])
+        );
         return Iterables.transform(
+            names,
+            new Function<String, Friend>() {
+                @Override
+                public Friend apply(final String name) {
+                    return new DyFriend(name, roster);
+                }
+            }
+        );
+    }
+
+    /**
+     * Create an item of the alias in "friends" table, unless it exists.
+     *
+     * <p>The item is put only if it is absent, since an existing one
+     * may have unread messages, which are counted in the total of
+     * the alias too, see {@link Unread}.
+     *
+     * @param alias The alias
+     * @param names Aliases of all friends, including the new one
+     * @return TRUE if created, FALSE if the alias is in the bout already
+     * @throws IOException If fails
+     */
+    private boolean join(final String alias, final Collection<String> names)
+        throws IOException {
+        final AmazonDynamoDB aws = this.region.aws();
+        boolean created;
+        try {
+            aws.putItem(
+                new PutItemRequest()
+                    .withTableName(this.region.table(DyFriends.TBL).name())
+                    .withItem(
+                        new Attributes()
+                            .with(DyFriends.HASH, this.bout())
+                            .with(DyFriends.RANGE, alias)
+                            .with(
+                                DyFriends.ATTR_TITLE,
+                                this.item.get(DyFriends.ATTR_TITLE)
+                            )
+                            .with(DyFriends.ATTR_SUBSCRIPTION, true)
+                            .with(
+                                DyFriends.ATTR_UPDATED,
+                                System.currentTimeMillis()
+                            )
+                            .with(DyFriends.ATTR_UNREAD, 0L)
+                            .with(
+                                DyFriends.ATTR_FRIENDS,
+                                new AttributeValue().withSS(names)
+                            )
+                    )
+                    .addExpectedEntry(
+                        DyFriends.RANGE, new ExpectedAttributeValue(false)
+                    )
+            );
+            created = true;
+        } catch (final ConditionalCheckFailedException ex) {
+            created = false;
+        } finally {
+            aws.shutdown();
+        }
+        return created;
+    }
+
+    /**
+     * Add all messages of the bout to the full-text index of the alias.
+     * @param alias The alias
+     * @throws IOException If fails
+     */
+    @Async
+    private void indexed(final String alias) throws IOException {
+        final long number = Long.parseLong(this.bout().getN());
+        final Iterable<Item> messages = this.region.table(DyMessages.TBL)
+            .frame()
+            .through(
+                new QueryValve().withAttributesToGet(
+                    DyMessages.RANGE, DyMessages.ATTR_TEXT
+                )
+            )
+            .where(DyMessages.HASH, Conditions.equalTo(number));
+        final Terms terms = new Terms(this.region, alias);
+        for (final Item msg : messages) {
+            terms.index(
+                number, Long.parseLong(msg.get(DyMessages.RANGE).getN()),
+                msg.get(DyMessages.ATTR_TEXT).getS()
+            );
+        }
+    }
+
+    /**
+     * All items of the bout in "friends" table, with keys only.
+     * @return Items
+     * @throws IOException If fails
+     */
+    private Iterable<Item> rows() throws IOException {
+        return this.region.table(DyFriends.TBL)
+            .frame()
+            .through(new QueryValve().withAttributesToGet(DyFriends.RANGE))
+            .where(DyFriends.HASH, Conditions.equalTo(this.bout()));
+    }
+
+    /**
+     * Bring the list of friends in every item in line with the items.
+     *
+     * <p>The list is denormalised: every item of the bout carries the
+     * aliases of all its friends. Two concurrent invitations (or an
+     * invitation and a kick) may each see the items before the other
+     * one is written, so the lists they write are incomplete. That's
+     * why after its own write every change re-reads all items of
+     * the bout and adds the aliases missing in their lists, and removes
+     * those that have no items any more. Of any two concurrent changes,
+     * the one that re-reads later sees both writes and repairs what
+     * the other one missed.
+     *
+     * <p>Items created before the list was introduced don't have it
+     * at all, and get the complete one here.
+     *
+     * @throws IOException If fails
+     */
+    private void repair() throws IOException {
+        final Collection<Item> rows = Lists.newArrayList(
             this.region.table(DyFriends.TBL)
                 .frame()
-                .through(new QueryValve())
-                .where(DyFriends.HASH, Conditions.equalTo(this.bout())),
-            new Function<Item, Friend>() {
+                .through(
+                    new QueryValve()
+                        .withConsistentRead(true)
+                        .withAttributesToGet(
+                            DyFriends.RANGE, DyFriends.ATTR_FRIENDS
+                        )
+                )
+                .where(DyFriends.HASH, Conditions.equalTo(this.bout()))
+        );
+        final Collection<String> names = new TreeSet<>();
+        for (final Item row : rows) {
+            names.add(row.get(DyFriends.RANGE).getS());
+        }
+        new Fanout(String.format("friends of #%s", this.bout().getN())).apply(
+            rows,
+            new Fanout.Update<Item>() {
                 @Override
-                public Friend apply(final Item input) {
-                    try {
-                        return new DyFriend(
-                            DyFriends.this.region,
-                            input.get(DyFriends.RANGE).getS()
-                        );
-                    } catch (final IOException ex) {
-                        throw new IllegalStateException(ex);
+                public void apply(final Item row) throws IOException {
+                    final Collection<String> listed = new TreeSet<>();
+                    if (row.has(DyFriends.ATTR_FRIENDS)) {
+                        listed.addAll(row.get(DyFriends.ATTR_FRIENDS).getSS());
                     }
+                    final Collection<String> missing = new TreeSet<>(names);
+                    missing.removeAll(listed);
+                    listed.removeAll(names);
+                    DyFriends.update(row, missing, AttributeAction.ADD);
+                    DyFriends.update(row, listed, AttributeAction.DELETE);
                 }
             }
         );
     }
 
+    /**
+     * Add aliases to the list of friends in the item, or remove them.
+     * @param row The item to update
+     * @param aliases The aliases, nothing is done if empty
+     * @param action ADD or DELETE
+     * @throws IOException If fails
+     */
+    private static void update(final Item row,
+        final Collection<String> aliases, final AttributeAction action)
+        throws IOException {
+        if (!aliases.isEmpty()) {
+            row.put(
+                new AttributeUpdates().with(
+                    DyFriends.ATTR_FRIENDS,
+                    new AttributeValueUpdate()
+                        .withAction(action)
+                        .withValue(new AttributeValue().withSS(aliases))
+                )
+            );
+        }
+    }
+
     /**
      * The bout we're in.
      * @return Bout number
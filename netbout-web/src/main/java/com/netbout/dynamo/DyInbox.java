@@ -27,16 +27,13 @@
 package com.netbout.dynamo;
 
 import co.stateful.Counter;
-import co.stateful.RtSttc;
-import co.stateful.cached.CdSttc;
-import co.stateful.retry.ReSttc;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
 import com.amazonaws.services.dynamodbv2.model.AttributeValue;
 import com.amazonaws.services.dynamodbv2.model.ComparisonOperator;
 import com.amazonaws.services.dynamodbv2.model.Condition;
+import com.amazonaws.services.dynamodbv2.model.QueryRequest;
+import com.amazonaws.services.dynamodbv2.model.QueryResult;
 import com.amazonaws.services.dynamodbv2.model.Select;
-import com.google.common.base.Function;
-import com.google.common.collect.Iterables;
-import com.jcabi.aspects.Cacheable;
 import com.jcabi.aspects.Immutable;
 import com.jcabi.aspects.Loggable;
 import com.jcabi.dynamo.Attributes;
@@ -45,15 +42,17 @@ import com.jcabi.dynamo.Item;
 import com.jcabi.dynamo.QueryValve;
 import com.jcabi.dynamo.Region;
 import com.jcabi.log.Logger;
-import com.jcabi.manifests.Manifests;
-import com.jcabi.urn.URN;
 import com.netbout.spi.Bout;
 import com.netbout.spi.Inbox;
 import com.netbout.spi.Pageable;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Queue;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
 
@@ -101,7 +100,7 @@ final class DyInbox implements Inbox {
      * @param slf My alias
      */
     DyInbox(final Region reg, final String slf) {
-        this(reg, slf, DyInbox.sttc(), Inbox.NEVER);
+        this(reg, slf, new DyCounter(reg, "nb-bout"), Inbox.NEVER);
     }
 
     /**
@@ -131,45 +130,19 @@ final class DyInbox implements Inbox {
                 .with(DyFriends.ATTR_SUBSCRIPTION, true)
                 .with(DyFriends.ATTR_UPDATED, System.currentTimeMillis())
                 .with(DyFriends.ATTR_TITLE, "untitled")
+                .with(DyFriends.ATTR_UNREAD, 0L)
+                .with(
+                    DyFriends.ATTR_FRIENDS,
+                    new AttributeValue().withSS(this.self)
+                )
         );
         Logger.info(this, "bout #%d started by @%s", number, this.self);
         return number;
     }
 
-    /**
-     * {@inheritDoc}
-     * @todo #1 DynamoDBLocal doesn't work with all attributes
-     *  in global index. If we remove this check for a local version,
-     *  most tests fail. I'm not sure how to fix that. I suspect, it's
-     *  a bug in DynamoDBLocal, but I don't even know how to report
-     *  it to them :( Anyway, let's try to investigate and either fix
-     *  property or introduce a better workaround. Pay attention that this
-     *  code works correctly in production.
-     */
     @Override
     public long unread() throws IOException {
-        long unread = 0L;
-        if (!"1.0-LOCAL".equals(Manifests.read("Netbout-Version"))) {
-            final Iterable<Item> items = this.region.table(DyFriends.TBL)
-                .frame()
-                .where(DyFriends.RANGE, this.self)
-                .through(
-                    new QueryValve()
-                        .withIndexName(DyFriends.INDEX)
-                        .withConsistentRead(false)
-                        .withSelect(Select.SPECIFIC_ATTRIBUTES)
-                        .withAttributesToGet(DyFriends.ATTR_UNREAD)
-                        .withScanIndexForward(false)
-                );
-            for (final Item item : items) {
-                if (item.has(DyFriends.ATTR_UNREAD)) {
-                    unread += Long.parseLong(
-                        item.get(DyFriends.ATTR_UNREAD).getN()
-                    );
-                }
-            }
-        }
-        return unread;
+        return new Unread(this.region, this.self).value();
     }
 
     @Override
@@ -203,71 +176,153 @@ final class DyInbox implements Inbox {
 
     @Override
     public Iterable<Bout> iterate() {
-        return Iterables.transform(
-            this.region.table(DyFriends.TBL)
-                .frame()
-                .where(DyFriends.RANGE, this.self)
-                .where(
-                    DyFriends.ATTR_UPDATED,
-                    new Condition()
-                        .withComparisonOperator(ComparisonOperator.LT)
-                        .withAttributeValueList(
-                            new AttributeValue().withN(
-                                Long.toString(this.since)
-                            )
-                        )
-                )
-                .through(
-                    new QueryValve()
-                        .withIndexName(DyFriends.INDEX)
-                        .withConsistentRead(false)
-                        .withLimit(Inbox.PAGE)
-                        .withSelect(Select.ALL_PROJECTED_ATTRIBUTES)
-                        .withScanIndexForward(false)
-                ),
-            new Function<Item, Bout>() {
-                @Override
-                public Bout apply(final Item item) {
-                    return new Bout.ReadOnly(
-                        new DyBout(
-                            DyInbox.this.region,
-                            item, DyInbox.this.self
-                        )
-                    );
-                }
+        return new Iterable<Bout>() {
+            @Override
+            public Iterator<Bout> iterator() {
+                return new DyInbox.Pages();
             }
-        );
+        };
     }
 
     @Override
     public Iterable<Bout> search(final String term) throws IOException {
-        final List<Bout> result = new ArrayList<>(16);
-        for (final Bout bout : this.iterate()) {
-            if (bout.messages().search(term).iterator().hasNext()) {
-                result.add(bout);
+        final List<Bout> result = new ArrayList<>(Inbox.PAGE);
+        final List<Long> candidates =
+            new Terms(this.region, this.self).bouts(term);
+        for (final Long number : candidates) {
+            if (result.size() >= Inbox.PAGE) {
+                break;
+            }
+            try {
+                result.add(this.bout(number));
+            } catch (final Inbox.BoutNotFoundException ex) {
+                Logger.debug(
+                    this, "@%s is not in #%d any more", this.self, number
+                );
             }
         }
         return result;
     }
 
     /**
-     * Sttc counter.
-     * @return Counter
+     * Query for the first page of the inbox, the next ones start after
+     * the last key of the previous page.
+     *
+     * <p>When we're positioned by an exact cursor, the page starts
+     * right after the bout it points to, even if there are other bouts
+     * updated in the same millisecond.
+     * @return Query request
      */
-    @Cacheable(forever = true)
-    private static Counter sttc() {
-        try {
-            return new CdSttc(
-                new ReSttc(
-                    RtSttc.make(
-                        URN.create(Manifests.read("Netbout-SttcUrn")),
-                        Manifests.read("Netbout-SttcToken")
+    private QueryRequest request() {
+        final long updated = Inbox.Cursor.updated(this.since);
+        final QueryRequest request = new QueryRequest()
+            .withTableName(this.region.table(DyFriends.TBL).name())
+            .withIndexName(DyFriends.INDEX)
+            .withConsistentRead(false)
+            .withLimit(Inbox.PAGE)
+            .withSelect(Select.ALL_PROJECTED_ATTRIBUTES)
+            .withScanIndexForward(false)
+            .addKeyConditionsEntry(
+                DyFriends.RANGE, Conditions.equalTo(this.self)
+            );
+        if (Inbox.Cursor.exact(this.since)) {
+            request
+                .addKeyConditionsEntry(
+                    DyFriends.ATTR_UPDATED,
+                    DyInbox.condition(ComparisonOperator.LE, updated)
+                )
+                .addExclusiveStartKeyEntry(
+                    DyFriends.RANGE, new AttributeValue(this.self)
+                )
+                .addExclusiveStartKeyEntry(
+                    DyFriends.HASH,
+                    new AttributeValue().withN(
+                        Long.toString(Inbox.Cursor.bout(this.since))
                     )
                 )
-            ).counters().get("nb-bout");
-        } catch (final IOException ex) {
-            throw new IllegalStateException(ex);
+                .addExclusiveStartKeyEntry(
+                    DyFriends.ATTR_UPDATED,
+                    new AttributeValue().withN(Long.toString(updated))
+                );
+        } else {
+            request.addKeyConditionsEntry(
+                DyFriends.ATTR_UPDATED,
+                DyInbox.condition(ComparisonOperator.LT, updated)
+            );
+        }
+        return request;
+    }
+
+    /**
+     * Bouts of the inbox, read from the index page by page, only when
+     * they are needed.
+     */
+    private final class Pages implements Iterator<Bout> {
+        /**
+         * Items read and not given out yet.
+         */
+        private final transient Queue<Map<String, AttributeValue>> items =
+            new LinkedList<>();
+        /**
+         * Key of the last item read, or NULL if nothing is read yet.
+         */
+        private transient Map<String, AttributeValue> last;
+        /**
+         * All pages are read?
+         */
+        private transient boolean done;
+        @Override
+        public boolean hasNext() {
+            while (this.items.isEmpty() && !this.done) {
+                final QueryRequest request = DyInbox.this.request();
+                if (this.last != null) {
+                    request.setExclusiveStartKey(this.last);
+                }
+                final AmazonDynamoDB aws = DyInbox.this.region.aws();
+                final QueryResult result;
+                try {
+                    result = aws.query(request);
+                } finally {
+                    aws.shutdown();
+                }
+                this.items.addAll(result.getItems());
+                this.last = result.getLastEvaluatedKey();
+                this.done = this.last == null || this.last.isEmpty();
+            }
+            return !this.items.isEmpty();
+        }
+        @Override
+        public Bout next() {
+            if (!this.hasNext()) {
+                throw new NoSuchElementException("no more bouts");
+            }
+            return new Bout.ReadOnly(
+                new DyBout(
+                    DyInbox.this.region,
+                    new Projected(DyInbox.this.region, this.items.poll()),
+                    DyInbox.this.self
+                )
+            );
+        }
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("#remove()");
         }
     }
 
+    /**
+     * Numeric condition.
+     * @param operator Comparison operator
+     * @param value The value to compare with
+     * @return Condition
+     */
+    private static Condition condition(final ComparisonOperator operator,
+        final long value) {
+        return new Condition()
+            .withComparisonOperator(operator)
+            .withAttributeValueList(
+                new AttributeValue().withN(Long.toString(value))
+            );
+    }
+
 }
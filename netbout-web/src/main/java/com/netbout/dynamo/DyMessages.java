@@ -27,19 +27,21 @@
 package com.netbout.dynamo;
 
 import co.stateful.Counter;
-import co.stateful.RtSttc;
-import co.stateful.cached.CdSttc;
-import co.stateful.retry.ReSttc;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
 import com.amazonaws.services.dynamodbv2.model.AttributeAction;
 import com.amazonaws.services.dynamodbv2.model.AttributeValue;
 import com.amazonaws.services.dynamodbv2.model.AttributeValueUpdate;
 import com.amazonaws.services.dynamodbv2.model.ComparisonOperator;
 import com.amazonaws.services.dynamodbv2.model.Condition;
+import com.amazonaws.services.dynamodbv2.model.ConditionalCheckFailedException;
+import com.amazonaws.services.dynamodbv2.model.ExpectedAttributeValue;
+import com.amazonaws.services.dynamodbv2.model.KeysAndAttributes;
+import com.amazonaws.services.dynamodbv2.model.ReturnValue;
+import com.amazonaws.services.dynamodbv2.model.UpdateItemRequest;
 import com.google.common.base.Function;
-import com.google.common.base.Predicate;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
 import com.jcabi.aspects.Async;
-import com.jcabi.aspects.Cacheable;
 import com.jcabi.aspects.Immutable;
 import com.jcabi.aspects.Loggable;
 import com.jcabi.aspects.Tv;
@@ -50,15 +52,19 @@ import com.jcabi.dynamo.Item;
 import com.jcabi.dynamo.QueryValve;
 import com.jcabi.dynamo.Region;
 import com.jcabi.log.Logger;
-import com.jcabi.manifests.Manifests;
-import com.jcabi.urn.URN;
 import com.netbout.spi.Inbox;
 import com.netbout.spi.Message;
 import com.netbout.spi.Messages;
 import com.netbout.spi.Pageable;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
 import org.apache.commons.lang3.StringUtils;
@@ -111,6 +117,11 @@ final class DyMessages implements Messages {
      */
     public static final String ATTR_DATE = "date";
 
+    /**
+     * Most candidates from the index checked in one search.
+     */
+    private static final int CANDIDATES = Tv.HUNDRED;
+
     /**
      * Counter with message number.
      */
@@ -136,14 +147,24 @@ final class DyMessages implements Messages {
      */
     private final transient long start;
 
+    /**
+     * My item in "friends" table.
+     */
+    private final transient Item row;
+
     /**
      * Ctor.
      * @param reg Region
      * @param num Bout number
      * @param slf Self alias
+     * @param itm My item in "friends" table
      */
-    DyMessages(final Region reg, final long num, final String slf) {
-        this(reg, num, slf, DyMessages.sttc(), Inbox.NEVER);
+    DyMessages(final Region reg, final long num, final String slf,
+        final Item itm) {
+        this(
+            reg, num, slf, itm,
+            new Sequence(reg, num), Inbox.NEVER
+        );
     }
 
     /**
@@ -151,16 +172,18 @@ final class DyMessages implements Messages {
      * @param reg Region
      * @param num Bout number
      * @param slf Self alias
+     * @param itm My item in "friends" table
      * @param ctr Counter
      * @param strt Start message number
      * @since 2.7.1
      * @checkstyle ParameterNumberCheck (5 lines)
      */
     DyMessages(final Region reg, final long num, final String slf,
-        final Counter ctr, final long strt) {
+        final Item itm, final Counter ctr, final long strt) {
         this.region = reg;
         this.bout = num;
         this.self = slf;
+        this.row = itm;
         this.counter = ctr;
         this.start = strt;
     }
@@ -188,24 +211,17 @@ final class DyMessages implements Messages {
                 .with(DyMessages.ATTR_DATE, System.currentTimeMillis())
         );
         this.updated();
+        this.indexed(number, clean);
         Logger.info(this, "posted to #%d by @%s", this.bout, this.self);
     }
 
     @Override
     public long unread() throws IOException {
-        final Item item = this.region.table(DyFriends.TBL)
-            .frame()
-            .through(
-                new QueryValve()
-                    .withLimit(1)
-                    .withAttributesToGet(DyFriends.ATTR_UNREAD)
-            )
-            .where(DyFriends.HASH, Conditions.equalTo(this.bout))
-            .where(DyFriends.RANGE, Conditions.equalTo(this.self))
-            .iterator().next();
         final long unread;
-        if (item.has(DyFriends.ATTR_UNREAD)) {
-            unread = Long.parseLong(item.get(DyFriends.ATTR_UNREAD).getN());
+        if (this.row.has(DyFriends.ATTR_UNREAD)) {
+            unread = Long.parseLong(
+                this.row.get(DyFriends.ATTR_UNREAD).getN()
+            );
         } else {
             unread = 0L;
         }
@@ -215,28 +231,33 @@ final class DyMessages implements Messages {
     @Override
     public Pageable<Message> jump(final long number) {
         return new DyMessages(
-            this.region, this.bout, this.self, this.counter, number
+            this.region, this.bout, this.self, this.row, this.counter, number
         );
     }
 
     @Override
     public Iterable<Message> iterate() {
-        if (this.start != Long.MAX_VALUE) {
+        final QueryValve valve;
+        if (this.start == Long.MAX_VALUE) {
+            valve = new QueryValve()
+                .withScanIndexForward(false)
+                .withLimit(1)
+                .withAttributesToGet(DyMessages.RANGE);
+        } else {
             this.seen();
+            valve = new QueryValve()
+                .withScanIndexForward(false)
+                .withLimit(Messages.PAGE)
+                .withAttributesToGet(
+                    DyMessages.ATTR_TEXT,
+                    DyMessages.ATTR_ALIAS,
+                    DyMessages.ATTR_DATE
+                );
         }
         return Iterables.transform(
             this.region.table(DyMessages.TBL)
                 .frame()
-                .through(
-                    new QueryValve()
-                        .withScanIndexForward(false)
-                        .withLimit(Messages.PAGE)
-                        .withAttributesToGet(
-                            DyMessages.ATTR_TEXT,
-                            DyMessages.ATTR_ALIAS,
-                            DyMessages.ATTR_DATE
-                        )
-                )
+                .through(valve)
                 .where(DyMessages.HASH, Conditions.equalTo(this.bout))
                 .where(
                     DyMessages.RANGE,
@@ -259,97 +280,202 @@ final class DyMessages implements Messages {
 
     @Override
     public Iterable<Message> search(final String term) throws IOException {
-        final List<Message> result = new ArrayList<>(16);
+        final Set<Long> seen = new HashSet<>(0);
+        final Map<Long, Message> found = new TreeMap<>(
+            Collections.<Long>reverseOrder()
+        );
         for (final Message message : this.iterate()) {
+            final long number = message.number();
+            seen.add(number);
             if (message.text().contains(term)) {
-                result.add(message);
+                found.put(number, message);
+            }
+        }
+        final List<Long> indexed =
+            new Terms(this.region, this.self).find(this.bout, term);
+        final List<Long> candidates = new ArrayList<>(DyMessages.CANDIDATES);
+        for (final Long number : indexed) {
+            if (candidates.size() >= DyMessages.CANDIDATES) {
+                break;
+            }
+            if (number < this.start && !seen.contains(number)) {
+                candidates.add(number);
             }
         }
-        return result;
+        for (final List<Long> chunk
+            : Lists.partition(candidates, Messages.PAGE)) {
+            if (found.size() >= Messages.PAGE) {
+                break;
+            }
+            for (final Message message : this.messages(chunk)) {
+                if (message.text().contains(term)) {
+                    found.put(message.number(), message);
+                }
+            }
+        }
+        return new ArrayList<>(found.values()).subList(
+            0, Math.min(found.size(), Messages.PAGE)
+        );
     }
 
     /**
-     * It was updated just now.
+     * Find messages by their numbers, with one batch.
+     * @param numbers Message numbers
+     * @return Messages found
+     * @throws IOException If fails
+     */
+    private Collection<Message> messages(final Collection<Long> numbers)
+        throws IOException {
+        final String table = this.region.table(DyMessages.TBL).name();
+        final Collection<Map<String, AttributeValue>> keys =
+            new ArrayList<>(numbers.size());
+        for (final Long number : numbers) {
+            keys.add(
+                new Attributes()
+                    .with(DyMessages.HASH, this.bout)
+                    .with(DyMessages.RANGE, number)
+            );
+        }
+        final AmazonDynamoDB aws = this.region.aws();
+        final List<Map<String, AttributeValue>> items;
+        try {
+            items = Roster.read(
+                aws,
+                Collections.singletonMap(
+                    table,
+                    new KeysAndAttributes()
+                        .withKeys(keys)
+                        .withAttributesToGet(
+                            DyMessages.HASH,
+                            DyMessages.RANGE,
+                            DyMessages.ATTR_TEXT,
+                            DyMessages.ATTR_ALIAS,
+                            DyMessages.ATTR_DATE
+                        )
+                )
+            ).get(table);
+        } finally {
+            aws.shutdown();
+        }
+        final Collection<Message> messages = new ArrayList<>(items.size());
+        for (final Map<String, AttributeValue> item : items) {
+            messages.add(
+                new DyMessage(
+                    new Projected(
+                        this.region, item, DyMessages.TBL,
+                        DyMessages.HASH, DyMessages.RANGE
+                    )
+                )
+            );
+        }
+        return messages;
+    }
+
+    /**
+     * Add message to the full-text index of every friend of the bout.
+     * @param number Message number
+     * @param text Text of the message
+     * @throws IOException If fails
      */
     @Async
-    private void updated() {
-        final String alias = this.self;
-        Iterables.all(
-            this.region.table(DyFriends.TBL).frame()
-                .through(new QueryValve())
-                .where(DyFriends.HASH, Conditions.equalTo(this.bout)),
-            // @checkstyle AnonInnerLengthCheck (50 lines)
-            new Predicate<Item>() {
-                @Override
-                public boolean apply(final Item input) {
-                    AttributeUpdates updates = new AttributeUpdates().with(
-                        DyFriends.ATTR_UPDATED,
-                        System.currentTimeMillis()
-                    );
-                    try {
-                        if (!input.get(DyFriends.RANGE).getS().equals(alias)) {
-                            updates = updates.with(
-                                DyFriends.ATTR_UNREAD,
-                                new AttributeValueUpdate()
-                                    .withAction(AttributeAction.ADD)
-                                    .withValue(new AttributeValue().withN("1"))
-                            );
-                        }
-                        input.put(updates);
-                    } catch (final IOException ex) {
-                        throw new IllegalStateException(ex);
-                    }
-                    return true;
-                }
-            }
-        );
+    private void indexed(final long number, final String text)
+        throws IOException {
+        final Iterable<Item> rows = this.region.table(DyFriends.TBL).frame()
+            .through(new QueryValve().withAttributesToGet(DyFriends.RANGE))
+            .where(DyFriends.HASH, Conditions.equalTo(this.bout));
+        for (final Item row : rows) {
+            new Terms(this.region, row.get(DyFriends.RANGE).getS())
+                .index(this.bout, number, text);
+        }
     }
 
     /**
-     * It was seen just now.
+     * It was updated just now.
+     * @throws IOException If fails
      */
     @Async
-    private void seen() {
-        Iterables.all(
+    private void updated() throws IOException {
+        final String alias = this.self;
+        final long now = System.currentTimeMillis();
+        new Fanout(String.format("#%d", this.bout)).apply(
             this.region.table(DyFriends.TBL).frame()
                 .through(new QueryValve())
-                .where(DyFriends.HASH, Conditions.equalTo(this.bout))
-                .where(DyFriends.RANGE, this.self),
-            new Predicate<Item>() {
+                .where(DyFriends.HASH, Conditions.equalTo(this.bout)),
+            // @checkstyle AnonInnerLengthCheck (50 lines)
+            new Fanout.Update<Item>() {
                 @Override
-                public boolean apply(final Item input) {
-                    try {
+                public void apply(final Item input) throws IOException {
+                    final String friend = input.get(DyFriends.RANGE).getS();
+                    if (friend.equals(alias)) {
                         input.put(
-                            new AttributeUpdates().with(
-                                DyFriends.ATTR_UNREAD, 0L
-                            )
+                            new AttributeUpdates()
+                                .with(DyFriends.ATTR_UPDATED, now)
+                        );
+                    } else {
+                        input.put(
+                            new AttributeUpdates()
+                                .with(DyFriends.ATTR_UPDATED, now)
+                                .with(
+                                    DyFriends.ATTR_UNREAD,
+                                    new AttributeValueUpdate()
+                                        .withAction(AttributeAction.ADD)
+                                        .withValue(
+                                            new AttributeValue().withN("1")
+                                        )
+                                )
                         );
-                    } catch (final IOException ex) {
-                        throw new IllegalStateException(ex);
+                        new Unread(DyMessages.this.region, friend).add(1L);
                     }
-                    return true;
                 }
             }
         );
     }
 
     /**
-     * Sttc counter.
-     * @return Counter
+     * It was seen just now.
+     *
+     * <p>The number of unread messages in the bout is reset to zero and
+     * its old value is taken from the same atomic update, so the total
+     * of the alias is decreased by exactly what was reset.
+     * @throws IOException If fails
      */
-    @Cacheable(forever = true)
-    private static Counter sttc() {
+    @Async
+    private void seen() throws IOException {
+        final AmazonDynamoDB aws = this.region.aws();
         try {
-            return new CdSttc(
-                new ReSttc(
-                    RtSttc.make(
-                        URN.create(Manifests.read("Netbout-SttcUrn")),
-                        Manifests.read("Netbout-SttcToken")
+            final Map<String, AttributeValue> old = aws.updateItem(
+                new UpdateItemRequest()
+                    .withTableName(this.region.table(DyFriends.TBL).name())
+                    .withKey(
+                        new Attributes()
+                            .with(DyFriends.HASH, this.bout)
+                            .with(DyFriends.RANGE, this.self)
                     )
-                )
-            ).counters().get("nb-message");
-        } catch (final IOException ex) {
-            throw new IllegalStateException(ex);
+                    .addAttributeUpdatesEntry(
+                        DyFriends.ATTR_UNREAD,
+                        new AttributeValueUpdate()
+                            .withAction(AttributeAction.PUT)
+                            .withValue(new AttributeValue().withN("0"))
+                    )
+                    .addExpectedEntry(
+                        DyFriends.ATTR_UNREAD,
+                        new ExpectedAttributeValue()
+                            .withComparisonOperator(ComparisonOperator.GT)
+                            .withAttributeValueList(
+                                new AttributeValue().withN("0")
+                            )
+                    )
+                    .withReturnValues(ReturnValue.UPDATED_OLD)
+            ).getAttributes();
+            new Unread(this.region, this.self).add(
+                -Long.parseLong(old.get(DyFriends.ATTR_UNREAD).getN())
+            );
+        } catch (final ConditionalCheckFailedException ex) {
+            Logger.debug(
+                this, "nothing unread by @%s in #%d", this.self, this.bout
+            );
+        } finally {
+            aws.shutdown();
         }
     }
 
@@ -26,18 +26,55 @@
  */
 package com.netbout.dynamo;
 
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.ScanRequest;
+import com.amazonaws.services.dynamodbv2.model.ScanResult;
+import com.google.common.base.Charsets;
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
 import com.jcabi.aspects.Immutable;
 import com.jcabi.aspects.Loggable;
 import com.jcabi.aspects.Tv;
 import com.jcabi.dynamo.Conditions;
 import com.jcabi.dynamo.QueryValve;
 import com.jcabi.dynamo.Region;
+import com.jcabi.log.Logger;
+import com.jcabi.log.VerboseRunnable;
+import com.jcabi.log.VerboseThreads;
+import java.util.Collection;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
 
 /**
  * Everybody.
  *
+ * <p>Every JVM keeps a Bloom filter of all aliases in the table,
+ * built by a scan of it when the JVM starts, in background. When
+ * the filter says that the name is not there, the table is not
+ * touched at all. When it says the name may be there, the sorted set
+ * of names confirmed before is checked, and only if the name is
+ * not in the set, one query is made. Every name added in this JVM
+ * or confirmed by a query goes to the set and to the filter at once,
+ * so the filter doesn't need a scan to learn them. Aliases are never
+ * removed, so nothing in the filter gets stale; the table is scanned
+ * again only every {@link #RESCAN} milliseconds, to pick up aliases
+ * added by other JVMs, and the filter is rebuilt from the scan and
+ * the set.
+ *
+ * <p>Aliases added by other JVMs are not seen until the next scan,
+ * that's why {@link #occupied(String)} may say that a name is free,
+ * while it is not anymore. {@link #registered(String)} always asks
+ * the table, when the name is not known locally.
+ *
  * @author Yegor Bugayenko (yegor@teamed.io)
  * @version $Id$
  * @since 2.0
@@ -46,8 +83,30 @@ import lombok.ToString;
 @Loggable(Loggable.DEBUG)
 @ToString
 @EqualsAndHashCode(of = "region")
+@SuppressWarnings("PMD.DoNotUseThreads")
 final class Everybody {
 
+    /**
+     * Indexes of aliases in this JVM, by full table name.
+     */
+    private static final ConcurrentMap<String, Everybody.Index> INDEXES =
+        new ConcurrentHashMap<>(0);
+
+    /**
+     * How often to scan the table again, in msec.
+     */
+    private static final long RESCAN = TimeUnit.HOURS.toMillis(
+        (long) Tv.SIX
+    );
+
+    /**
+     * Threads to scan tables with.
+     */
+    private static final ScheduledExecutorService SCANNER =
+        Executors.newSingleThreadScheduledExecutor(
+            new VerboseThreads(Everybody.class)
+        );
+
     /**
      * Region to work with.
      */
@@ -63,21 +122,206 @@ final class Everybody {
 
     /**
      * This name is occupied.
+     *
+     * <p>The answer may be a false negative for a few hours after
+     * the alias was added by another JVM.
      * @param name The name
      * @return TRUE if occupied
      */
     public boolean occupied(final String name) {
+        Everybody.validate(name);
+        final Everybody.Index index = this.index();
+        final boolean occupied;
+        if (index.ready() && !index.mightContain(name)) {
+            occupied = false;
+        } else {
+            occupied = this.found(index, name);
+        }
+        return occupied;
+    }
+
+    /**
+     * This name is registered in the table, no matter what the
+     * local filter says.
+     * @param name The name
+     * @return TRUE if registered
+     * @since 2.15
+     */
+    public boolean registered(final String name) {
+        Everybody.validate(name);
+        return this.found(this.index(), name);
+    }
+
+    /**
+     * The name was just added to the table.
+     * @param name The name
+     * @since 2.15
+     */
+    public void add(final String name) {
+        this.index().add(name);
+    }
+
+    /**
+     * Is it in the set of known names or in the table?
+     * @param index The index
+     * @param name The name
+     * @return TRUE if found
+     */
+    private boolean found(final Everybody.Index index, final String name) {
+        boolean found = index.known(name);
+        if (!found) {
+            found = this.region.table(DyAliases.TBL).frame()
+                .through(new QueryValve().withLimit(1))
+                .where(DyAliases.HASH, Conditions.equalTo(name))
+                .iterator()
+                .hasNext();
+            if (found) {
+                index.add(name);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Get the index of this table, and start scanning it if it's new.
+     * @return Index
+     */
+    private Everybody.Index index() {
+        final String table = this.region.table(DyAliases.TBL).name();
+        Everybody.Index index = Everybody.INDEXES.get(table);
+        if (index == null) {
+            final Everybody.Index fresh = new Everybody.Index();
+            index = Everybody.INDEXES.putIfAbsent(table, fresh);
+            if (index == null) {
+                index = fresh;
+                Everybody.SCANNER.scheduleWithFixedDelay(
+                    new VerboseRunnable(
+                        new Runnable() {
+                            @Override
+                            public void run() {
+                                fresh.rebuild(Everybody.this.scan());
+                            }
+                        },
+                        true
+                    ),
+                    0L, Everybody.RESCAN, TimeUnit.MILLISECONDS
+                );
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Scan all names in the table.
+     * @return Names found
+     */
+    private Collection<String> scan() {
+        final long start = System.currentTimeMillis();
+        final String table = this.region.table(DyAliases.TBL).name();
+        final Collection<String> names = new LinkedList<>();
+        final AmazonDynamoDB aws = this.region.aws();
+        try {
+            Map<String, AttributeValue> next = null;
+            do {
+                final ScanResult result = aws.scan(
+                    new ScanRequest()
+                        .withTableName(table)
+                        .withAttributesToGet(DyAliases.HASH)
+                        .withExclusiveStartKey(next)
+                );
+                for (final Map<String, AttributeValue> item
+                    : result.getItems()) {
+                    names.add(item.get(DyAliases.HASH).getS());
+                }
+                next = result.getLastEvaluatedKey();
+            } while (next != null && !next.isEmpty());
+        } finally {
+            aws.shutdown();
+        }
+        Logger.info(
+            this, "%d alias(es) scanned in %s in %[ms]s",
+            names.size(), table, System.currentTimeMillis() - start
+        );
+        return names;
+    }
+
+    /**
+     * Validate the name.
+     * @param name The name
+     */
+    private static void validate(final String name) {
         if (name.isEmpty()) {
             throw new IllegalArgumentException("alias can't be empty");
         }
         if (name.length() > Tv.HUNDRED) {
             throw new IllegalArgumentException("alias is too long");
         }
-        return this.region.table(DyAliases.TBL).frame()
-            .through(new QueryValve().withLimit(1))
-            .where(DyAliases.HASH, Conditions.equalTo(name))
-            .iterator()
-            .hasNext();
+    }
+
+    /**
+     * Names of one table, known in this JVM.
+     */
+    private static final class Index {
+        /**
+         * Names known to be in the table.
+         */
+        private final transient Collection<String> names =
+            new ConcurrentSkipListSet<>();
+        /**
+         * Filter of all names, or NULL if it's not built yet.
+         */
+        private transient BloomFilter<CharSequence> filter;
+        /**
+         * The filter is built already?
+         * @return TRUE if it is
+         */
+        public synchronized boolean ready() {
+            return this.filter != null;
+        }
+        /**
+         * The name may be in the table?
+         * @param name The name
+         * @return FALSE if it's certainly not there
+         */
+        public synchronized boolean mightContain(final String name) {
+            return this.filter == null || this.filter.mightContain(name);
+        }
+        /**
+         * The name is known to be in the table?
+         * @param name The name
+         * @return TRUE if it is
+         */
+        public boolean known(final String name) {
+            return this.names.contains(name);
+        }
+        /**
+         * The name is in the table.
+         * @param name The name
+         */
+        public synchronized void add(final String name) {
+            this.names.add(name);
+            if (this.filter != null) {
+                this.filter.put(name);
+            }
+        }
+        /**
+         * Replace the filter with a new one.
+         * @param all All names found in the table
+         */
+        public synchronized void rebuild(final Collection<String> all) {
+            final BloomFilter<CharSequence> fresh = BloomFilter.create(
+                Funnels.stringFunnel(Charsets.UTF_8),
+                Math.max(all.size() << 1, Tv.THOUSAND * Tv.TEN),
+                1.0d / (double) Tv.HUNDRED
+            );
+            for (final String name : all) {
+                fresh.put(name);
+            }
+            for (final String name : this.names) {
+                fresh.put(name);
+            }
+            this.filter = fresh;
+        }
     }
 
 }
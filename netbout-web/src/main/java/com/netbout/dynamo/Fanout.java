@@ -0,0 +1,151 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.dynamo;
+
+import com.jcabi.aspects.Immutable;
+import com.jcabi.aspects.Tv;
+import com.jcabi.log.Logger;
+import com.jcabi.log.VerboseThreads;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+/**
+ * Fan-out of updates to many items, in parallel.
+ *
+ * <p>DynamoDB can't batch {@code UpdateItem} requests
+ * ({@code BatchWriteItem} only puts and deletes), so we send them
+ * concurrently instead, through a small pool shared by all fan-outs in
+ * the JVM. The pool bounds the total number of requests in flight,
+ * no matter how many bouts are being updated at the same time.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 2.15
+ */
+@Immutable
+@ToString(of = "label")
+@EqualsAndHashCode(of = "label")
+final class Fanout {
+
+    /**
+     * Threads to use for updates.
+     */
+    private static final ExecutorService THREADS =
+        Executors.newFixedThreadPool(
+            Tv.EIGHT, new VerboseThreads(Fanout.class)
+        );
+
+    /**
+     * What is being updated (for logging).
+     */
+    private final transient String label;
+
+    /**
+     * Ctor.
+     * @param lbl What is being updated, for example "#45"
+     */
+    Fanout(final String lbl) {
+        this.label = lbl;
+    }
+
+    /**
+     * Apply the update to all items and wait for all of them.
+     * @param items Items to update
+     * @param update The update to apply to each of them
+     * @param <T> Type of items
+     * @return How many items were updated
+     * @throws IOException If any of updates fails
+     */
+    public <T> int apply(final Iterable<T> items,
+        final Fanout.Update<T> update) throws IOException {
+        final long start = System.currentTimeMillis();
+        final Collection<Future<Void>> futures = new ArrayList<>(0);
+        for (final T item : items) {
+            futures.add(
+                Fanout.THREADS.submit(
+                    new Callable<Void>() {
+                        @Override
+                        public Void call() throws IOException {
+                            update.apply(item);
+                            return null;
+                        }
+                    }
+                )
+            );
+        }
+        for (final Future<Void> future : futures) {
+            Fanout.await(future);
+        }
+        Logger.info(
+            this, "%d item(s) of %s updated in %[ms]s",
+            futures.size(), this.label,
+            System.currentTimeMillis() - start
+        );
+        return futures.size();
+    }
+
+    /**
+     * Wait for the future to complete.
+     * @param future The future
+     * @throws IOException If it failed
+     */
+    private static void await(final Future<Void> future) throws IOException {
+        try {
+            future.get();
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException(ex);
+        } catch (final ExecutionException ex) {
+            if (ex.getCause() instanceof IOException) {
+                throw IOException.class.cast(ex.getCause());
+            }
+            throw new IOException(ex.getCause());
+        }
+    }
+
+    /**
+     * Update of one item.
+     * @param <T> Type of item
+     */
+    interface Update<T> {
+        /**
+         * Update this item.
+         * @param item The item
+         * @throws IOException If fails
+         */
+        void apply(T item) throws IOException;
+    }
+
+}
@@ -0,0 +1,164 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.dynamo;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.AttributeValueUpdate;
+import com.jcabi.aspects.Immutable;
+import com.jcabi.aspects.Loggable;
+import com.jcabi.dynamo.Attributes;
+import com.jcabi.dynamo.Conditions;
+import com.jcabi.dynamo.Frame;
+import com.jcabi.dynamo.Item;
+import com.jcabi.dynamo.QueryValve;
+import com.jcabi.dynamo.Region;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+/**
+ * Item in a table, as it was read from an index or a batch.
+ *
+ * <p>All attributes needed are read at once, so whatever is absent in
+ * the snapshot is treated as absent in the table too and
+ * {@link #has(String)} doesn't go to DynamoDB, in contrast to the items
+ * returned by frames. Writes are made to the item in the table, which
+ * is found by the keys.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 2.15
+ */
+@Immutable
+@Loggable(Loggable.DEBUG)
+@ToString(of = "attrs")
+@EqualsAndHashCode(of = { "region", "table", "attrs" })
+final class Projected implements Item {
+
+    /**
+     * Region we're in.
+     */
+    private final transient Region region;
+
+    /**
+     * All attributes of the item.
+     */
+    private final transient Attributes attrs;
+
+    /**
+     * Table name.
+     */
+    private final transient String table;
+
+    /**
+     * Names of key attributes.
+     */
+    @Immutable.Array
+    private final transient String[] keys;
+
+    /**
+     * Ctor.
+     * @param reg Region we're in
+     * @param map All attributes, as they were read from the "inbox" index
+     *  of "friends" table
+     */
+    Projected(final Region reg, final Map<String, AttributeValue> map) {
+        this(reg, map, DyFriends.TBL, DyFriends.HASH, DyFriends.RANGE);
+    }
+
+    /**
+     * Ctor.
+     * @param reg Region we're in
+     * @param map All attributes, as they were read
+     * @param tbl Table name
+     * @param names Names of key attributes
+     */
+    Projected(final Region reg, final Map<String, AttributeValue> map,
+        final String tbl, final String... names) {
+        this.region = reg;
+        this.attrs = new Attributes(map);
+        this.table = tbl;
+        this.keys = names.clone();
+    }
+
+    @Override
+    public AttributeValue get(final String name) {
+        final AttributeValue value = this.attrs.get(name);
+        if (value == null) {
+            throw new NoSuchElementException(
+                String.format("attribute \"%s\" is absent", name)
+            );
+        }
+        return value;
+    }
+
+    @Override
+    public boolean has(final String name) {
+        return this.attrs.containsKey(name);
+    }
+
+    @Override
+    public Map<String, AttributeValue> put(final String name,
+        final AttributeValue value) throws IOException {
+        return this.origin().put(name, value);
+    }
+
+    @Override
+    public Map<String, AttributeValue> put(
+        final Map<String, AttributeValueUpdate> updates) throws IOException {
+        return this.origin().put(updates);
+    }
+
+    @Override
+    public Frame frame() {
+        return this.origin().frame();
+    }
+
+    /**
+     * The item in the table.
+     * @return Item
+     */
+    private Item origin() {
+        Frame frame = this.region.table(this.table)
+            .frame()
+            .through(new QueryValve().withLimit(1));
+        for (final String key : this.keys) {
+            frame = frame.where(key, Conditions.equalTo(this.get(key)));
+        }
+        final Iterator<Item> items = frame.iterator();
+        if (!items.hasNext()) {
+            throw new IllegalStateException(
+                String.format("item %s is gone from the table", this.attrs)
+            );
+        }
+        return items.next();
+    }
+
+}
@@ -0,0 +1,296 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.dynamo;
+
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.BatchGetItemRequest;
+import com.amazonaws.services.dynamodbv2.model.BatchGetItemResult;
+import com.amazonaws.services.dynamodbv2.model.KeysAndAttributes;
+import com.google.common.collect.Iterables;
+import com.jcabi.aspects.Cacheable;
+import com.jcabi.aspects.Immutable;
+import com.jcabi.aspects.Tv;
+import com.jcabi.dynamo.Attributes;
+import com.jcabi.dynamo.Region;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+/**
+ * Friends of one bout, with their emails, photos and subscriptions
+ * loaded at once.
+ *
+ * <p>Nothing is read until the first friend asks for its email, photo
+ * or subscription. Then items of all friends are read from "aliases"
+ * and "friends" tables with one batch read per fifty of them, and kept
+ * for a few seconds.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 2.15
+ */
+@Immutable
+@ToString(of = { "bout", "names" })
+@EqualsAndHashCode(of = { "region", "bout", "names" })
+final class Roster {
+
+    /**
+     * Most friends read in one batch, with two items per friend.
+     */
+    private static final int BATCH = Tv.FIFTY;
+
+    /**
+     * Region to work with.
+     */
+    private final transient Region region;
+
+    /**
+     * Bout number, or zero if the friends are not in a bout.
+     */
+    private final transient long bout;
+
+    /**
+     * Aliases of friends.
+     */
+    @Immutable.Array
+    private final transient String[] names;
+
+    /**
+     * Ctor, for friends that are not in a bout.
+     * @param reg Region
+     * @param aliases Aliases of friends
+     */
+    Roster(final Region reg, final String... aliases) {
+        this(reg, 0L, aliases);
+    }
+
+    /**
+     * Ctor.
+     * @param reg Region
+     * @param number Bout number
+     * @param aliases Aliases of friends
+     */
+    Roster(final Region reg, final long number, final String... aliases) {
+        this.region = reg;
+        this.bout = number;
+        this.names = aliases.clone();
+    }
+
+    /**
+     * Attributes of the alias, from "aliases" table.
+     * @param name Alias
+     * @return Attributes, empty if the alias is not found
+     * @throws IOException If fails
+     */
+    public Attributes alias(final String name) throws IOException {
+        Attributes attrs = this.load().get(name);
+        if (attrs == null) {
+            attrs = new Attributes();
+        }
+        return attrs;
+    }
+
+    /**
+     * Is this friend subscribed to the bout?
+     * @param name Alias
+     * @return TRUE if subscribed or not in a bout
+     * @throws IOException If fails
+     */
+    public boolean subscribed(final String name) throws IOException {
+        final Attributes attrs = this.load().get(
+            String.format("#%s", name)
+        );
+        boolean subs = true;
+        if (attrs != null && attrs.containsKey(DyFriends.ATTR_SUBSCRIPTION)) {
+            subs = Boolean.parseBoolean(
+                attrs.get(DyFriends.ATTR_SUBSCRIPTION).getS()
+            );
+        }
+        return subs;
+    }
+
+    /**
+     * Read items of all friends, from "aliases" table by their names
+     * and from "friends" table by their names with "#" in front.
+     * @return Items found
+     * @throws IOException If fails
+     */
+    @Cacheable(lifetime = Tv.TEN, unit = TimeUnit.SECONDS)
+    public Map<String, Attributes> load() throws IOException {
+        final String aliases = this.region.table(DyAliases.TBL).name();
+        final String friends = this.region.table(DyFriends.TBL).name();
+        final Map<String, Attributes> loaded = new HashMap<>(0);
+        final Iterable<List<String>> chunks = Iterables.partition(
+            Arrays.asList(this.names), Roster.BATCH
+        );
+        final AmazonDynamoDB aws = this.region.aws();
+        try {
+            for (final List<String> chunk : chunks) {
+                final Map<String, KeysAndAttributes> request =
+                    new HashMap<>(2);
+                request.put(
+                    aliases,
+                    new KeysAndAttributes()
+                        .withKeys(Roster.keys(chunk))
+                        .withAttributesToGet(
+                            DyAliases.HASH,
+                            DyAliases.ATTR_EMAIL,
+                            DyAliases.ATTR_PHOTO
+                        )
+                );
+                if (this.bout != 0L) {
+                    request.put(
+                        friends,
+                        new KeysAndAttributes()
+                            .withKeys(this.rows(chunk))
+                            .withAttributesToGet(
+                                DyFriends.RANGE,
+                                DyFriends.ATTR_SUBSCRIPTION
+                            )
+                    );
+                }
+                final Map<String, List<Map<String, AttributeValue>>> found =
+                    Roster.read(aws, request);
+                for (final Map<String, AttributeValue> item
+                    : found.get(aliases)) {
+                    loaded.put(
+                        item.get(DyAliases.HASH).getS(), new Attributes(item)
+                    );
+                }
+                if (found.containsKey(friends)) {
+                    for (final Map<String, AttributeValue> item
+                        : found.get(friends)) {
+                        loaded.put(
+                            String.format(
+                                "#%s", item.get(DyFriends.RANGE).getS()
+                            ),
+                            new Attributes(item)
+                        );
+                    }
+                }
+            }
+        } finally {
+            aws.shutdown();
+        }
+        return loaded;
+    }
+
+    /**
+     * Keys of these friends in "friends" table.
+     * @param chunk Aliases
+     * @return Keys
+     */
+    private Collection<Map<String, AttributeValue>> rows(
+        final Collection<String> chunk) {
+        final Collection<Map<String, AttributeValue>> keys =
+            new ArrayList<>(chunk.size());
+        for (final String name : chunk) {
+            keys.add(
+                new Attributes()
+                    .with(DyFriends.HASH, this.bout)
+                    .with(DyFriends.RANGE, name)
+            );
+        }
+        return keys;
+    }
+
+    /**
+     * Keys of these friends in "aliases" table.
+     * @param chunk Aliases
+     * @return Keys
+     */
+    private static Collection<Map<String, AttributeValue>> keys(
+        final Collection<String> chunk) {
+        final Collection<Map<String, AttributeValue>> keys =
+            new ArrayList<>(chunk.size());
+        for (final String name : chunk) {
+            keys.add(new Attributes().with(DyAliases.HASH, name));
+        }
+        return keys;
+    }
+
+    /**
+     * Read all items requested, until none of them is left unprocessed.
+     * @param aws DynamoDB client
+     * @param request Keys to read, by table names
+     * @return Items found, by table names, with an entry for every table
+     * @throws IOException If fails or some keys are still unprocessed
+     *  after {@link Terms#ATTEMPTS} attempts
+     */
+    static Map<String, List<Map<String, AttributeValue>>> read(
+        final AmazonDynamoDB aws, final Map<String, KeysAndAttributes> request)
+        throws IOException {
+        final Map<String, List<Map<String, AttributeValue>>> found =
+            new HashMap<>(request.size());
+        for (final String table : request.keySet()) {
+            found.put(table, new ArrayList<Map<String, AttributeValue>>(0));
+        }
+        Map<String, KeysAndAttributes> todo = request;
+        long delay = 0L;
+        int attempt = 0;
+        while (todo != null && !todo.isEmpty()) {
+            if (attempt >= Terms.ATTEMPTS) {
+                throw new IOException(
+                    String.format(
+                        "keys of %s unprocessed after %d attempts",
+                        todo.keySet(), attempt
+                    )
+                );
+            }
+            try {
+                TimeUnit.MILLISECONDS.sleep(delay);
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IOException(ex);
+            }
+            final BatchGetItemResult result = aws.batchGetItem(
+                new BatchGetItemRequest().withRequestItems(todo)
+            );
+            if (result.getResponses() != null) {
+                for (final Map.Entry<String, List<Map<String, AttributeValue>>>
+                    entry : result.getResponses().entrySet()) {
+                    found.get(entry.getKey()).addAll(entry.getValue());
+                }
+            }
+            todo = result.getUnprocessedKeys();
+            delay = Math.min(
+                Math.max(delay << 1, (long) Tv.FIFTY), (long) Tv.THOUSAND
+            );
+            ++attempt;
+        }
+        return found;
+    }
+
+}
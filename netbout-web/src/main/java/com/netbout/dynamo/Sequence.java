@@ -0,0 +1,195 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.dynamo;
+
+import co.stateful.Counter;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.AttributeAction;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.AttributeValueUpdate;
+import com.amazonaws.services.dynamodbv2.model.ComparisonOperator;
+import com.amazonaws.services.dynamodbv2.model.ConditionalCheckFailedException;
+import com.amazonaws.services.dynamodbv2.model.ExpectedAttributeValue;
+import com.amazonaws.services.dynamodbv2.model.ReturnValue;
+import com.amazonaws.services.dynamodbv2.model.UpdateItemRequest;
+import com.jcabi.aspects.Immutable;
+import com.jcabi.dynamo.Attributes;
+import com.jcabi.dynamo.Conditions;
+import com.jcabi.dynamo.Item;
+import com.jcabi.dynamo.QueryValve;
+import com.jcabi.dynamo.Region;
+import com.jcabi.log.Logger;
+import java.io.IOException;
+import java.util.Iterator;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+/**
+ * Sequence of message numbers in one bout.
+ *
+ * <p>The last number given out is kept in "counters" table, in the item
+ * of the bout, and every number is an atomic increment of it. Numbers
+ * are strictly sequential in the bout, no matter how many JVMs post to
+ * it, since they define the order messages are displayed in, while
+ * posts to different bouts never touch the same item.
+ *
+ * <p>When the item is absent, the bout was started before numbers were
+ * kept per bout, and the sequence continues after its latest message.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 2.15
+ */
+@Immutable
+@ToString(of = "bout")
+@EqualsAndHashCode(of = { "region", "bout" })
+final class Sequence implements Counter {
+
+    /**
+     * Region we're in.
+     */
+    private final transient Region region;
+
+    /**
+     * Bout number.
+     */
+    private final transient long bout;
+
+    /**
+     * Ctor.
+     * @param reg Region we're in
+     * @param num Bout number
+     */
+    Sequence(final Region reg, final long num) {
+        this.region = reg;
+        this.bout = num;
+    }
+
+    @Override
+    public void set(final long value) throws IOException {
+        this.send(this.request(AttributeAction.PUT, value));
+    }
+
+    @Override
+    public long incrementAndGet(final long delta) throws IOException {
+        final UpdateItemRequest request = this.request(
+            AttributeAction.ADD, delta
+        ).addExpectedEntry(
+            DyCounter.ATTR_VALUE,
+            new ExpectedAttributeValue().withComparisonOperator(
+                ComparisonOperator.NOT_NULL
+            )
+        );
+        long number;
+        try {
+            number = this.send(request);
+        } catch (final ConditionalCheckFailedException ex) {
+            this.seed();
+            number = this.send(request);
+        }
+        return number;
+    }
+
+    /**
+     * Start the sequence after the latest message of the bout, unless
+     * somebody else did it already.
+     * @throws IOException If fails
+     */
+    private void seed() throws IOException {
+        final Iterator<Item> items = this.region.table(DyMessages.TBL)
+            .frame()
+            .through(
+                new QueryValve()
+                    .withLimit(1)
+                    .withScanIndexForward(false)
+                    .withAttributesToGet(DyMessages.RANGE)
+            )
+            .where(DyMessages.HASH, Conditions.equalTo(this.bout))
+            .iterator();
+        long last = 0L;
+        if (items.hasNext()) {
+            last = Long.parseLong(items.next().get(DyMessages.RANGE).getN());
+        }
+        try {
+            this.send(
+                this.request(AttributeAction.PUT, last).addExpectedEntry(
+                    DyCounter.ATTR_VALUE, new ExpectedAttributeValue(false)
+                )
+            );
+            Logger.info(this, "sequence of #%d starts at %d", this.bout, last);
+        } catch (final ConditionalCheckFailedException ex) {
+            Logger.debug(this, "sequence of #%d started already", this.bout);
+        }
+    }
+
+    /**
+     * Request to update the item of the bout.
+     * @param action ADD or PUT
+     * @param value The value to add or to put
+     * @return Request
+     */
+    private UpdateItemRequest request(final AttributeAction action,
+        final long value) {
+        return new UpdateItemRequest()
+            .withTableName(this.region.table(DyCounter.TBL).name())
+            .withKey(
+                new Attributes().with(
+                    DyCounter.HASH, String.format("nb-message#%d", this.bout)
+                )
+            )
+            .addAttributeUpdatesEntry(
+                DyCounter.ATTR_VALUE,
+                new AttributeValueUpdate()
+                    .withAction(action)
+                    .withValue(
+                        new AttributeValue().withN(Long.toString(value))
+                    )
+            )
+            .withReturnValues(ReturnValue.UPDATED_NEW);
+    }
+
+    /**
+     * Send the request.
+     * @param request The request
+     * @return New value of the item
+     * @throws IOException If fails
+     */
+    private long send(final UpdateItemRequest request) throws IOException {
+        final AmazonDynamoDB aws = this.region.aws();
+        final long value;
+        try {
+            value = Long.parseLong(
+                aws.updateItem(request).getAttributes()
+                    .get(DyCounter.ATTR_VALUE).getN()
+            );
+        } finally {
+            aws.shutdown();
+        }
+        return value;
+    }
+
+}
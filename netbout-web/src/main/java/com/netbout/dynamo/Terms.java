@@ -0,0 +1,384 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.dynamo;
+
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemRequest;
+import com.amazonaws.services.dynamodbv2.model.ComparisonOperator;
+import com.amazonaws.services.dynamodbv2.model.Condition;
+import com.amazonaws.services.dynamodbv2.model.PutRequest;
+import com.amazonaws.services.dynamodbv2.model.WriteRequest;
+import com.jcabi.aspects.Immutable;
+import com.jcabi.aspects.Loggable;
+import com.jcabi.aspects.Tv;
+import com.jcabi.dynamo.Attributes;
+import com.jcabi.dynamo.Conditions;
+import com.jcabi.dynamo.Item;
+import com.jcabi.dynamo.QueryValve;
+import com.jcabi.dynamo.Region;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+/**
+ * Full-text index of messages in all bouts of an alias.
+ *
+ * <p>Every word of a message (cut to {@link #MAX} letters) is indexed
+ * as a whole, so that a search for the beginning of a word is one
+ * query with "begins with" condition. Postings are kept by alias: each
+ * item in "terms" table is one word met in one message of one of
+ * the bouts of the alias. Its range key is the word, the number of
+ * the bout and the number of the message, separated by spaces. Thus,
+ * one query finds a word in the entire inbox, there are no growing
+ * sets of numbers, and all items of a message are written with a few
+ * {@code BatchWriteItem} requests.
+ *
+ * <p>A message is indexed for every friend of its bout, and all messages
+ * of a bout are indexed for a friend who is invited into it. Postings
+ * are not removed when a friend is kicked off, so the inbox checks
+ * that the alias is still in the bout.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 2.15
+ */
+@Immutable
+@Loggable(Loggable.DEBUG)
+@ToString(of = "alias")
+@EqualsAndHashCode(of = { "region", "alias" })
+final class Terms {
+
+    /**
+     * Table name.
+     */
+    public static final String TBL = "terms";
+
+    /**
+     * Alias attribute.
+     */
+    public static final String HASH = "alias";
+
+    /**
+     * Term attribute, the word and the numbers of the bout and
+     * the message.
+     */
+    public static final String RANGE = "term";
+
+    /**
+     * Number of the bout with this term.
+     */
+    public static final String ATTR_BOUT = "bout";
+
+    /**
+     * Number of the message with this term.
+     */
+    public static final String ATTR_MESSAGE = "message";
+
+    /**
+     * Shortest term indexed.
+     */
+    private static final int MIN = 3;
+
+    /**
+     * Longest term indexed.
+     */
+    private static final int MAX = Tv.TWENTY;
+
+    /**
+     * Most words indexed in one message.
+     */
+    private static final int WORDS = Tv.THOUSAND;
+
+    /**
+     * Most attempts to write one batch.
+     */
+    static final int ATTEMPTS = Tv.TEN;
+
+    /**
+     * Most items in one BatchWriteItem request.
+     */
+    static final int BATCH = 25;
+
+    /**
+     * Region to work with.
+     */
+    private final transient Region region;
+
+    /**
+     * Alias.
+     */
+    private final transient String alias;
+
+    /**
+     * Ctor.
+     * @param reg Region
+     * @param name Alias
+     */
+    Terms(final Region reg, final String name) {
+        this.region = reg;
+        this.alias = name;
+    }
+
+    /**
+     * Add message to the index.
+     * @param bout Bout number
+     * @param number Message number
+     * @param text Text of the message
+     * @throws IOException If fails
+     */
+    public void index(final long bout, final long number, final String text)
+        throws IOException {
+        final Set<String> terms = new LinkedHashSet<>(0);
+        for (final String word : Terms.words(text)) {
+            if (terms.size() >= Terms.WORDS) {
+                break;
+            }
+            if (word.length() >= Terms.MIN) {
+                terms.add(Terms.cut(word));
+            }
+        }
+        final String table = this.region.table(Terms.TBL).name();
+        final List<WriteRequest> puts = new ArrayList<>(terms.size());
+        for (final String term : terms) {
+            puts.add(
+                new WriteRequest().withPutRequest(
+                    new PutRequest().withItem(
+                        new Attributes()
+                            .with(Terms.HASH, this.alias)
+                            .with(
+                                Terms.RANGE,
+                                String.format("%s %d %d", term, bout, number)
+                            )
+                            .with(Terms.ATTR_BOUT, bout)
+                            .with(Terms.ATTR_MESSAGE, number)
+                    )
+                )
+            );
+        }
+        final AmazonDynamoDB aws = this.region.aws();
+        try {
+            for (int pos = 0; pos < puts.size(); pos += Terms.BATCH) {
+                Terms.write(
+                    aws, table,
+                    puts.subList(
+                        pos, Math.min(puts.size(), pos + Terms.BATCH)
+                    )
+                );
+            }
+        } finally {
+            aws.shutdown();
+        }
+    }
+
+    /**
+     * Numbers of bouts with messages that may contain the text.
+     *
+     * <p>The result is a superset: every bout with a message that
+     * contains the text is there, but some of them may not contain it
+     * (for example, because the index doesn't know about letter case).
+     * Words shorter than {@link #MIN} letters are ignored, if there are
+     * no other words the result is empty.
+     *
+     * @param text Text to find
+     * @return Bout numbers, latest first
+     */
+    public List<Long> bouts(final String text) {
+        final Set<Long> bouts = new TreeSet<>(Collections.reverseOrder());
+        for (final long[] posting : this.postings(text)) {
+            bouts.add(posting[0]);
+        }
+        return new ArrayList<>(bouts);
+    }
+
+    /**
+     * Numbers of messages in the bout that may contain the text.
+     *
+     * <p>The result is a superset, just like in {@link #bouts(String)}.
+     *
+     * @param bout Bout number
+     * @param text Text to find
+     * @return Message numbers, latest first
+     */
+    public List<Long> find(final long bout, final String text) {
+        final Set<Long> numbers = new TreeSet<>(Collections.reverseOrder());
+        for (final long[] posting : this.postings(text)) {
+            if (posting[0] == bout) {
+                numbers.add(posting[1]);
+            }
+        }
+        return new ArrayList<>(numbers);
+    }
+
+    /**
+     * Postings with all words of the text.
+     * @param text Text to find
+     * @return Pairs of bout and message numbers
+     */
+    private Collection<long[]> postings(final String text) {
+        Set<String> found = null;
+        for (final String word : Terms.words(text)) {
+            if (word.length() < Terms.MIN) {
+                continue;
+            }
+            final Set<String> keys = this.keys(Terms.cut(word));
+            if (found == null) {
+                found = keys;
+            } else {
+                found.retainAll(keys);
+            }
+        }
+        final Collection<long[]> postings = new ArrayList<>(0);
+        if (found != null) {
+            for (final String key : found) {
+                final String[] parts = key.split(" ");
+                postings.add(
+                    new long[] {
+                        Long.parseLong(parts[0]), Long.parseLong(parts[1])
+                    }
+                );
+            }
+        }
+        return postings;
+    }
+
+    /**
+     * Bouts and messages with words that start with this prefix.
+     * @param prefix The prefix
+     * @return Bout and message numbers, separated by a space
+     */
+    private Set<String> keys(final String prefix) {
+        final Iterable<Item> items = this.region.table(Terms.TBL)
+            .frame()
+            .through(
+                new QueryValve().withAttributesToGet(
+                    Terms.ATTR_BOUT, Terms.ATTR_MESSAGE
+                )
+            )
+            .where(Terms.HASH, Conditions.equalTo(this.alias))
+            .where(
+                Terms.RANGE,
+                new Condition()
+                    .withComparisonOperator(ComparisonOperator.BEGINS_WITH)
+                    .withAttributeValueList(new AttributeValue(prefix))
+            );
+        final Set<String> keys = new HashSet<>(0);
+        for (final Item item : items) {
+            try {
+                keys.add(
+                    String.format(
+                        "%s %s", item.get(Terms.ATTR_BOUT).getN(),
+                        item.get(Terms.ATTR_MESSAGE).getN()
+                    )
+                );
+            } catch (final IOException ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Write a batch of items, until all of them are processed.
+     *
+     * <p>Unprocessed items are written again, with a delay that grows
+     * from 50ms to a second, but not more than {@link #ATTEMPTS} times
+     * in total, since the thread may be one of a few shared ones.
+     *
+     * @param aws DynamoDB client
+     * @param table Table name
+     * @param puts Items to put, no more than {@link #BATCH}
+     * @throws IOException If fails or some items are still unprocessed
+     */
+    static void write(final AmazonDynamoDB aws, final String table,
+        final List<WriteRequest> puts) throws IOException {
+        Map<String, List<WriteRequest>> todo =
+            Collections.singletonMap(table, puts);
+        long delay = 0L;
+        int attempt = 0;
+        while (todo != null && !todo.isEmpty()) {
+            if (attempt >= Terms.ATTEMPTS) {
+                throw new IOException(
+                    String.format(
+                        "%d item(s) of %s unprocessed after %d attempts",
+                        todo.get(table).size(), table, attempt
+                    )
+                );
+            }
+            try {
+                TimeUnit.MILLISECONDS.sleep(delay);
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IOException(ex);
+            }
+            todo = aws.batchWriteItem(
+                new BatchWriteItemRequest().withRequestItems(todo)
+            ).getUnprocessedItems();
+            delay = Math.min(
+                Math.max(delay << 1, (long) Tv.FIFTY), (long) Tv.THOUSAND
+            );
+            ++attempt;
+        }
+    }
+
+    /**
+     * Cut the word to the longest term indexed.
+     * @param word The word
+     * @return Term
+     */
+    private static String cut(final String word) {
+        return word.substring(0, Math.min(word.length(), Terms.MAX));
+    }
+
+    /**
+     * Break text into lower case words.
+     * @param text The text
+     * @return Words
+     */
+    private static Collection<String> words(final String text) {
+        final Collection<String> words = new ArrayList<>(0);
+        for (final String word
+            : text.toLowerCase(Locale.ENGLISH).split("[^\\p{L}\\p{N}]+")) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+
+}
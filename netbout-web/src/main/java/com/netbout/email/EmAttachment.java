@@ -85,6 +85,17 @@ final class EmAttachment implements Attachment {
         return this.origin.read();
     }
 
+    @Override
+    public long size() throws IOException {
+        return this.origin.size();
+    }
+
+    @Override
+    public InputStream read(final long first, final long last)
+        throws IOException {
+        return this.origin.read(first, last);
+    }
+
     @Override
     public void write(final InputStream stream, final String ctype,
         final String etag) throws IOException {
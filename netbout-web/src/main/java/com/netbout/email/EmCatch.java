@@ -26,39 +26,75 @@
  */
 package com.netbout.email;
 
-import com.jcabi.aspects.Immutable;
 import com.jcabi.aspects.Loggable;
 import com.jcabi.log.Logger;
+import com.jcabi.log.VerboseRunnable;
+import com.jcabi.log.VerboseThreads;
+import com.sun.mail.iap.ProtocolException;
+import com.sun.mail.imap.IMAPFolder;
+import com.sun.mail.imap.IMAPStore;
+import com.sun.mail.imap.protocol.IMAPProtocol;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
 import java.util.Properties;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import javax.mail.Flags;
 import javax.mail.Folder;
 import javax.mail.Message;
 import javax.mail.MessagingException;
-import javax.mail.NoSuchProviderException;
 import javax.mail.Session;
 import javax.mail.Store;
+import javax.mail.UIDFolder;
 import javax.mail.URLName;
-import javax.mail.search.FlagTerm;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
 
 /**
- * Monitors an email account periodically
- * through a daemon thread.
+ * Listens to an IMAP mailbox through a daemon thread.
+ *
+ * <p>One connection is kept open and the inbox folder is kept in
+ * IDLE mode, so that the server tells us about new messages right
+ * when they arrive. Only messages with UIDs higher than the last one
+ * fetched are fetched, and they are given to the action through
+ * {@link Inbound}. A message is marked as SEEN on the server only
+ * after the action is done with it, so the flag is the checkpoint
+ * that survives restarts: a message that is still in the pipeline
+ * when the JVM stops is fetched and handled again by the next one.
+ * The UID in memory only keeps this JVM from fetching the same
+ * message twice. A dead letter, which the pipeline failed to handle,
+ * is left unseen and marked with the {@link #FAILED} flag, if the
+ * server supports user flags, so that it is not fetched again and
+ * can be found in the mailbox. When the server doesn't support IDLE,
+ * the folder is checked every period. When the connection breaks,
+ * it is opened again after a delay, which doubles on every failure,
+ * up to an hour.
+ *
  * @author Erim Erturk (erimerturk@gmail.com)
  * @version $Id$
  * @since 2.15
+ * @checkstyle ClassDataAbstractionCouplingCheck (500 lines)
  */
-@Immutable
 @Loggable(Loggable.DEBUG)
-@ToString(of = { "action", "user", "password" })
+@ToString(of = { "action", "user", "host", "port" })
 @EqualsAndHashCode(of = { "action", "user", "password" })
-final class EmCatch {
+@SuppressWarnings("PMD.DoNotUseThreads")
+final class EmCatch implements Closeable {
     /**
      * Max sleep time of thread.
      */
     private static final long MAX_SLEEP_TIME = TimeUnit.HOURS.toMillis(1L);
+    /**
+     * User flag of dead letters.
+     */
+    private static final String FAILED = "netbout-failed";
     /**
      * Action.
      */
@@ -80,9 +116,53 @@ final class EmCatch {
      */
     private final transient int port;
     /**
-     * Email server check period in milliseconds.
+     * How often to wake up the connection, or to check the folder when
+     * IDLE is not supported, in milliseconds.
      */
     private final transient long period;
+    /**
+     * UID validity of the folder the checkpoint belongs to.
+     */
+    private final transient AtomicLong validity = new AtomicLong(-1L);
+    /**
+     * The highest UID given to the pipeline.
+     */
+    private final transient AtomicLong checkpoint = new AtomicLong();
+    /**
+     * The folder open now, if any.
+     */
+    private final transient AtomicReference<IMAPFolder> open =
+        new AtomicReference<>();
+    /**
+     * Store connected now, if any.
+     */
+    private final transient AtomicReference<Store> connected =
+        new AtomicReference<>();
+    /**
+     * Closed already?
+     */
+    private final transient AtomicBoolean closed = new AtomicBoolean();
+    /**
+     * Pipeline that runs the action.
+     */
+    private final transient Inbound pipeline;
+    /**
+     * Messages handled by the pipeline, to be marked in the folder.
+     */
+    private final transient Queue<EmCatch.Receipt> settled =
+        new ConcurrentLinkedQueue<>();
+    /**
+     * Dead letters, to be marked in the folder.
+     */
+    private final transient Queue<EmCatch.Receipt> rejected =
+        new ConcurrentLinkedQueue<>();
+    /**
+     * Thread that wakes up the connection.
+     */
+    private final transient ScheduledExecutorService alarm =
+        Executors.newSingleThreadScheduledExecutor(
+            new VerboseThreads(EmCatch.class)
+        );
     /**
      * Ctor.
      * @param act Email message handler
@@ -90,13 +170,13 @@ final class EmCatch {
      * @param pass Email password
      * @param hst Email server host
      * @param prt Email server port
-     * @param prd Email server check period in milliseconds
+     * @param prd How often to wake up the connection, in milliseconds
      * @checkstyle ParameterNumberCheck (3 lines)
      */
-    @SuppressWarnings("PMD.DoNotUseThreads")
     EmCatch(final Action act, final String usr, final String pass,
             final String hst, final int prt, final long prd) {
         this.action = act;
+        this.pipeline = new Inbound(act);
         this.user = usr;
         this.password = pass;
         this.host = hst;
@@ -112,23 +192,54 @@ final class EmCatch {
         );
         monitor.setDaemon(true);
         monitor.start();
+        this.alarm.scheduleWithFixedDelay(
+            new VerboseRunnable(
+                new Runnable() {
+                    @Override
+                    public void run() {
+                        EmCatch.this.wakeup();
+                    }
+                },
+                true
+            ),
+            prd, prd, TimeUnit.MILLISECONDS
+        );
+    }
+    @Override
+    public void close() {
+        this.closed.set(true);
+        this.alarm.shutdown();
+        final Store store = this.connected.get();
+        if (store != null) {
+            try {
+                store.close();
+            } catch (final MessagingException ex) {
+                Logger.warn(this, "%[exception]s", ex);
+            }
+        }
+        this.pipeline.close();
     }
     /**
-     * Main loop of the daemon thread. Fetches unread mail and persists
-     * new bout message periodically
+     * Main loop of the daemon thread. Keeps the connection open and
+     * opens it again when it breaks.
      */
     private void mainLoop() {
         long prd = this.period;
-        while (true) {
+        while (!this.closed.get()) {
             try {
-                TimeUnit.SECONDS.sleep(this.period);
-                EmCatch.this.check();
+                this.listen();
                 prd = this.period;
-            } catch (final InterruptedException ex) {
-                Thread.currentThread().interrupt();
-                throw new IllegalStateException(ex);
             } catch (final MessagingException ex) {
+                if (this.closed.get()) {
+                    break;
+                }
                 Logger.error(this, "%[exception]s", ex);
+                try {
+                    TimeUnit.MILLISECONDS.sleep(prd);
+                } catch (final InterruptedException iex) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException(iex);
+                }
                 if (prd * 2 < EmCatch.MAX_SLEEP_TIME) {
                     prd = prd * 2;
                 }
@@ -136,44 +247,192 @@ final class EmCatch {
         }
     }
     /**
-     * Read unread mail and persist new bout message.
+     * Connect, fetch new messages, and wait for more of them, until
+     * the connection breaks or the catcher is closed.
      * @throws MessagingException If fails
      */
-    private void check() throws MessagingException {
-        Store store = null;
-        Folder inbox = null;
+    private void listen() throws MessagingException {
+        final Store store = Session.getInstance(new Properties()).getStore(
+            new URLName(
+                "imap", this.host, this.port, null, this.user, this.password
+            )
+        );
+        store.connect();
+        this.connected.set(store);
         try {
-            final Properties props = new Properties();
-            final Session session = Session.getInstance(props);
-            final URLName url = new URLName(
-                "pop3",
-                this.host,
-                this.port,
-                null,
-                this.user,
-                this.password
+            final IMAPFolder inbox = IMAPFolder.class.cast(
+                store.getFolder("INBOX")
             );
-            store = session.getStore(url);
-            store.connect();
-            inbox = store.getFolder("inbox");
             if (!inbox.exists()) {
                 throw new IllegalStateException("inbox folder not exist!");
             }
             inbox.open(Folder.READ_WRITE);
-            final FlagTerm unseen = new FlagTerm(
-                new Flags(Flags.Flag.SEEN),
-                false
-            );
-            for (final Message msg : inbox.search(unseen)) {
-                this.action.run(msg);
+            this.open.set(inbox);
+            try {
+                final boolean idle =
+                    IMAPStore.class.cast(store).hasCapability("IDLE");
+                while (!this.closed.get()) {
+                    this.settle(inbox);
+                    this.fetch(inbox);
+                    if (idle) {
+                        inbox.idle(true);
+                    } else {
+                        TimeUnit.MILLISECONDS.sleep(this.period);
+                    }
+                }
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(ex);
+            } finally {
+                this.open.set(null);
+                if (inbox.isOpen()) {
+                    inbox.close(false);
+                }
             }
-        } catch (final NoSuchProviderException ex) {
-            throw new IllegalStateException(ex);
         } finally {
-            inbox.close(true);
+            this.connected.set(null);
             store.close();
         }
     }
+    /**
+     * Mark messages the action is done with as SEEN, and dead letters
+     * with the {@link #FAILED} flag.
+     * @param inbox The folder
+     * @throws MessagingException If fails
+     */
+    private void settle(final IMAPFolder inbox) throws MessagingException {
+        EmCatch.mark(inbox, this.settled, new Flags(Flags.Flag.SEEN));
+        if (inbox.getPermanentFlags().contains(Flags.Flag.USER)) {
+            EmCatch.mark(inbox, this.rejected, new Flags(EmCatch.FAILED));
+        } else {
+            while (this.rejected.poll() != null) {
+                Logger.warn(
+                    this, "user flags not supported, dead letter left unseen"
+                );
+            }
+        }
+    }
+    /**
+     * Set flags of messages in the queue, emptying it.
+     *
+     * <p>Messages of another UID validity are left as they are, they
+     * will be fetched and handled again.
+     *
+     * @param inbox The folder
+     * @param queue Receipts of the messages
+     * @param flags Flags to set
+     * @throws MessagingException If fails
+     */
+    private static void mark(final IMAPFolder inbox,
+        final Queue<EmCatch.Receipt> queue, final Flags flags)
+        throws MessagingException {
+        final long uidv = inbox.getUIDValidity();
+        EmCatch.Receipt receipt = queue.poll();
+        while (receipt != null) {
+            if (receipt.validity == uidv) {
+                final Message msg = inbox.getMessageByUID(receipt.uid);
+                if (msg != null) {
+                    try {
+                        msg.setFlags(flags, true);
+                    } catch (final MessagingException ex) {
+                        queue.add(receipt);
+                        throw ex;
+                    }
+                }
+            }
+            receipt = queue.poll();
+        }
+    }
+    /**
+     * Fetch messages with UIDs higher than the checkpoint and give the
+     * unseen ones, which are not dead letters, to the action.
+     * @param inbox The folder
+     * @throws MessagingException If fails
+     */
+    private void fetch(final IMAPFolder inbox) throws MessagingException {
+        final long uidv = inbox.getUIDValidity();
+        if (this.validity.getAndSet(uidv) != uidv) {
+            this.checkpoint.set(0L);
+        }
+        final long since = this.checkpoint.get();
+        for (final Message msg : inbox.getMessagesByUID(
+            since + 1L, UIDFolder.LASTUID
+        )) {
+            final long uid = inbox.getUID(msg);
+            if (uid <= since) {
+                continue;
+            }
+            if (!msg.isSet(Flags.Flag.SEEN)
+                && !msg.getFlags().contains(EmCatch.FAILED)) {
+                final ByteArrayOutputStream mime = new ByteArrayOutputStream();
+                try {
+                    msg.writeTo(mime);
+                } catch (final IOException ex) {
+                    throw new MessagingException("can't read message", ex);
+                }
+                this.pipeline.accept(
+                    mime.toByteArray(), new EmCatch.Receipt(uidv, uid)
+                );
+            }
+            this.checkpoint.set(uid);
+        }
+    }
+    /**
+     * Interrupt the IDLE with NOOP, to keep the connection alive and to
+     * let the main loop check for new messages.
+     */
+    private void wakeup() {
+        final IMAPFolder inbox = this.open.get();
+        if (inbox != null && inbox.isOpen()) {
+            try {
+                inbox.doCommand(
+                    new IMAPFolder.ProtocolCommand() {
+                        @Override
+                        public Object doCommand(final IMAPProtocol protocol)
+                            throws ProtocolException {
+                            protocol.simpleCommand("NOOP", null);
+                            return null;
+                        }
+                    }
+                );
+            } catch (final MessagingException ex) {
+                Logger.warn(this, "%[exception]s", ex);
+            }
+        }
+    }
+
+    /**
+     * Receipt of one message in the folder.
+     */
+    private final class Receipt implements Inbound.Receipt {
+        /**
+         * UID validity of the folder.
+         */
+        private final transient long validity;
+        /**
+         * UID of the message.
+         */
+        private final transient long uid;
+        /**
+         * Ctor.
+         * @param uidv UID validity of the folder
+         * @param num UID of the message
+         */
+        Receipt(final long uidv, final long num) {
+            this.validity = uidv;
+            this.uid = num;
+        }
+        @Override
+        public void success() {
+            EmCatch.this.settled.add(this);
+            EmCatch.this.wakeup();
+        }
+        @Override
+        public void failure() {
+            EmCatch.this.rejected.add(this);
+            EmCatch.this.wakeup();
+        }
+    }
 
     /**
      * Email Catch Action.
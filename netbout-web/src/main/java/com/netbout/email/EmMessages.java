@@ -27,6 +27,7 @@
 package com.netbout.email;
 
 import com.google.common.base.Joiner;
+import com.jcabi.aspects.Async;
 import com.jcabi.aspects.Immutable;
 import com.jcabi.aspects.Loggable;
 import com.jcabi.email.Envelope;
@@ -96,14 +97,7 @@ final class EmMessages implements Messages {
     @Override
     public void post(final String text) throws IOException {
         this.origin.post(text);
-        for (final Friend friend : this.bout.friends().iterate()) {
-            if (friend.email().isEmpty()
-                || friend.alias().equals(this.self)
-                || !this.bout.subscription(friend.alias())) {
-                continue;
-            }
-            this.email(friend, text);
-        }
+        this.deliver(text);
     }
 
     @Override
@@ -129,6 +123,24 @@ final class EmMessages implements Messages {
         return this.origin.search(term);
     }
 
+    /**
+     * Email the text to all friends subscribed to the bout, in background,
+     * so that the author doesn't wait for them.
+     * @param text The text of the new message
+     * @throws IOException If fails
+     */
+    @Async
+    private void deliver(final String text) throws IOException {
+        for (final Friend friend : this.bout.friends().iterate()) {
+            if (friend.alias().equals(this.self)
+                || friend.email().isEmpty()
+                || !friend.subscribed()) {
+                continue;
+            }
+            this.email(friend, text);
+        }
+    }
+
     /**
      * Send an email.
      * @param friend Friend to send to
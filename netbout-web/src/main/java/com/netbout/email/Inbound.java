@@ -0,0 +1,421 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.email;
+
+import com.jcabi.aspects.Tv;
+import com.jcabi.log.Logger;
+import com.jcabi.log.VerboseRunnable;
+import com.jcabi.log.VerboseThreads;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.mail.Address;
+import javax.mail.Message;
+import javax.mail.MessagingException;
+import javax.mail.Session;
+import javax.mail.internet.InternetAddress;
+import javax.mail.internet.MimeMessage;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+/**
+ * Pipeline of inbound emails.
+ *
+ * <p>Raw messages are parsed by one thread, in the order they were
+ * accepted, and then given to the action by one of the stripes,
+ * picked by the recipient of the message. The recipient tells the
+ * bout the message belongs to, so messages of one bout are handled
+ * one by one, in the order they came, while messages of different
+ * bouts are handled in parallel.
+ * All queues are bounded, and {@link #accept(byte[], Inbound.Receipt)}
+ * waits when they are full. The receipt of every message is told
+ * whether the action is done with it or failed.
+ *
+ * <p>When the action fails, it is tried again a few times, after a
+ * delay that doubles every time, in the same stripe, so that the
+ * next messages of the bout don't overtake it. When it fails every
+ * time, the message is a dead letter: its receipt is told about the
+ * failure, and it is logged as an error.
+ *
+ * <p>The number of messages waiting in the queues and the average
+ * latency of messages, since they were accepted until the action is
+ * done with them or gives up, are available as {@link #depth()} and
+ * {@link #latency()}. Every message handled is logged too, with its
+ * latency and the depth.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 2.15
+ */
+@ToString(of = "action")
+@EqualsAndHashCode(of = "action")
+@SuppressWarnings("PMD.DoNotUseThreads")
+final class Inbound implements Closeable {
+
+    /**
+     * Capacity of every queue.
+     */
+    private static final int CAPACITY = Tv.HUNDRED;
+
+    /**
+     * How many times to try the action with every message.
+     */
+    private static final int ATTEMPTS = Tv.THREE;
+
+    /**
+     * Action.
+     */
+    private final transient EmCatch.Action action;
+
+    /**
+     * Thread that parses messages.
+     */
+    private final transient ThreadPoolExecutor parser;
+
+    /**
+     * Queues of stripes.
+     */
+    private final transient List<BlockingQueue<Inbound.Task>> stripes;
+
+    /**
+     * Threads of stripes, one per stripe.
+     */
+    private final transient ExecutorService posters;
+
+    /**
+     * Messages handled, including dead letters.
+     */
+    private final transient AtomicLong handled = new AtomicLong();
+
+    /**
+     * Total latency of messages handled, in msec.
+     */
+    private final transient AtomicLong latency = new AtomicLong();
+
+    /**
+     * Closed already?
+     */
+    private final transient AtomicBoolean closed = new AtomicBoolean();
+
+    /**
+     * Ctor.
+     * @param act Action to run for every message
+     */
+    Inbound(final EmCatch.Action act) {
+        this(act, Tv.EIGHT);
+    }
+
+    /**
+     * Ctor.
+     * @param act Action to run for every message
+     * @param total How many stripes to run the action in
+     */
+    Inbound(final EmCatch.Action act, final int total) {
+        this.action = act;
+        this.parser = new ThreadPoolExecutor(
+            1, 1, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<Runnable>(Inbound.CAPACITY),
+            new VerboseThreads(Inbound.class),
+            new Inbound.Wait()
+        );
+        this.stripes = new ArrayList<>(total);
+        this.posters = Executors.newFixedThreadPool(
+            total, new VerboseThreads(Inbound.class)
+        );
+        for (int idx = 0; idx < total; ++idx) {
+            final BlockingQueue<Inbound.Task> queue =
+                new ArrayBlockingQueue<>(Inbound.CAPACITY);
+            this.stripes.add(queue);
+            this.posters.submit(
+                new VerboseRunnable(
+                    new Callable<Void>() {
+                        @Override
+                        public Void call() throws InterruptedException {
+                            Inbound.this.drain(queue);
+                            return null;
+                        }
+                    },
+                    true
+                )
+            );
+        }
+    }
+
+    /**
+     * Accept a raw message, waiting if the queue is full.
+     * @param mime The message, as MIME
+     * @param receipt Receipt to tell about the outcome
+     */
+    public void accept(final byte[] mime, final Inbound.Receipt receipt) {
+        final long start = System.currentTimeMillis();
+        this.parser.execute(
+            new VerboseRunnable(
+                new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        try {
+                            Inbound.this.parse(mime, receipt, start);
+                        } catch (final MessagingException ex) {
+                            receipt.failure();
+                            throw ex;
+                        }
+                        return null;
+                    }
+                },
+                true
+            )
+        );
+    }
+
+    /**
+     * How many messages are waiting in all queues.
+     * @return Number of them
+     */
+    public int depth() {
+        int depth = this.parser.getQueue().size();
+        for (final BlockingQueue<Inbound.Task> queue : this.stripes) {
+            depth += queue.size();
+        }
+        return depth;
+    }
+
+    /**
+     * Average latency of messages handled so far.
+     * @return Latency in msec, or zero if nothing is handled yet
+     */
+    public long latency() {
+        final long total = this.handled.get();
+        final long avg;
+        if (total == 0L) {
+            avg = 0L;
+        } else {
+            avg = this.latency.get() / total;
+        }
+        return avg;
+    }
+
+    @Override
+    public void close() {
+        this.closed.set(true);
+        this.parser.shutdown();
+        this.posters.shutdown();
+        try {
+            this.parser.awaitTermination(1L, TimeUnit.MINUTES);
+            this.posters.awaitTermination(1L, TimeUnit.MINUTES);
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Parse the message and put it into its stripe.
+     * @param mime The message, as MIME
+     * @param receipt Receipt of it
+     * @param start When it was accepted
+     * @throws MessagingException If fails
+     * @throws InterruptedException If interrupted
+     */
+    private void parse(final byte[] mime, final Inbound.Receipt receipt,
+        final long start) throws MessagingException, InterruptedException {
+        final Message msg = new MimeMessage(
+            Session.getInstance(new Properties()),
+            new ByteArrayInputStream(mime)
+        );
+        final String key = Inbound.key(msg);
+        this.stripes.get(
+            Math.abs(key.hashCode() % this.stripes.size())
+        ).put(new Inbound.Task(msg, key, receipt, start));
+    }
+
+    /**
+     * Run the action for every message in the queue, until closed and
+     * there is nothing left.
+     * @param queue The queue of the stripe
+     * @throws InterruptedException If interrupted
+     */
+    private void drain(final BlockingQueue<Inbound.Task> queue)
+        throws InterruptedException {
+        while (!this.closed.get() || !this.parser.isTerminated()
+            || !queue.isEmpty()) {
+            final Inbound.Task task = queue.poll(1L, TimeUnit.SECONDS);
+            if (task == null) {
+                continue;
+            }
+            final boolean done = this.handle(task);
+            final long msec = System.currentTimeMillis() - task.start;
+            this.handled.incrementAndGet();
+            this.latency.addAndGet(msec);
+            if (done) {
+                task.receipt.success();
+                Logger.info(
+                    this, "email to %s handled in %[ms]s, %d waiting",
+                    task.key, msec, this.depth()
+                );
+            } else {
+                task.receipt.failure();
+                Logger.error(
+                    this, "email to %s failed %d times in %[ms]s, %d waiting",
+                    task.key, Inbound.ATTEMPTS, msec, this.depth()
+                );
+            }
+        }
+    }
+
+    /**
+     * Run the action with the message, trying again when it fails.
+     * @param task The message
+     * @return TRUE if the action is done with it
+     * @throws InterruptedException If interrupted
+     */
+    @SuppressWarnings("PMD.AvoidCatchingGenericException")
+    private boolean handle(final Inbound.Task task)
+        throws InterruptedException {
+        boolean done = false;
+        long delay = TimeUnit.SECONDS.toMillis(1L);
+        for (int attempt = 1; attempt <= Inbound.ATTEMPTS; ++attempt) {
+            try {
+                this.action.run(task.message);
+                done = true;
+                break;
+            } catch (final RuntimeException ex) {
+                Logger.warn(
+                    this, "email to %s failed, attempt %d of %d: %[exception]s",
+                    task.key, attempt, Inbound.ATTEMPTS, ex
+                );
+            }
+            if (attempt < Inbound.ATTEMPTS) {
+                TimeUnit.MILLISECONDS.sleep(delay);
+                delay *= 2L;
+            }
+        }
+        return done;
+    }
+
+    /**
+     * Key of the stripe, made of the recipient.
+     * @param msg The message
+     * @return Key
+     * @throws MessagingException If fails
+     */
+    private static String key(final Message msg) throws MessagingException {
+        final Address[] recipients = msg.getAllRecipients();
+        final String key;
+        if (recipients == null || recipients.length == 0) {
+            key = "";
+        } else if (recipients[0] instanceof InternetAddress) {
+            key = InternetAddress.class.cast(recipients[0]).getAddress()
+                .toLowerCase(Locale.ENGLISH);
+        } else {
+            key = recipients[0].toString().toLowerCase(Locale.ENGLISH);
+        }
+        return key;
+    }
+
+    /**
+     * Message to handle.
+     */
+    private static final class Task {
+        /**
+         * The message.
+         */
+        private final transient Message message;
+        /**
+         * Key of the stripe.
+         */
+        private final transient String key;
+        /**
+         * Receipt of the message.
+         */
+        private final transient Inbound.Receipt receipt;
+        /**
+         * When it was accepted, in msec.
+         */
+        private final transient long start;
+        /**
+         * Ctor.
+         * @param msg The message
+         * @param label Key of the stripe
+         * @param rcpt Receipt of the message
+         * @param when When it was accepted
+         */
+        Task(final Message msg, final String label,
+            final Inbound.Receipt rcpt, final long when) {
+            this.message = msg;
+            this.key = label;
+            this.receipt = rcpt;
+            this.start = when;
+        }
+    }
+
+    /**
+     * What the pipeline tells about every message accepted.
+     */
+    interface Receipt {
+        /**
+         * The action is done with the message.
+         */
+        void success();
+        /**
+         * The message can't be parsed, or the action failed with it
+         * every time it was tried.
+         */
+        void failure();
+    }
+
+    /**
+     * Wait until there is room in the queue.
+     */
+    private static final class Wait implements RejectedExecutionHandler {
+        @Override
+        public void rejectedExecution(final Runnable task,
+            final ThreadPoolExecutor executor) {
+            if (!executor.isShutdown()) {
+                try {
+                    executor.getQueue().put(task);
+                } catch (final InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException(ex);
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,632 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.email;
+
+import com.google.common.base.Joiner;
+import com.jcabi.aspects.Tv;
+import com.jcabi.email.Envelope;
+import com.jcabi.email.Postman;
+import com.jcabi.log.Logger;
+import com.jcabi.log.VerboseRunnable;
+import com.jcabi.log.VerboseThreads;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.mail.Address;
+import javax.mail.Message;
+import javax.mail.MessagingException;
+import javax.mail.Multipart;
+import javax.mail.Session;
+import javax.mail.internet.MimeBodyPart;
+import javax.mail.internet.MimeMessage;
+import javax.mail.internet.MimeMultipart;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.io.FileUtils;
+
+/**
+ * Postman that keeps outgoing emails in a journal and delivers
+ * them in background.
+ *
+ * <p>Every envelope is appended to the journal file before
+ * {@link #send(Envelope)} returns, and is marked there as delivered
+ * when the origin postman sends it. Envelopes not delivered yet are
+ * read back from the journal when the outbox is opened again, after
+ * a restart or a crash. The journal is truncated when everything
+ * in it is delivered and it's big enough. A record torn by a crash
+ * at the end of the journal, or any other broken record, is skipped
+ * and removed from it.
+ *
+ * <p>Envelopes with the same recipients and the same subject, which
+ * are messages of one bout to one friend, are collected during a
+ * window and sent as one email, with parts of all of them. When the
+ * origin postman fails, the email is tried again later, with longer
+ * and longer delays, up to ten times.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 2.15
+ * @checkstyle ClassDataAbstractionCouplingCheck (500 lines)
+ */
+@ToString(of = "journal")
+@EqualsAndHashCode(of = "journal")
+@SuppressWarnings({ "PMD.DoNotUseThreads", "PMD.TooManyMethods" })
+public final class PostOutbox implements Postman, Closeable {
+
+    /**
+     * Journal record of a new envelope.
+     */
+    private static final String ADDED = "+";
+
+    /**
+     * Journal record of a delivered envelope.
+     */
+    private static final String DONE = "-";
+
+    /**
+     * How many times to try to deliver an email.
+     */
+    private static final int ATTEMPTS = Tv.TEN;
+
+    /**
+     * Longest delay between attempts, in msec.
+     */
+    private static final long LONGEST = TimeUnit.HOURS.toMillis(1L);
+
+    /**
+     * Journal is truncated when it's longer than this, in bytes.
+     */
+    private static final long TOO_LONG = (long) Tv.MILLION;
+
+    /**
+     * Original postman.
+     */
+    private final transient Postman origin;
+
+    /**
+     * Journal file.
+     */
+    private final transient File journal;
+
+    /**
+     * Collecting window, in msec.
+     */
+    private final transient long window;
+
+    /**
+     * Digests not sent yet, by their keys.
+     */
+    private final transient Map<String, PostOutbox.Digest> digests =
+        new HashMap<>(0);
+
+    /**
+     * Last envelope number.
+     */
+    private final transient AtomicLong last = new AtomicLong();
+
+    /**
+     * Envelopes in the journal, not delivered yet.
+     */
+    private final transient AtomicLong waiting = new AtomicLong();
+
+    /**
+     * Timer that looks for digests ready to go.
+     */
+    private final transient ScheduledExecutorService timer =
+        Executors.newSingleThreadScheduledExecutor(
+            new VerboseThreads(PostOutbox.class)
+        );
+
+    /**
+     * Threads that deliver digests.
+     */
+    private final transient ExecutorService workers =
+        Executors.newFixedThreadPool(
+            Tv.FOUR, new VerboseThreads(PostOutbox.class)
+        );
+
+    /**
+     * Ctor, with one minute window.
+     * @param pst Original postman
+     * @param dir Directory to keep the journal in
+     * @throws IOException If fails to read the journal
+     */
+    public PostOutbox(final Postman pst, final File dir) throws IOException {
+        this(pst, dir, TimeUnit.MINUTES.toMillis(1L));
+    }
+
+    /**
+     * Ctor.
+     * @param pst Original postman
+     * @param dir Directory to keep the journal in
+     * @param msec Collecting window, in msec
+     * @throws IOException If fails to read the journal
+     */
+    public PostOutbox(final Postman pst, final File dir, final long msec)
+        throws IOException {
+        this.origin = pst;
+        this.journal = new File(dir, "outbox.journal");
+        this.window = msec;
+        this.replay();
+        this.timer.scheduleWithFixedDelay(
+            new VerboseRunnable(
+                new Runnable() {
+                    @Override
+                    public void run() {
+                        PostOutbox.this.flush();
+                    }
+                },
+                true
+            ),
+            0L, Math.max(msec / (long) Tv.TEN, 1L), TimeUnit.MILLISECONDS
+        );
+    }
+
+    @Override
+    public void send(final Envelope env) throws IOException {
+        final byte[] mime = PostOutbox.bytes(env.unwrap());
+        final long number = this.last.incrementAndGet();
+        this.record(
+            String.format(
+                "%s %d %s", PostOutbox.ADDED, number,
+                Base64.encodeBase64String(mime)
+            ),
+            1L
+        );
+        this.collect(number, mime);
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.timer.shutdown();
+        this.workers.shutdown();
+        try {
+            this.workers.awaitTermination(1L, TimeUnit.MINUTES);
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Read envelopes not delivered yet from the journal, and leave only
+     * them there.
+     * @throws IOException If fails
+     */
+    private void replay() throws IOException {
+        final Map<Long, String> lines = new LinkedHashMap<>(0);
+        if (this.journal.exists()) {
+            for (final String line : this.records()) {
+                final String[] parts = line.split(" ");
+                if (!PostOutbox.valid(parts)) {
+                    Logger.warn(
+                        this, "broken record skipped in %s: %[text]s",
+                        this.journal, line
+                    );
+                    continue;
+                }
+                final long number = Long.parseLong(parts[1]);
+                if (PostOutbox.ADDED.equals(parts[0])) {
+                    lines.put(number, line);
+                } else {
+                    lines.remove(number);
+                }
+                this.last.set(Math.max(this.last.get(), number));
+            }
+        } else {
+            FileUtils.forceMkdir(this.journal.getParentFile());
+        }
+        final File temp = new File(
+            this.journal.getParentFile(),
+            String.format("%s.tmp", this.journal.getName())
+        );
+        FileUtils.writeLines(
+            temp, StandardCharsets.UTF_8.name(), lines.values()
+        );
+        if (!temp.renameTo(this.journal)) {
+            throw new IOException(
+                String.format("can't rename %s to %s", temp, this.journal)
+            );
+        }
+        this.waiting.set((long) lines.size());
+        for (final Map.Entry<Long, String> ent : lines.entrySet()) {
+            this.collect(
+                ent.getKey(),
+                Base64.decodeBase64(ent.getValue().split(" ")[2])
+            );
+        }
+        if (!lines.isEmpty()) {
+            Logger.info(
+                this, "%d email(s) not delivered yet found in %s",
+                lines.size(), this.journal
+            );
+        }
+    }
+
+    /**
+     * Records of the journal, without the last one if it's torn.
+     * @return Lines
+     * @throws IOException If fails
+     */
+    private Collection<String> records() throws IOException {
+        String text = FileUtils.readFileToString(
+            this.journal, StandardCharsets.UTF_8
+        );
+        if (!text.isEmpty() && text.charAt(text.length() - 1) != '\n') {
+            final int end = text.lastIndexOf('\n') + 1;
+            Logger.warn(
+                this, "torn record at the end of %s removed: %[text]s",
+                this.journal, text.substring(end)
+            );
+            text = text.substring(0, end);
+        }
+        final Collection<String> lines = new ArrayList<>(0);
+        for (final String line : text.split("\r?\n")) {
+            if (!line.isEmpty()) {
+                lines.add(line);
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Is it a complete record, which is either "+ number base64"
+     * or "- number".
+     * @param parts Parts of the record
+     * @return TRUE if it's valid
+     */
+    private static boolean valid(final String... parts) {
+        final boolean valid;
+        if (parts.length < 2 || !parts[1].matches("\\d{1,18}")) {
+            valid = false;
+        } else if (PostOutbox.ADDED.equals(parts[0])) {
+            valid = parts.length == Tv.THREE
+                && Base64.isBase64(parts[2]) && !parts[2].isEmpty();
+        } else {
+            valid = PostOutbox.DONE.equals(parts[0]) && parts.length == 2;
+        }
+        return valid;
+    }
+
+    /**
+     * Add an envelope to its digest.
+     * @param number Number of envelope
+     * @param mime The envelope, as MIME
+     * @throws IOException If fails
+     */
+    private void collect(final long number, final byte[] mime)
+        throws IOException {
+        final String key = PostOutbox.key(mime);
+        synchronized (this.digests) {
+            PostOutbox.Digest digest = this.digests.get(key);
+            if (digest == null) {
+                digest = new PostOutbox.Digest(
+                    key, System.currentTimeMillis() + this.window
+                );
+                this.digests.put(key, digest);
+            }
+            digest.add(number, mime);
+        }
+    }
+
+    /**
+     * Deliver all digests which are ready to go.
+     */
+    private void flush() {
+        final long now = System.currentTimeMillis();
+        synchronized (this.digests) {
+            final Iterator<PostOutbox.Digest> iterator =
+                this.digests.values().iterator();
+            while (iterator.hasNext()) {
+                final PostOutbox.Digest digest = iterator.next();
+                if (digest.due > now) {
+                    continue;
+                }
+                iterator.remove();
+                this.workers.submit(
+                    new VerboseRunnable(
+                        new Runnable() {
+                            @Override
+                            public void run() {
+                                PostOutbox.this.deliver(digest);
+                            }
+                        },
+                        true
+                    )
+                );
+            }
+        }
+    }
+
+    /**
+     * Deliver one digest, or put it back to be tried later.
+     * @param digest The digest
+     */
+    private void deliver(final PostOutbox.Digest digest) {
+        final long start = System.currentTimeMillis();
+        boolean done;
+        try {
+            this.origin.send(digest.envelope());
+            Logger.info(
+                this, "%d email(s) delivered as one to %s in %[ms]s",
+                digest.numbers.size(), digest.key,
+                System.currentTimeMillis() - start
+            );
+            done = true;
+        } catch (final IOException ex) {
+            ++digest.attempts;
+            done = digest.attempts >= PostOutbox.ATTEMPTS;
+            if (done) {
+                Logger.error(
+                    this, "%d email(s) to %s lost after %d attempts: %s",
+                    digest.numbers.size(), digest.key, digest.attempts,
+                    ex.getLocalizedMessage()
+                );
+            } else {
+                Logger.warn(
+                    this, "attempt #%d to deliver email(s) to %s failed: %s",
+                    digest.attempts, digest.key, ex.getLocalizedMessage()
+                );
+                this.retry(digest);
+            }
+        }
+        if (done) {
+            try {
+                this.done(digest.numbers);
+            } catch (final IOException ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+    }
+
+    /**
+     * Put the digest back, to be tried later.
+     * @param digest The digest failed
+     */
+    private void retry(final PostOutbox.Digest digest) {
+        digest.due = System.currentTimeMillis() + Math.min(
+            this.window << digest.attempts, PostOutbox.LONGEST
+        );
+        synchronized (this.digests) {
+            final PostOutbox.Digest fresh = this.digests.get(digest.key);
+            if (fresh != null) {
+                digest.numbers.addAll(fresh.numbers);
+                digest.messages.addAll(fresh.messages);
+            }
+            this.digests.put(digest.key, digest);
+        }
+    }
+
+    /**
+     * Mark envelopes as delivered.
+     * @param numbers Their numbers
+     * @throws IOException If fails
+     */
+    private void done(final Collection<Long> numbers) throws IOException {
+        final Collection<String> lines = new ArrayList<>(numbers.size());
+        for (final Long number : numbers) {
+            lines.add(String.format("%s %d", PostOutbox.DONE, number));
+        }
+        this.record(
+            Joiner.on('\n').join(lines), -(long) numbers.size()
+        );
+    }
+
+    /**
+     * Append a record to the journal, and truncate it if it's too long
+     * and nothing is waiting.
+     * @param record The record, maybe a few lines
+     * @param delta How the number of waiting envelopes changes
+     * @throws IOException If fails
+     */
+    private void record(final String record, final long delta)
+        throws IOException {
+        synchronized (this.journal) {
+            final FileOutputStream output =
+                new FileOutputStream(this.journal, true);
+            try {
+                output.write(
+                    String.format("%s%n", record)
+                        .getBytes(StandardCharsets.UTF_8)
+                );
+                output.getFD().sync();
+            } finally {
+                output.close();
+            }
+            if (this.waiting.addAndGet(delta) == 0L
+                && this.journal.length() > PostOutbox.TOO_LONG) {
+                new FileOutputStream(this.journal).close();
+            }
+        }
+    }
+
+    /**
+     * Key of the digest the message belongs to.
+     * @param mime The message, as MIME
+     * @return Recipients and subject
+     * @throws IOException If fails
+     */
+    private static String key(final byte[] mime) throws IOException {
+        try {
+            final Message msg = PostOutbox.message(mime);
+            final Collection<String> parts = new ArrayList<>(1);
+            final Address[] recipients = msg.getAllRecipients();
+            if (recipients != null) {
+                for (final Address addr : recipients) {
+                    parts.add(addr.toString());
+                }
+            }
+            parts.add(String.valueOf(msg.getSubject()));
+            return Joiner.on(' ').join(parts);
+        } catch (final MessagingException ex) {
+            throw new IOException(ex);
+        }
+    }
+
+    /**
+     * Read MIME message.
+     * @param mime Bytes
+     * @return Message
+     * @throws MessagingException If fails
+     */
+    private static MimeMessage message(final byte[] mime)
+        throws MessagingException {
+        return new MimeMessage(
+            Session.getInstance(new Properties()),
+            new ByteArrayInputStream(mime)
+        );
+    }
+
+    /**
+     * Write MIME message.
+     * @param msg Message
+     * @return Bytes
+     * @throws IOException If fails
+     */
+    private static byte[] bytes(final Message msg) throws IOException {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try {
+            msg.writeTo(baos);
+        } catch (final MessagingException ex) {
+            throw new IOException(ex);
+        }
+        return baos.toByteArray();
+    }
+
+    /**
+     * Envelopes to be sent as one email.
+     */
+    private static final class Digest {
+        /**
+         * Recipients and subject.
+         */
+        private final transient String key;
+        /**
+         * Numbers of envelopes.
+         */
+        private final transient List<Long> numbers = new ArrayList<>(1);
+        /**
+         * Envelopes, as MIME.
+         */
+        private final transient List<byte[]> messages = new ArrayList<>(1);
+        /**
+         * When to send it, in msec.
+         */
+        private transient long due;
+        /**
+         * How many attempts failed.
+         */
+        private transient int attempts;
+        /**
+         * Ctor.
+         * @param label Recipients and subject
+         * @param when When to send it
+         */
+        Digest(final String label, final long when) {
+            this.key = label;
+            this.due = when;
+        }
+        /**
+         * Add envelope.
+         * @param number Its number
+         * @param mime The envelope, as MIME
+         */
+        public void add(final long number, final byte[] mime) {
+            this.numbers.add(number);
+            this.messages.add(mime);
+        }
+        /**
+         * Make an envelope with all messages, or with the only one.
+         * @return Envelope
+         */
+        public Envelope envelope() {
+            final List<byte[]> all = new ArrayList<>(this.messages);
+            return new Envelope() {
+                @Override
+                public Message unwrap() throws IOException {
+                    try {
+                        return PostOutbox.Digest.merge(all);
+                    } catch (final MessagingException ex) {
+                        throw new IOException(ex);
+                    }
+                }
+            };
+        }
+        /**
+         * Merge messages into one, with headers of the last one and
+         * body parts of all of them.
+         * @param all Messages, as MIME
+         * @return Message
+         * @throws MessagingException If fails
+         * @throws IOException If fails
+         */
+        private static Message merge(final List<byte[]> all)
+            throws MessagingException, IOException {
+            final MimeMessage msg =
+                PostOutbox.message(all.get(all.size() - 1));
+            if (all.size() > 1) {
+                final Multipart multi = new MimeMultipart();
+                for (final byte[] mime : all) {
+                    final MimeMessage part = PostOutbox.message(mime);
+                    final Object content = part.getContent();
+                    if (content instanceof Multipart) {
+                        final Multipart parts = Multipart.class.cast(content);
+                        for (int idx = 0; idx < parts.getCount(); ++idx) {
+                            multi.addBodyPart(parts.getBodyPart(idx));
+                        }
+                    } else {
+                        final MimeBodyPart body = new MimeBodyPart();
+                        body.setContent(content, part.getContentType());
+                        multi.addBodyPart(body);
+                    }
+                }
+                msg.setContent(multi);
+                msg.saveChanges();
+            }
+            return msg;
+        }
+    }
+
+}
@@ -26,17 +26,24 @@
  */
 package com.netbout.rest;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
 import com.jcabi.aspects.Immutable;
 import com.jcabi.aspects.RetryOnFailure;
+import com.jcabi.aspects.Tv;
 import com.jcabi.log.Logger;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 import java.util.logging.Level;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import javax.validation.constraints.NotNull;
 import org.apache.commons.codec.CharEncoding;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.io.IOUtils;
 import org.pegdown.PegDownProcessor;
 import org.w3c.tidy.Tidy;
@@ -62,9 +69,46 @@ public final class Markdown {
     );
 
     /**
-     * Tidy.
+     * Tidy, one per thread, since it's not thread-safe.
      */
-    private static final Tidy TIDY = Markdown.makeTidy();
+    private static final ThreadLocal<Tidy> TIDY = new ThreadLocal<Tidy>() {
+        @Override
+        protected Tidy initialValue() {
+            return Markdown.makeTidy();
+        }
+    };
+
+    /**
+     * PegDown processor, one per thread, since it's not thread-safe.
+     */
+    private static final ThreadLocal<PegDownProcessor> PEGDOWN =
+        new ThreadLocal<PegDownProcessor>() {
+            @Override
+            protected PegDownProcessor initialValue() {
+                return new PegDownProcessor();
+            }
+        };
+
+    /**
+     * Rendered HTML by SHA-256 of the source text.
+     *
+     * <p>The text of a message never changes after it is posted, so
+     * the HTML is rendered once and then taken from here, until it is
+     * pushed out by fresher texts. The cache is bounded by the total
+     * length of HTML kept.
+     */
+    private static final Cache<String, String> CACHE = CacheBuilder
+        .newBuilder()
+        .maximumWeight((long) Tv.FOUR * (long) Tv.MILLION)
+        .weigher(
+            new Weigher<String, String>() {
+                @Override
+                public int weigh(final String key, final String html) {
+                    return key.length() + html.length();
+                }
+            }
+        )
+        .build();
 
     /**
      * Plain link detection pattern.
@@ -93,17 +137,35 @@ public final class Markdown {
      */
     @RetryOnFailure(verbose = true)
     public String html() {
-        synchronized (Markdown.TIDY) {
-            return LINK_WHITESPACE.matcher(
-                Markdown.clean(
-                    new PegDownProcessor().markdownToHtml(
-                        Markdown.formatLinks(this.text)
-                    )
-                )
-            ).replaceAll("$1 $2");
+        try {
+            return Markdown.CACHE.get(
+                DigestUtils.sha256Hex(this.text),
+                new Callable<String>() {
+                    @Override
+                    public String call() {
+                        return Markdown.this.render();
+                    }
+                }
+            );
+        } catch (final ExecutionException ex) {
+            throw new IllegalStateException(ex);
         }
     }
 
+    /**
+     * Render it to HTML, without cache.
+     * @return The HTML
+     */
+    private String render() {
+        return LINK_WHITESPACE.matcher(
+            Markdown.clean(
+                Markdown.PEGDOWN.get().markdownToHtml(
+                    Markdown.formatLinks(this.text)
+                )
+            )
+        ).replaceAll("$1 $2");
+    }
+
     /**
      * Clean the XML.
      * @param xml The XML to clean
@@ -112,7 +174,7 @@ public final class Markdown {
     private static String clean(final String xml) {
         try {
             final ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            Markdown.TIDY.parse(
+            Markdown.TIDY.get().parse(
                 IOUtils.toInputStream(xml, CharEncoding.UTF_8),
                 baos
             );
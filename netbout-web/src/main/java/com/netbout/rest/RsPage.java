@@ -37,12 +37,13 @@ import org.takes.facets.fork.Fork;
 import org.takes.facets.fork.RsFork;
 import org.takes.misc.Opt;
 import org.takes.rq.RqHeaders;
-import org.takes.rs.RsWithType;
 import org.takes.rs.RsWrap;
-import org.takes.rs.RsXSLT;
-import org.takes.rs.xe.RsXembly;
+import org.takes.rs.xe.XeChain;
 import org.takes.rs.xe.XeSource;
 import org.takes.rs.xe.XeStylesheet;
+import org.w3c.dom.Node;
+import org.xembly.ImpossibleModificationException;
+import org.xembly.Xembler;
 
 /**
  * Index resource, front page of the website.
@@ -81,11 +82,11 @@ public final class RsPage extends RsWrap {
      */
     private static Response make(final String xsl, final Base base,
         final Request req, final XeSource... src) throws IOException {
-        final Response xbl = new RsXembly(
-            new XeStylesheet(xsl),
-            new XePage(base, req, src)
+        final Node dom = RsPage.dom(
+            new XeChain(new XeStylesheet(xsl), new XePage(base, req, src))
         );
-        final Response raw = new RsWithType(xbl, "text/xml");
+        final Response raw = Xslt.xml(dom);
+        final Response html = new Xslt(xsl).html(dom);
         return new RsFork(
             req,
             new Fork() {
@@ -97,10 +98,7 @@ public final class RsPage extends RsWrap {
                         hdr.header("User-Agent").iterator();
                     final Opt<Response> opt;
                     if (agent.hasNext() && agent.next().contains("Firefox")) {
-                        opt = new Opt.Single<Response>(
-                            // @checkstyle MultipleStringLiteralsCheck (1 line)
-                            new RsXSLT(new RsWithType(raw, "text/html"))
-                        );
+                        opt = new Opt.Single<Response>(html);
                     } else {
                         opt = new Opt.Empty<>();
                     }
@@ -108,11 +106,22 @@ public final class RsPage extends RsWrap {
                 }
             },
             new FkTypes("application/xml,text/xml", raw),
-            new FkTypes(
-                "*/*",
-                new RsXSLT(new RsWithType(raw, "text/html"))
-            )
+            new FkTypes("*/*", html)
         );
     }
 
+    /**
+     * Build the document, once for all forks.
+     * @param src Source
+     * @return DOM
+     * @throws IOException If fails
+     */
+    private static Node dom(final XeSource src) throws IOException {
+        try {
+            return new Xembler(src.toXembly()).dom();
+        } catch (final ImpossibleModificationException ex) {
+            throw new IOException(ex);
+        }
+    }
+
 }
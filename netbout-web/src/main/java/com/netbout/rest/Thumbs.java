@@ -0,0 +1,309 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.rest;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+import com.google.common.net.HttpHeaders;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.jcabi.aspects.Tv;
+import com.jcabi.http.request.JdkRequest;
+import com.jcabi.http.response.RestResponse;
+import com.jcabi.http.wire.AutoRedirectingWire;
+import com.jcabi.http.wire.OneMinuteWire;
+import com.jcabi.http.wire.RetryWire;
+import com.jcabi.log.Logger;
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.imageio.ImageIO;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
+
+/**
+ * Store of thumbnails of photos.
+ *
+ * <p>A thumbnail is rendered once per photo URL and saved to disk, under
+ * a name made of the alias and its photo URL, so a new photo gets a new
+ * thumbnail and the old one is never seen again. The most popular
+ * thumbnails are also kept in memory. When many requests ask for
+ * the same missing thumbnail at once, only one of them renders it
+ * and the others wait for it.
+ *
+ * <p>The directory is set by "netbout.thumbs" system property and should
+ * be on a disk that survives restarts, or all thumbnails are rendered
+ * again. Every thumbnail read from disk is touched, and at most once an
+ * hour, after a new one is saved, those not touched for {@link #AGE}
+ * milliseconds are deleted, and then the oldest ones above
+ * {@link #MAX} files, so disk use doesn't grow with every new photo.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 2.15
+ */
+@ToString(of = "dir")
+@EqualsAndHashCode(of = "dir")
+final class Thumbs {
+
+    /**
+     * Thumbnails in memory, by their names.
+     */
+    private static final Cache<String, byte[]> MEMORY = CacheBuilder
+        .newBuilder()
+        .maximumWeight((long) Tv.TEN << Tv.TWENTY)
+        .weigher(
+            new Weigher<String, byte[]>() {
+                @Override
+                public int weigh(final String key, final byte[] value) {
+                    return value.length;
+                }
+            }
+        )
+        .build();
+
+    /**
+     * How long a thumbnail is kept on disk after it was last read,
+     * in milliseconds.
+     */
+    private static final long AGE = TimeUnit.DAYS.toMillis((long) Tv.THIRTY);
+
+    /**
+     * Most thumbnails kept on disk.
+     */
+    private static final int MAX = Tv.FIFTY * Tv.THOUSAND;
+
+    /**
+     * When old thumbnails were deleted last time, in milliseconds.
+     */
+    private static final AtomicLong CLEANED = new AtomicLong();
+
+    /**
+     * Directory with thumbnails.
+     */
+    private final transient File dir;
+
+    /**
+     * Ctor.
+     */
+    Thumbs() {
+        this(
+            new File(
+                System.getProperty(
+                    "netbout.thumbs",
+                    new File(
+                        System.getProperty("user.home"), ".netbout-thumbs"
+                    ).getPath()
+                )
+            )
+        );
+    }
+
+    /**
+     * Ctor.
+     * @param path Directory with thumbnails
+     */
+    Thumbs(final File path) {
+        this.dir = path;
+    }
+
+    /**
+     * Get the thumbnail, rendering it if necessary.
+     * @param alias Alias
+     * @param photo URL of the photo
+     * @return PNG image
+     * @throws IOException If fails
+     */
+    public byte[] get(final String alias, final URI photo)
+        throws IOException {
+        final String name = Thumbs.name(alias, photo);
+        try {
+            return Thumbs.MEMORY.get(
+                name,
+                new Callable<byte[]>() {
+                    @Override
+                    public byte[] call() throws IOException {
+                        return Thumbs.this.load(
+                            alias, photo, new File(Thumbs.this.dir, name)
+                        );
+                    }
+                }
+            );
+        } catch (final ExecutionException ex) {
+            throw IOException.class.cast(ex.getCause());
+        } catch (final UncheckedExecutionException ex) {
+            throw RuntimeException.class.cast(ex.getCause());
+        }
+    }
+
+    /**
+     * Name of the thumbnail.
+     * @param alias Alias
+     * @param photo URL of the photo
+     * @return File name
+     */
+    static String name(final String alias, final URI photo) {
+        return String.format(
+            "%s-%s.png", alias, DigestUtils.sha256Hex(photo.toString())
+        );
+    }
+
+    /**
+     * Delete thumbnails not read for too long, and the oldest of them
+     * when there are too many.
+     * @return How many were deleted
+     */
+    int clean() {
+        final File[] files = this.dir.listFiles();
+        int deleted = 0;
+        if (files != null) {
+            Arrays.sort(
+                files,
+                new Comparator<File>() {
+                    @Override
+                    public int compare(final File left, final File right) {
+                        return Long.compare(
+                            right.lastModified(), left.lastModified()
+                        );
+                    }
+                }
+            );
+            final long oldest = System.currentTimeMillis() - Thumbs.AGE;
+            for (int idx = 0; idx < files.length; ++idx) {
+                if ((idx >= Thumbs.MAX || files[idx].lastModified() < oldest)
+                    && files[idx].delete()) {
+                    ++deleted;
+                }
+            }
+            Logger.info(
+                this, "%d old thumbnail(s) deleted from %s, %d left",
+                deleted, this.dir, files.length - deleted
+            );
+        }
+        return deleted;
+    }
+
+    /**
+     * Read the thumbnail from disk, or render and save it.
+     * @param alias Alias
+     * @param photo URL of the photo
+     * @param file The file of the thumbnail
+     * @return PNG image
+     * @throws IOException If fails
+     */
+    private byte[] load(final String alias, final URI photo,
+        final File file) throws IOException {
+        final byte[] png;
+        if (file.exists()) {
+            png = FileUtils.readFileToByteArray(file);
+            if (!file.setLastModified(System.currentTimeMillis())) {
+                Logger.warn(this, "failed to touch %s", file);
+            }
+        } else {
+            final long start = System.currentTimeMillis();
+            png = Thumbs.render(photo);
+            this.save(file, png);
+            Logger.info(
+                this, "thumbnail of @%s rendered in %[ms]s",
+                alias, System.currentTimeMillis() - start
+            );
+        }
+        return png;
+    }
+
+    /**
+     * Save the thumbnail to disk, atomically.
+     * @param file The file to save to
+     * @param png PNG image
+     * @throws IOException If fails
+     */
+    private void save(final File file, final byte[] png) throws IOException {
+        if (this.dir.mkdirs()) {
+            Logger.info(this, "directory %s created", this.dir);
+        }
+        final File temp = File.createTempFile("thumb", ".png", this.dir);
+        FileUtils.writeByteArrayToFile(temp, png);
+        if (!temp.renameTo(file) && !temp.delete()) {
+            Logger.warn(this, "failed to delete %s", temp);
+        }
+        final long now = System.currentTimeMillis();
+        final long last = Thumbs.CLEANED.get();
+        if (now - last > TimeUnit.HOURS.toMillis(1L)
+            && Thumbs.CLEANED.compareAndSet(last, now)) {
+            this.clean();
+        }
+    }
+
+    /**
+     * Fetch the photo and render its thumbnail.
+     * @param photo URL of the photo
+     * @return PNG image
+     * @throws IOException If fails
+     */
+    private static byte[] render(final URI photo) throws IOException {
+        final byte[] img = new JdkRequest(photo)
+            .through(AutoRedirectingWire.class)
+            .through(RetryWire.class)
+            .through(OneMinuteWire.class)
+            .header(HttpHeaders.ACCEPT, "image/*")
+            .header(HttpHeaders.USER_AGENT, "Netbout.com")
+            .fetch()
+            .as(RestResponse.class)
+            .assertStatus(HttpURLConnection.HTTP_OK)
+            .binary();
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(img));
+        if (image == null) {
+            image = ImageIO.read(new URL("http://img.netbout.com/unknown.png"));
+        }
+        final Image thumb = image.getScaledInstance(
+            Tv.HUNDRED, -1, Image.SCALE_SMOOTH
+        );
+        final BufferedImage bthumb = new BufferedImage(
+            thumb.getWidth(null), thumb.getHeight(null),
+            BufferedImage.TYPE_INT_RGB
+        );
+        bthumb.getGraphics().drawImage(thumb, 0, 0, null);
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ImageIO.write(bthumb, "png", baos);
+        return baos.toByteArray();
+    }
+
+}
@@ -34,26 +34,75 @@ import java.awt.image.BufferedImage;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
 import javax.imageio.ImageIO;
 import org.takes.Request;
 import org.takes.Response;
 import org.takes.Take;
 import org.takes.rq.RqHref;
 import org.takes.rs.RsWithBody;
+import org.takes.rs.RsWithHeader;
 import org.takes.rs.RsWithType;
 
 /**
  * Favicon rendering.
  *
+ * <p>There are only a hundred different icons, they are all rendered
+ * once, when the class is loaded. The URL of every icon has the number
+ * in it, so browsers may keep them for a long time.
+ *
  * @author Yegor Bugayenko (yegor@teamed.io)
  * @version $Id$
  * @since 2.14
  */
 public final class TkFavicon implements Take {
 
+    /**
+     * All icons, for zero to 99 unread messages.
+     */
+    private static final byte[][] ICONS = TkFavicon.icons();
+
     @Override
     public Response act(final Request req) throws IOException {
-        final long unread = TkFavicon.unread(req);
+        final long unread = Math.max(
+            0L,
+            Math.min(TkFavicon.unread(req), (long) TkFavicon.ICONS.length - 1L)
+        );
+        return new RsWithHeader(
+            new RsWithType(
+                new RsWithBody(TkFavicon.ICONS[(int) unread]),
+                "image/gif"
+            ),
+            "Cache-Control",
+            String.format(
+                "public, max-age=%d", TimeUnit.DAYS.toSeconds((long) Tv.THIRTY)
+            )
+        );
+    }
+
+    /**
+     * Render all icons.
+     * @return GIF images
+     */
+    private static byte[][] icons() {
+        final byte[][] icons = new byte[Tv.HUNDRED][];
+        try {
+            for (int idx = 0; idx < icons.length; ++idx) {
+                icons[idx] = TkFavicon.render(idx);
+            }
+        } catch (final IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+        return icons;
+    }
+
+    /**
+     * Render one icon.
+     * @param unread Number of unread messages, below 100
+     * @return GIF image
+     * @throws IOException If fails
+     */
+    private static byte[] render(final int unread) throws IOException {
         final int width = 64;
         final int height = 64;
         final BufferedImage image = new BufferedImage(
@@ -63,13 +112,8 @@ public final class TkFavicon implements Take {
         // @checkstyle MagicNumber (1 line)
         graph.setColor(new Color(0x4b, 0x42, 0x50));
         graph.fillRect(0, 0, width, height);
-        if (unread > 0L) {
-            final String text;
-            if (unread >= (long) Tv.HUNDRED) {
-                text = "99";
-            } else {
-                text = Long.toString(unread);
-            }
+        if (unread > 0) {
+            final String text = Integer.toString(unread);
             graph.setColor(Color.WHITE);
             graph.setFont(new Font(Font.SANS_SERIF, Font.BOLD, height / 2));
             graph.drawString(
@@ -81,10 +125,7 @@ public final class TkFavicon implements Take {
         }
         final ByteArrayOutputStream baos = new ByteArrayOutputStream();
         ImageIO.write(image, "gif", baos);
-        return new RsWithType(
-            new RsWithBody(baos.toByteArray()),
-            "image/gif"
-        );
+        return baos.toByteArray();
     }
 
     /**
@@ -27,29 +27,19 @@
 package com.netbout.rest;
 
 import com.google.common.collect.Iterables;
-import com.google.common.net.HttpHeaders;
-import com.jcabi.aspects.Tv;
-import com.jcabi.http.request.JdkRequest;
-import com.jcabi.http.response.RestResponse;
-import com.jcabi.http.wire.AutoRedirectingWire;
-import com.jcabi.http.wire.OneMinuteWire;
-import com.jcabi.http.wire.RetryWire;
 import com.netbout.spi.Base;
 import com.netbout.spi.Friend;
 import com.netbout.spi.User;
-import java.awt.Image;
-import java.awt.image.BufferedImage;
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.net.HttpURLConnection;
-import java.net.URL;
+import java.net.URI;
 import java.util.concurrent.TimeUnit;
-import javax.imageio.ImageIO;
 import org.takes.Response;
 import org.takes.facets.fork.RqRegex;
 import org.takes.facets.fork.TkRegex;
 import org.takes.facets.forward.RsFailure;
+import org.takes.rq.RqHeaders;
 import org.takes.rs.RsFluent;
 
 /**
@@ -67,12 +57,28 @@ public final class TkFriend implements TkRegex {
      */
     private final transient Base base;
 
+    /**
+     * Thumbnails.
+     */
+    private final transient Thumbs thumbs;
+
     /**
      * Ctor.
      * @param bse Base
      */
     public TkFriend(final Base bse) {
+        this(bse, new Thumbs());
+    }
+
+    /**
+     * Ctor.
+     * @param bse Base
+     * @param tmbs Thumbnails
+     * @since 2.15
+     */
+    TkFriend(final Base bse, final Thumbs tmbs) {
         this.base = bse;
+        this.thumbs = tmbs;
     }
 
     @Override
@@ -91,32 +97,24 @@ public final class TkFriend implements TkRegex {
                 String.format("alias \"%s\" is not found", alias)
             );
         }
-        final byte[] img = new JdkRequest(friend.photo())
-            .through(AutoRedirectingWire.class)
-            .through(RetryWire.class)
-            .through(OneMinuteWire.class)
-            .header(HttpHeaders.ACCEPT, "image/*")
-            .header(HttpHeaders.USER_AGENT, "Netbout.com")
-            .fetch()
-            .as(RestResponse.class)
-            .assertStatus(HttpURLConnection.HTTP_OK)
-            .binary();
-        BufferedImage image = ImageIO.read(new ByteArrayInputStream(img));
-        if (image == null) {
-            image = ImageIO.read(new URL("http://img.netbout.com/unknown.png"));
-        }
-        final Image thumb = image.getScaledInstance(
-            Tv.HUNDRED, -1, Image.SCALE_SMOOTH
+        final URI photo = friend.photo();
+        final String etag = String.format(
+            "\"%s\"", Thumbs.name(alias, photo)
         );
-        final BufferedImage bthumb = new BufferedImage(
-            thumb.getWidth(null), thumb.getHeight(null),
-            BufferedImage.TYPE_INT_RGB
-        );
-        bthumb.getGraphics().drawImage(thumb, 0, 0, null);
-        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        ImageIO.write(bthumb, "png", baos);
-        return new RsFluent()
-            .withType("image/png")
+        final RsFluent response;
+        if (new RqHeaders.Smart(new RqHeaders.Base(req))
+            .single("If-None-Match", "").equals(etag)) {
+            response = new RsFluent().withStatus(
+                HttpURLConnection.HTTP_NOT_MODIFIED
+            );
+        } else {
+            response = new RsFluent()
+                .withType("image/png")
+                .withBody(
+                    new ByteArrayInputStream(this.thumbs.get(alias, photo))
+                );
+        }
+        return response
             .withHeader(
                 "Cache-Control",
                 String.format(
@@ -124,7 +122,7 @@ public final class TkFriend implements TkRegex {
                     TimeUnit.DAYS.toSeconds(1L)
                 )
             )
-            .withBody(new ByteArrayInputStream(baos.toByteArray()));
+            .withHeader("ETag", etag);
     }
 
 }
@@ -87,14 +87,14 @@ final class TkInbox implements Take {
      * @return Bouts
      * @throws IOException If fails
      */
-    private Iterable<XeSource> bouts(final Request req) throws IOException {
+    private XeSource bouts(final Request req) throws IOException {
         long since = Inbox.NEVER;
         final Iterator<String> param = new RqHref.Base(req).href()
             .param("since").iterator();
         if (param.hasNext()) {
             since = Long.parseLong(param.next());
         }
-        return new XeTransform<>(
+        return new XeParallel<>(
             Iterables.limit(
                 new RqAlias(this.base, req).alias()
                     .inbox().jump(since).iterate(),
@@ -134,11 +134,14 @@ final class TkInbox implements Take {
             new XeLink("open", new Href("/b").path(bout.number())),
             new XeLink(
                 "more",
-                new Href().with("since", bout.updated().getTime())
+                new Href().with(
+                    "since",
+                    Inbox.Cursor.of(bout.updated().getTime(), bout.number())
+                )
             ),
             new XeAppend(
                 "friends",
-                new XeTransform<>(
+                new XeParallel<>(
                     bout.friends().iterate(),
                     new XeTransform.Func<Friend>() {
                         @Override
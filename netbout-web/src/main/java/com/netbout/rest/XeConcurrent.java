@@ -0,0 +1,217 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.rest;
+
+import com.jcabi.aspects.Tv;
+import com.jcabi.log.Logger;
+import com.jcabi.log.VerboseThreads;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import lombok.EqualsAndHashCode;
+import org.takes.rs.xe.XeSource;
+import org.xembly.Directive;
+import org.xembly.Directives;
+
+/**
+ * Xembly sources, rendered in parallel threads.
+ *
+ * <p>Every source is rendered in its own thread, but directives are
+ * concatenated in the order of sources. When it is rendered inside
+ * another XeConcurrent, sources are rendered in the current thread,
+ * in order not to wait for the threads of the same pool.
+ *
+ * <p>The pool has as many threads as the server, and one request may
+ * use no more than {@link #LANES} of them at a time. When all of them
+ * are busy, the source is rendered in the current thread, instead
+ * of waiting in a queue behind other requests.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 2.15
+ */
+@EqualsAndHashCode(of = "sources")
+public final class XeConcurrent implements XeSource {
+
+    /**
+     * How many sources of one request may be rendered at the same time.
+     */
+    static final int LANES = Tv.EIGHT;
+
+    /**
+     * Threads to render with.
+     */
+    private static final ExecutorService THREADS =
+        XeConcurrent.pool(XeConcurrent.class);
+
+    /**
+     * TRUE if the current thread is one of {@link #THREADS}, or of
+     * the threads of {@link XeParallel}.
+     */
+    static final ThreadLocal<Boolean> INSIDE =
+        new ThreadLocal<Boolean>() {
+            @Override
+            protected Boolean initialValue() {
+                return false;
+            }
+        };
+
+    /**
+     * Sources.
+     */
+    private final transient Collection<XeSource> sources;
+
+    /**
+     * Ctor.
+     * @param srcs Sources
+     */
+    public XeConcurrent(final XeSource... srcs) {
+        this(Arrays.asList(srcs));
+    }
+
+    /**
+     * Ctor.
+     * @param srcs Sources
+     */
+    public XeConcurrent(final Collection<XeSource> srcs) {
+        this.sources = srcs;
+    }
+
+    @Override
+    public Iterable<Directive> toXembly() throws IOException {
+        final Directives dirs = new Directives();
+        if (XeConcurrent.INSIDE.get()) {
+            for (final XeSource src : this.sources) {
+                dirs.append(src.toXembly());
+            }
+        } else {
+            final long start = System.currentTimeMillis();
+            final Collection<Future<Iterable<Directive>>> futures =
+                new ArrayList<>(this.sources.size());
+            final Semaphore lanes = new Semaphore(XeConcurrent.LANES);
+            for (final XeSource src : this.sources) {
+                XeConcurrent.acquire(lanes);
+                futures.add(
+                    XeConcurrent.THREADS.submit(
+                        XeConcurrent.task(src, lanes)
+                    )
+                );
+            }
+            for (final Future<Iterable<Directive>> future : futures) {
+                dirs.append(XeConcurrent.await(future));
+            }
+            Logger.debug(
+                this, "%d source(s) rendered in %[ms]s",
+                futures.size(), System.currentTimeMillis() - start
+            );
+        }
+        return dirs;
+    }
+
+    /**
+     * Make a pool of threads, as big as the pool of the server, which
+     * runs the task in the current thread when all threads are busy.
+     * @param owner Class that owns the pool
+     * @return Pool
+     */
+    static ExecutorService pool(final Class<?> owner) {
+        return new ThreadPoolExecutor(
+            0, Tv.FIFTY, 1L, TimeUnit.MINUTES,
+            new SynchronousQueue<Runnable>(),
+            new VerboseThreads(owner),
+            new ThreadPoolExecutor.CallerRunsPolicy()
+        );
+    }
+
+    /**
+     * Take a lane of the request, waiting until one is free.
+     * @param lanes Lanes of the request
+     * @throws IOException If interrupted
+     */
+    static void acquire(final Semaphore lanes) throws IOException {
+        try {
+            lanes.acquire();
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException(ex);
+        }
+    }
+
+    /**
+     * Make a task for the source.
+     * @param src The source
+     * @param lanes Lanes of the request, one of them is taken by the task
+     * @return Task
+     */
+    private static Callable<Iterable<Directive>> task(final XeSource src,
+        final Semaphore lanes) {
+        return new Callable<Iterable<Directive>>() {
+            @Override
+            public Iterable<Directive> call() throws IOException {
+                final boolean inside = XeConcurrent.INSIDE.get();
+                XeConcurrent.INSIDE.set(true);
+                try {
+                    return new Directives(src.toXembly());
+                } finally {
+                    XeConcurrent.INSIDE.set(inside);
+                    lanes.release();
+                }
+            }
+        };
+    }
+
+    /**
+     * Wait for the future.
+     * @param future The future
+     * @return Directives
+     * @throws IOException If fails
+     */
+    static Iterable<Directive> await(
+        final Future<Iterable<Directive>> future) throws IOException {
+        try {
+            return future.get();
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException(ex);
+        } catch (final ExecutionException ex) {
+            if (ex.getCause() instanceof IOException) {
+                throw IOException.class.cast(ex.getCause());
+            }
+            throw new IOException(ex.getCause());
+        }
+    }
+
+}
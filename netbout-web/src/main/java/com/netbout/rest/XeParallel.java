@@ -0,0 +1,156 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.rest;
+
+import com.jcabi.log.Logger;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import lombok.EqualsAndHashCode;
+import org.takes.rs.xe.XeSource;
+import org.takes.rs.xe.XeTransform;
+import org.xembly.Directive;
+import org.xembly.Directives;
+
+/**
+ * List of items, each transformed to Xembly in its own thread.
+ *
+ * <p>It's a parallel version of {@link XeTransform}: the function and the
+ * source it returns are evaluated for all items at the same time,
+ * while directives are concatenated in the order of items. The threads
+ * are not shared with {@link XeConcurrent}, so a list may be rendered
+ * inside it without waiting for its own pool. A list inside another
+ * list is rendered in the current thread. The pool and the limit of
+ * threads per request are the same as in {@link XeConcurrent}.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @param <T> Type of items
+ * @since 2.15
+ */
+@EqualsAndHashCode(of = { "items", "func" })
+public final class XeParallel<T> implements XeSource {
+
+    /**
+     * Threads to render with.
+     */
+    private static final ExecutorService THREADS =
+        XeConcurrent.pool(XeParallel.class);
+
+    /**
+     * TRUE if the current thread is one of {@link #THREADS}.
+     */
+    private static final ThreadLocal<Boolean> INSIDE =
+        new ThreadLocal<Boolean>() {
+            @Override
+            protected Boolean initialValue() {
+                return false;
+            }
+        };
+
+    /**
+     * Items.
+     */
+    private final transient Iterable<T> items;
+
+    /**
+     * Function to transform an item.
+     */
+    private final transient XeTransform.Func<T> func;
+
+    /**
+     * Ctor.
+     * @param list Items
+     * @param fnc Function to transform an item
+     */
+    public XeParallel(final Iterable<T> list, final XeTransform.Func<T> fnc) {
+        this.items = list;
+        this.func = fnc;
+    }
+
+    @Override
+    public Iterable<Directive> toXembly() throws IOException {
+        final Directives dirs = new Directives();
+        if (XeParallel.INSIDE.get()) {
+            for (final T item : this.items) {
+                dirs.append(this.func.transform(item).toXembly());
+            }
+        } else {
+            final long start = System.currentTimeMillis();
+            final Collection<Future<Iterable<Directive>>> futures =
+                new ArrayList<>(0);
+            final Semaphore lanes = new Semaphore(XeConcurrent.LANES);
+            for (final T item : this.items) {
+                XeConcurrent.acquire(lanes);
+                futures.add(
+                    XeParallel.THREADS.submit(this.task(item, lanes))
+                );
+            }
+            for (final Future<Iterable<Directive>> future : futures) {
+                dirs.append(XeConcurrent.await(future));
+            }
+            Logger.debug(
+                this, "%d item(s) rendered in %[ms]s",
+                futures.size(), System.currentTimeMillis() - start
+            );
+        }
+        return dirs;
+    }
+
+    /**
+     * Make a task for the item.
+     * @param item The item
+     * @param lanes Lanes of the request, one of them is taken by the task
+     * @return Task
+     */
+    private Callable<Iterable<Directive>> task(final T item,
+        final Semaphore lanes) {
+        return new Callable<Iterable<Directive>>() {
+            @Override
+            public Iterable<Directive> call() throws IOException {
+                final boolean parallel = XeParallel.INSIDE.get();
+                final boolean concurrent = XeConcurrent.INSIDE.get();
+                XeParallel.INSIDE.set(true);
+                XeConcurrent.INSIDE.set(true);
+                try {
+                    return new Directives(
+                        XeParallel.this.func.transform(item).toXembly()
+                    );
+                } finally {
+                    XeConcurrent.INSIDE.set(concurrent);
+                    XeParallel.INSIDE.set(parallel);
+                    lanes.release();
+                }
+            }
+        };
+    }
+
+}
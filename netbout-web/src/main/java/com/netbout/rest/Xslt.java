@@ -0,0 +1,312 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.rest;
+
+import com.jcabi.log.Logger;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.xml.transform.Source;
+import javax.xml.transform.Templates;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.URIResolver;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.transform.stream.StreamSource;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import org.takes.Response;
+import org.takes.rs.RsWithStatus;
+import org.takes.rs.RsWithType;
+import org.w3c.dom.Node;
+
+/**
+ * XSL stylesheet from classpath, compiled once.
+ *
+ * <p>Every stylesheet is compiled into {@link Templates} the first time
+ * it's used, and every thread keeps its own {@link Transformer} for it,
+ * since transformers are not thread-safe. Includes and documents with
+ * absolute paths are resolved from classpath, the same way
+ * {@link org.takes.rs.RsXSLT} does it, ignoring query and fragment,
+ * while relative ones are resolved against the stylesheet that refers
+ * to them.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 2.15
+ */
+@ToString(of = "path")
+@EqualsAndHashCode(of = "path")
+final class Xslt {
+
+    /**
+     * Resolver of stylesheets in classpath.
+     */
+    private static final URIResolver RESOLVER = new URIResolver() {
+        @Override
+        public Source resolve(final String href, final String base)
+            throws TransformerException {
+            final URL url = Xslt.locate(href, base);
+            if (url == null) {
+                throw new TransformerException(
+                    String.format("stylesheet %s not found", href)
+                );
+            }
+            try {
+                return new StreamSource(url.openStream(), url.toString());
+            } catch (final IOException ex) {
+                throw new TransformerException(ex);
+            }
+        }
+    };
+
+    /**
+     * Factory, to be used only under a lock on itself.
+     */
+    private static final TransformerFactory FACTORY = Xslt.factory();
+
+    /**
+     * Compiled stylesheets, by their paths.
+     */
+    private static final ConcurrentMap<String, Templates> TEMPLATES =
+        new ConcurrentHashMap<>(0);
+
+    /**
+     * Transformers of this thread, by paths of their stylesheets.
+     */
+    private static final ThreadLocal<Map<String, Transformer>> TRANSFORMERS =
+        new ThreadLocal<Map<String, Transformer>>() {
+            @Override
+            protected Map<String, Transformer> initialValue() {
+                return new HashMap<>(0);
+            }
+        };
+
+    /**
+     * Path of the stylesheet in classpath, for example "/xsl/inbox.xsl".
+     */
+    private final transient String path;
+
+    /**
+     * Ctor.
+     * @param xsl Path of the stylesheet in classpath
+     */
+    Xslt(final String xsl) {
+        this.path = xsl;
+    }
+
+    /**
+     * Turn XML document into HTML response.
+     *
+     * <p>The document is transformed as is, without printing and
+     * parsing it again.
+     * @param dom XML document
+     * @return Response with HTML
+     */
+    public Response html(final Node dom) {
+        return new Response() {
+            @Override
+            public Iterable<String> head() throws IOException {
+                return new RsWithType(
+                    new RsWithStatus(HttpURLConnection.HTTP_OK), "text/html"
+                ).head();
+            }
+            @Override
+            public InputStream body() throws IOException {
+                return new ByteArrayInputStream(
+                    Xslt.this.transform(new DOMSource(dom))
+                );
+            }
+        };
+    }
+
+    /**
+     * Turn XML document into XML response, as is.
+     * @param dom XML document
+     * @return Response with XML
+     */
+    public static Response xml(final Node dom) {
+        return new Response() {
+            @Override
+            public Iterable<String> head() throws IOException {
+                return new RsWithType(
+                    new RsWithStatus(HttpURLConnection.HTTP_OK), "text/xml"
+                ).head();
+            }
+            @Override
+            public InputStream body() throws IOException {
+                final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+                try {
+                    final Transformer trans;
+                    synchronized (Xslt.FACTORY) {
+                        trans = Xslt.FACTORY.newTransformer();
+                    }
+                    trans.transform(new DOMSource(dom), new StreamResult(baos));
+                } catch (final TransformerException ex) {
+                    throw new IOException(ex);
+                }
+                return new ByteArrayInputStream(baos.toByteArray());
+            }
+        };
+    }
+
+    /**
+     * Transform XML.
+     * @param xml XML document
+     * @return Result of transformation
+     * @throws IOException If fails
+     */
+    public byte[] transform(final InputStream xml) throws IOException {
+        try {
+            return this.transform(new StreamSource(xml));
+        } finally {
+            xml.close();
+        }
+    }
+
+    /**
+     * Transform XML.
+     * @param xml XML document
+     * @return Result of transformation
+     * @throws IOException If fails
+     */
+    public byte[] transform(final Source xml) throws IOException {
+        final long start = System.currentTimeMillis();
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        final Transformer trans = this.transformer();
+        trans.setURIResolver(Xslt.RESOLVER);
+        try {
+            trans.transform(xml, new StreamResult(baos));
+        } catch (final TransformerException ex) {
+            throw new IOException(ex);
+        } finally {
+            trans.reset();
+        }
+        Logger.debug(
+            this, "%s transformed into %d bytes in %[ms]s",
+            this.path, baos.size(), System.currentTimeMillis() - start
+        );
+        return baos.toByteArray();
+    }
+
+    /**
+     * Transformer of this thread.
+     * @return Transformer
+     * @throws IOException If fails
+     */
+    private Transformer transformer() throws IOException {
+        final Map<String, Transformer> mine = Xslt.TRANSFORMERS.get();
+        Transformer trans = mine.get(this.path);
+        if (trans == null) {
+            try {
+                trans = this.templates().newTransformer();
+            } catch (final TransformerConfigurationException ex) {
+                throw new IOException(ex);
+            }
+            mine.put(this.path, trans);
+        }
+        return trans;
+    }
+
+    /**
+     * Compiled stylesheet.
+     * @return Templates
+     * @throws IOException If fails
+     */
+    private Templates templates() throws IOException {
+        Templates tpl = Xslt.TEMPLATES.get(this.path);
+        if (tpl == null) {
+            final long start = System.currentTimeMillis();
+            try {
+                synchronized (Xslt.FACTORY) {
+                    tpl = Xslt.FACTORY.newTemplates(
+                        Xslt.RESOLVER.resolve(this.path, null)
+                    );
+                }
+            } catch (final TransformerException ex) {
+                throw new IOException(ex);
+            }
+            Xslt.TEMPLATES.putIfAbsent(this.path, tpl);
+            Logger.debug(
+                this, "%s compiled in %[ms]s",
+                this.path, System.currentTimeMillis() - start
+            );
+        }
+        return tpl;
+    }
+
+    /**
+     * Find a stylesheet or a document.
+     * @param href Its address, absolute in classpath or relative to base
+     * @param base Address of the stylesheet that refers to it, or NULL
+     * @return URL or NULL if not found
+     * @throws TransformerException If the address is broken
+     */
+    private static URL locate(final String href, final String base)
+        throws TransformerException {
+        final URL url;
+        try {
+            final String path = new URI(href).getPath();
+            if (path == null) {
+                url = null;
+            } else if (path.startsWith("/") || base == null) {
+                url = Xslt.class.getResource(path);
+            } else {
+                url = new URL(new URL(base), path);
+            }
+        } catch (final URISyntaxException ex) {
+            throw new TransformerException(ex);
+        } catch (final MalformedURLException ex) {
+            throw new TransformerException(ex);
+        }
+        return url;
+    }
+
+    /**
+     * Make a factory.
+     * @return Factory
+     */
+    private static TransformerFactory factory() {
+        final TransformerFactory factory = TransformerFactory.newInstance();
+        factory.setURIResolver(Xslt.RESOLVER);
+        return factory;
+    }
+
+}
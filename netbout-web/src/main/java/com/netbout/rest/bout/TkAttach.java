@@ -37,7 +37,13 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Collection;
+import org.apache.commons.codec.binary.Hex;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.takes.Request;
@@ -85,7 +91,25 @@ final class TkAttach implements Take {
         );
         final String name = new RqPrint(multi.single("name")).printBody();
         final File temp = File.createTempFile("netbout", "bin");
-        IOUtils.copy(multi.single("file").body(), new FileOutputStream(temp));
+        try {
+            return this.attach(req, name, temp, TkAttach.copy(multi, temp));
+        } finally {
+            FileUtils.deleteQuietly(temp);
+        }
+    }
+
+    /**
+     * Attach the file.
+     * @param req Request
+     * @param name Name of the attachment
+     * @param temp File with the content
+     * @param etag ETag of the content
+     * @return Response
+     * @throws IOException If fails
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    private Response attach(final Request req, final String name,
+        final File temp, final String etag) throws IOException {
         final Bout bout = new RqBout(this.base, req).bout();
         final StringBuilder msg = new StringBuilder(Tv.HUNDRED);
         if (new Attachments.Search(bout.attachments()).exists(name)) {
@@ -101,19 +125,46 @@ final class TkAttach implements Take {
         final String ctype = TkAttach.ctype(temp);
         msg.append(" (").append(temp.length())
             .append(" bytes, ").append(ctype).append(')');
+        final InputStream input = new FileInputStream(temp);
         try {
-            bout.attachments().get(name).write(
-                new FileInputStream(temp),
-                ctype, Long.toString(System.currentTimeMillis())
-            );
+            bout.attachments().get(name).write(input, ctype, etag);
         } catch (final Attachment.TooBigException
             | Attachment.BrokenContentException ex) {
             throw new RsFailure(ex);
+        } finally {
+            input.close();
         }
-        FileUtils.forceDelete(temp);
         throw new RsForward(new RsFlash(msg.toString()));
     }
 
+    /**
+     * Copy uploaded file into the temporary one.
+     * @param multi Multipart request
+     * @param temp Temporary file
+     * @return MD5 hash of the content, in hex
+     * @throws IOException If fails
+     */
+    private static String copy(final RqMultipart.Smart multi,
+        final File temp) throws IOException {
+        final MessageDigest md5;
+        try {
+            md5 = MessageDigest.getInstance("MD5");
+        } catch (final NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+        final InputStream input = new DigestInputStream(
+            multi.single("file").body(), md5
+        );
+        final OutputStream output = new FileOutputStream(temp);
+        try {
+            IOUtils.copy(input, output);
+        } finally {
+            output.close();
+            input.close();
+        }
+        return Hex.encodeHexString(md5.digest());
+    }
+
     /**
      * Get CType of file.
      * @param file File
@@ -64,6 +64,7 @@ public final class TkBout extends TkWrap {
             new FkBout("/create", new TkCreate(base)),
             new FkBout("/delete", new TkDelete(base)),
             new FkBout("/post", new TkPost(base)),
+            new FkBout("/events", new TkEvents(base)),
             new FkBout("/preview", new TkPreview()),
             new FkBout("/invite", new TkInvite(base)),
             new FkBout("/kick", new TkKick(base)),
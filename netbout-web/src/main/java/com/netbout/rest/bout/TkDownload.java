@@ -30,11 +30,17 @@ import com.netbout.spi.Attachment;
 import com.netbout.spi.Base;
 import com.netbout.spi.Bout;
 import java.io.IOException;
+import java.net.HttpURLConnection;
 import java.net.URLEncoder;
+import java.util.Iterator;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import org.apache.commons.lang3.CharEncoding;
+import org.apache.commons.lang3.StringUtils;
 import org.takes.Request;
 import org.takes.Response;
 import org.takes.Take;
+import org.takes.rq.RqHeaders;
 import org.takes.rq.RqHref;
 import org.takes.rs.RsFluent;
 
@@ -44,9 +50,23 @@ import org.takes.rs.RsFluent;
  * @author Yegor Bugayenko (yegor@teamed.io)
  * @version $Id$
  * @since 2.14
+ * @checkstyle MultipleStringLiteralsCheck (500 lines)
+ * @checkstyle ClassDataAbstractionCouplingCheck (500 lines)
  */
 final class TkDownload implements Take {
 
+    /**
+     * Single range of bytes in Range header.
+     */
+    private static final Pattern RANGE = Pattern.compile(
+        "bytes=(\\d{0,18})-(\\d{0,18})"
+    );
+
+    /**
+     * HTTP status "Requested Range Not Satisfiable".
+     */
+    private static final int UNSATISFIABLE = 416;
+
     /**
      * Base.
      */
@@ -66,8 +86,163 @@ final class TkDownload implements Take {
         final Attachment attachment = bout.attachments().get(
             new RqHref.Smart(new RqHref.Base(req)).single("name")
         );
+        final String etag = TkDownload.etag(attachment);
+        final RqHeaders headers = new RqHeaders.Base(req);
+        final RqHeaders.Smart smart = new RqHeaders.Smart(headers);
+        final Iterator<String> range = headers.header("Range").iterator();
+        final Response response;
+        if (!etag.isEmpty()
+            && TkDownload.matches(headers.header("If-None-Match"), etag)) {
+            response = new RsFluent().withStatus(
+                HttpURLConnection.HTTP_NOT_MODIFIED
+            );
+        } else if (range.hasNext()
+            && smart.single("If-Range", etag).equals(etag)) {
+            response = TkDownload.partial(attachment, range.next());
+        } else {
+            response = TkDownload.full(attachment);
+        }
+        RsFluent fluent = new RsFluent(response)
+            .withHeader("Accept-Ranges", "bytes")
+            .withHeader("Cache-Control", "private, max-age=0, must-revalidate");
+        if (!etag.isEmpty()) {
+            fluent = fluent.withHeader("ETag", etag);
+        }
+        return fluent;
+    }
+
+    /**
+     * ETag of the attachment, as it goes into HTTP headers.
+     * @param attachment The attachment
+     * @return ETag in quotes or empty if the attachment doesn't have it
+     * @throws IOException If fails
+     */
+    private static String etag(final Attachment attachment)
+        throws IOException {
+        final String etag = attachment.etag();
+        final String quoted;
+        if (etag.isEmpty()) {
+            quoted = "";
+        } else {
+            quoted = String.format("\"%s\"", etag);
+        }
+        return quoted;
+    }
+
+    /**
+     * Does any of If-None-Match headers match the ETag.
+     *
+     * <p>Every header is a comma-separated list of ETags, or {@code *},
+     * which matches any existing content. The comparison is weak, as
+     * RFC 7232 requires for If-None-Match, so {@code W/} prefixes are
+     * ignored.
+     *
+     * @param headers If-None-Match headers
+     * @param etag ETag of the attachment, in quotes
+     * @return TRUE if any of them matches
+     */
+    private static boolean matches(final Iterable<String> headers,
+        final String etag) {
+        boolean matches = false;
+        for (final String header : headers) {
+            for (final String tag : header.split(",")) {
+                final String trimmed = StringUtils.removeStart(
+                    tag.trim(), "W/"
+                );
+                matches |= "*".equals(trimmed) || trimmed.equals(etag);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Full content of the attachment.
+     * @param attachment The attachment
+     * @return Response
+     * @throws IOException If fails
+     */
+    private static Response full(final Attachment attachment)
+        throws IOException {
+        return TkDownload.typed(attachment).withBody(attachment.read());
+    }
+
+    /**
+     * Part of the attachment, requested by Range header.
+     *
+     * <p>Only a single range of bytes is supported, for anything else the
+     * full content is returned. Only the requested bytes are read from
+     * the storage.
+     *
+     * @param attachment The attachment
+     * @param header Range header
+     * @return Response
+     * @throws IOException If fails
+     */
+    private static Response partial(final Attachment attachment,
+        final String header) throws IOException {
+        final Matcher matcher = TkDownload.RANGE.matcher(header.trim());
+        final Response response;
+        if (!matcher.matches()
+            || matcher.group(1).isEmpty() && matcher.group(2).isEmpty()) {
+            response = TkDownload.full(attachment);
+        } else {
+            response = TkDownload.slice(attachment, matcher);
+        }
+        return response;
+    }
+
+    /**
+     * Slice of the attachment.
+     * @param attachment The attachment
+     * @param matcher Matched Range header
+     * @return Response
+     * @throws IOException If fails
+     */
+    private static Response slice(final Attachment attachment,
+        final Matcher matcher) throws IOException {
+        final long total = attachment.size();
+        final long first;
+        final long last;
+        if (matcher.group(1).isEmpty()) {
+            first = Math.max(0L, total - Long.parseLong(matcher.group(2)));
+            last = total - 1L;
+        } else {
+            first = Long.parseLong(matcher.group(1));
+            if (matcher.group(2).isEmpty()) {
+                last = total - 1L;
+            } else {
+                last = Math.min(Long.parseLong(matcher.group(2)), total - 1L);
+            }
+        }
+        final Response response;
+        if (first > last) {
+            response = new RsFluent()
+                .withStatus(TkDownload.UNSATISFIABLE)
+                .withHeader(
+                    "Content-Range", String.format("bytes */%d", total)
+                );
+        } else {
+            response = TkDownload.typed(attachment)
+                .withStatus(HttpURLConnection.HTTP_PARTIAL)
+                .withBody(attachment.read(first, last))
+                .withHeader("Content-Length", Long.toString(last - first + 1L))
+                .withHeader(
+                    "Content-Range",
+                    String.format("bytes %d-%d/%d", first, last, total)
+                );
+        }
+        return response;
+    }
+
+    /**
+     * Response with the type and the name of the attachment.
+     * @param attachment The attachment
+     * @return Response
+     * @throws IOException If fails
+     */
+    private static RsFluent typed(final Attachment attachment)
+        throws IOException {
         return new RsFluent()
-            .withBody(attachment.read())
             .withHeader(
                 "Content-Disposition",
                 String.format(
@@ -0,0 +1,188 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.rest.bout;
+
+import com.jcabi.aspects.Tv;
+import com.netbout.cached.Bus;
+import com.netbout.spi.Base;
+import com.netbout.spi.Bout;
+import com.netbout.spi.Message;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import org.takes.HttpException;
+import org.takes.Request;
+import org.takes.Response;
+import org.takes.Take;
+import org.takes.rq.RqHeaders;
+import org.takes.rq.RqHref;
+import org.takes.rs.RsFluent;
+
+/**
+ * New messages in the bout, for EventSource in the browser.
+ *
+ * <p>The request is held until the latest message of the bout is newer
+ * than the one in Last-Event-ID header (or "after" query parameter),
+ * or until {@link #TIMEOUT}. Then the reply with one event (or none)
+ * is sent and the browser reconnects in {@link #RETRY} milliseconds.
+ * While waiting, nothing is read from the bout: the request sleeps
+ * until the {@link Bus} rings, which happens after every post, in this
+ * node or in any other one. Only then the latest message is read again,
+ * which is the key of one item, through the list that starts from
+ * {@link Long#MAX_VALUE} and doesn't mark messages as seen, since
+ * the reader didn't see them yet.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 2.15
+ */
+final class TkEvents implements Take {
+
+    /**
+     * How long to hold the request, in milliseconds.
+     */
+    private static final long TIMEOUT = TimeUnit.SECONDS.toMillis(
+        (long) Tv.TWENTY
+    );
+
+    /**
+     * How soon the browser should ask again, in milliseconds.
+     */
+    private static final long RETRY = TimeUnit.SECONDS.toMillis(1L);
+
+    /**
+     * Valid message number.
+     */
+    private static final Pattern NUMBER = Pattern.compile("\\d{1,18}");
+
+    /**
+     * Base.
+     */
+    private final transient Base base;
+
+    /**
+     * How long to hold the request, in milliseconds.
+     */
+    private final transient long timeout;
+
+    /**
+     * Ctor.
+     * @param bse Base
+     */
+    TkEvents(final Base bse) {
+        this(bse, TkEvents.TIMEOUT);
+    }
+
+    /**
+     * Ctor.
+     * @param bse Base
+     * @param msec How long to hold the request, in milliseconds
+     */
+    TkEvents(final Base bse, final long msec) {
+        this.base = bse;
+        this.timeout = msec;
+    }
+
+    @Override
+    public Response act(final Request req) throws IOException {
+        final Bout bout = new RqBout(this.base, req).bout();
+        final Iterator<String> header = new RqHeaders.Base(req)
+            .header("Last-Event-ID").iterator();
+        final String seen;
+        if (header.hasNext()) {
+            seen = header.next().trim();
+        } else {
+            seen = new RqHref.Smart(new RqHref.Base(req)).single("after", "0");
+        }
+        if (!TkEvents.NUMBER.matcher(seen).matches()) {
+            throw new HttpException(
+                HttpURLConnection.HTTP_BAD_REQUEST,
+                String.format("invalid message number \"%s\"", seen)
+            );
+        }
+        final long last = this.await(bout, Long.parseLong(seen));
+        final StringBuilder body = new StringBuilder(Tv.HUNDRED)
+            .append(String.format("retry: %d\n", TkEvents.RETRY));
+        if (last > Long.parseLong(seen)) {
+            body.append(String.format("id: %d\ndata: %1$d\n", last));
+        }
+        body.append('\n');
+        return new RsFluent()
+            .withType("text/event-stream")
+            .withHeader("Cache-Control", "no-cache")
+            .withBody(body.toString());
+    }
+
+    /**
+     * Wait for a message newer than the given one.
+     * @param bout The bout
+     * @param after Number of the message already seen
+     * @return Number of the latest message, not newer than {@code after}
+     *  if nothing was posted in time
+     * @throws IOException If fails
+     */
+    private long await(final Bout bout, final long after) throws IOException {
+        final Bus bus = new Bus();
+        final long number = bout.number();
+        final long deadline = System.currentTimeMillis() + this.timeout;
+        long rings = bus.rings(number);
+        long last = TkEvents.latest(bout);
+        try {
+            while (last <= after && bus.await(
+                number, rings, deadline - System.currentTimeMillis()
+            )) {
+                rings = bus.rings(number);
+                last = TkEvents.latest(bout);
+            }
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException(ex);
+        }
+        return last;
+    }
+
+    /**
+     * Number of the latest message in the bout.
+     * @param bout The bout
+     * @return Message number or zero if there are no messages
+     * @throws IOException If fails
+     */
+    private static long latest(final Bout bout) throws IOException {
+        final Iterator<Message> messages = bout.messages()
+            .jump(Long.MAX_VALUE).iterate().iterator();
+        final long latest;
+        if (messages.hasNext()) {
+            latest = messages.next().number();
+        } else {
+            latest = 0L;
+        }
+        return latest;
+    }
+
+}
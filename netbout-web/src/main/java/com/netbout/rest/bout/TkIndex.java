@@ -28,6 +28,8 @@ package com.netbout.rest.bout;
 
 import com.google.common.collect.Iterables;
 import com.netbout.rest.RsPage;
+import com.netbout.rest.XeConcurrent;
+import com.netbout.rest.XeParallel;
 import com.netbout.spi.Attachment;
 import com.netbout.spi.Base;
 import com.netbout.spi.Bout;
@@ -47,6 +49,7 @@ import org.takes.rs.xe.XeDirectives;
 import org.takes.rs.xe.XeLink;
 import org.takes.rs.xe.XeSource;
 import org.takes.rs.xe.XeTransform;
+import org.xembly.Directive;
 import org.xembly.Directives;
 
 /**
@@ -85,21 +88,71 @@ final class TkIndex implements Take {
             req,
             new XeAppend(
                 "bout",
-                new XeDirectives(
-                    new Directives()
-                        .add("number")
-                        .set(Long.toString(bout.number()))
-                        .up()
-                        .add("title").set(bout.title()).up()
-                        .add("unread")
-                        .set(Long.toString(bout.messages().unread()))
-                        .up()
-                        .add("subscription")
-                        .set(String.valueOf(bout.subscription()))
-                ),
-                new XeAppend(
+                new XeConcurrent(
+                    new XeDirectives(
+                        new Directives()
+                            .add("number")
+                            .set(Long.toString(bout.number()))
+                            .up()
+                    ),
+                    new XeSource() {
+                        @Override
+                        public Iterable<Directive> toXembly()
+                            throws IOException {
+                            return new Directives()
+                                .add("title").set(bout.title()).up()
+                                .add("subscription")
+                                .set(String.valueOf(bout.subscription()))
+                                .up();
+                        }
+                    },
+                    TkIndex.friends(bout),
+                    TkIndex.attachments(req, bout),
+                    new XeSource() {
+                        @Override
+                        public Iterable<Directive> toXembly()
+                            throws IOException {
+                            final long unread = bout.messages().unread();
+                            return new Directives()
+                                .add("unread")
+                                .set(Long.toString(unread))
+                                .up()
+                                .append(
+                                    TkIndex.messages(
+                                        bout,
+                                        TkIndex.messages(bout, req, query)
+                                    ).toXembly()
+                                );
+                        }
+                    }
+                )
+            ),
+            new XeAppend("query", query),
+            new XeLink("post", home.path("post")),
+            new XeLink("events", home.path("events")),
+            new XeLink("preview", home.path("preview")),
+            new XeLink("rename", home.path("rename")),
+            new XeLink("invite", home.path("invite")),
+            new XeLink("search", home.path("search")),
+            new XeLink("upload", home.path("upload")),
+            new XeLink("create", home.path("create")),
+            new XeLink("attach", home.path("attach")),
+            new XeLink("subscribe", home.path("subscribe"))
+        );
+    }
+
+    /**
+     * Friends of the bout.
+     * @param bout Bout
+     * @return Xembly source
+     */
+    private static XeSource friends(final Bout bout) {
+        return new XeSource() {
+            @Override
+            public Iterable<Directive> toXembly() throws IOException {
+                return new XeAppend(
                     "friends",
-                    new XeTransform<>(
+                    new XeParallel<>(
                         bout.friends().iterate(),
                         new XeTransform.Func<Friend>() {
                             @Override
@@ -109,10 +162,24 @@ final class TkIndex implements Take {
                             }
                         }
                     )
-                ),
-                new XeAppend(
+                ).toXembly();
+            }
+        };
+    }
+
+    /**
+     * Attachments of the bout.
+     * @param req Request
+     * @param bout Bout
+     * @return Xembly source
+     */
+    private static XeSource attachments(final Request req, final Bout bout) {
+        return new XeSource() {
+            @Override
+            public Iterable<Directive> toXembly() throws IOException {
+                return new XeAppend(
                     "attachments",
-                    new XeTransform<>(
+                    new XeParallel<>(
                         bout.attachments().iterate(),
                         new XeTransform.Func<Attachment>() {
                             @Override
@@ -122,33 +189,34 @@ final class TkIndex implements Take {
                             }
                         }
                     )
-                ),
-                new XeAppend(
-                    "messages",
-                    new XeTransform<>(
-                        this.messages(bout, req, query),
-                        new XeTransform.Func<Message>() {
-                            @Override
-                            public XeSource transform(final Message msg)
-                                throws IOException {
-                                return new XeMessage(bout, msg);
-                            }
-                        }
-                    )
-                )
-            ),
-            new XeAppend("query", query),
-            new XeLink("post", home.path("post")),
-            new XeLink("preview", home.path("preview")),
-            new XeLink("rename", home.path("rename")),
-            new XeLink("invite", home.path("invite")),
-            new XeLink("search", home.path("search")),
-            new XeLink("upload", home.path("upload")),
-            new XeLink("create", home.path("create")),
-            new XeLink("attach", home.path("attach")),
-            new XeLink("subscribe", home.path("subscribe"))
+                ).toXembly();
+            }
+        };
+    }
+
+    /**
+     * Messages of the bout.
+     * @param bout Bout
+     * @param msgs Messages to show
+     * @return Xembly source
+     */
+    private static XeSource messages(final Bout bout,
+        final Iterable<Message> msgs) {
+        return new XeAppend(
+            "messages",
+            new XeParallel<>(
+                msgs,
+                new XeTransform.Func<Message>() {
+                    @Override
+                    public XeSource transform(final Message msg)
+                        throws IOException {
+                        return new XeMessage(bout, msg);
+                    }
+                }
+            )
         );
     }
+
     /**
      * Returns searched or paginated messages.
      * @param bout Bout
@@ -157,8 +225,8 @@ final class TkIndex implements Take {
      * @return Messages
      * @throws IOException If fails
      */
-    private Iterable<Message> messages(final Bout bout, final Request req,
-        final String query) throws IOException {
+    private static Iterable<Message> messages(final Bout bout,
+        final Request req, final String query) throws IOException {
         final Iterable<Message> messages;
         if (StringUtils.isBlank(query)) {
             final long start = Long.parseLong(
@@ -30,6 +30,7 @@ import com.netbout.rest.Markdown;
 import com.netbout.spi.Attachment;
 import com.netbout.spi.Bout;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.Iterator;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.CharEncoding;
@@ -124,16 +125,20 @@ final class XeAttachment extends XeWrap {
                 new XeSource() {
                     @Override
                     public Iterable<Directive> toXembly() throws IOException {
-                        return new Directives().add("html").set(
-                            Xembler.escape(
-                                new Markdown(
-                                    IOUtils.toString(
-                                        atmt.read(),
-                                        CharEncoding.UTF_8
-                                    )
-                                ).html()
-                            )
-                        );
+                        final InputStream input = atmt.read();
+                        try {
+                            return new Directives().add("html").set(
+                                Xembler.escape(
+                                    new Markdown(
+                                        IOUtils.toString(
+                                            input, CharEncoding.UTF_8
+                                        )
+                                    ).html()
+                                )
+                            );
+                        } finally {
+                            input.close();
+                        }
                     }
                 }
             )
@@ -178,6 +178,26 @@ function scrollOrLoad(amountRecords) {
   }
 }
 
+function listenForMessages() {
+  var $box = $('#messages'), url = $box.attr('data-events'), source;
+  if (!url || !window.EventSource) {
+    return;
+  }
+  source = new window.EventSource(
+    url + '?after=' + ($box.attr('data-latest') || '0')
+  );
+  source.onmessage = function () {
+    source.close();
+    $box.prepend(
+      [
+        '<div class="message fresh"><a href="',
+        location.pathname,
+        '">New messages arrived, click here to see them</a></div>'
+      ].join('')
+    );
+  };
+}
+
 $(document).ready(
   function () {
     "use strict";
@@ -230,6 +250,7 @@ $(document).ready(
         debounce: 0 }
       );
     scrollOrLoad(1);
+    listenForMessages();
     $("#write-link").on(
       "click",
       function(event) {
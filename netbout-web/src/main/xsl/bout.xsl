@@ -132,7 +132,7 @@
                 </fieldset>
             </form>
         </div>
-        <div id="messages" data-more="{messages/message[position()=last()]/links/link[@rel='more']/@href}">
+        <div id="messages" data-more="{messages/message[position()=last()]/links/link[@rel='more']/@href}" data-events="{/page/links/link[@rel='events']/@href}" data-latest="{messages/message[1]/number}">
             <xsl:apply-templates select="messages/message"/>
             <div id="tail"/>
         </div>
@@ -26,7 +26,10 @@
  */
 package com.netbout.cached;
 
+import com.netbout.spi.Bout;
+import com.netbout.spi.Friends;
 import com.netbout.spi.Messages;
+import java.security.SecureRandom;
 import java.util.Collections;
 import org.hamcrest.MatcherAssert;
 import org.hamcrest.Matchers;
@@ -49,7 +52,11 @@ public final class CdMessagesTest {
     public void flushesUnreadNumber() throws Exception {
         final Messages origin = Mockito.mock(Messages.class);
         Mockito.doReturn(1L).doReturn(2L).when(origin).unread();
-        final Messages messages = new CdMessages(origin);
+        final Bout bout = Mockito.mock(Bout.class);
+        Mockito.doReturn(new SecureRandom().nextLong()).when(bout).number();
+        final Messages messages = new CdMessages(
+            origin, bout, "jeff", new Scopes()
+        );
         MatcherAssert.assertThat(messages.unread(), Matchers.equalTo(1L));
         MatcherAssert.assertThat(messages.unread(), Matchers.equalTo(1L));
         Mockito.doReturn(Collections.emptyList()).when(origin).iterate();
@@ -57,4 +64,25 @@ public final class CdMessagesTest {
         MatcherAssert.assertThat(messages.unread(), Matchers.equalTo(2L));
     }
 
+    /**
+     * CdMessages can forget unread numbers of others when posting.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void forgetsUnreadNumbersOnPost() throws Exception {
+        final Messages origin = Mockito.mock(Messages.class);
+        Mockito.doReturn(0L).doReturn(1L).when(origin).unread();
+        final Bout bout = Mockito.mock(Bout.class);
+        Mockito.doReturn(new SecureRandom().nextLong()).when(bout).number();
+        final Friends friends = Mockito.mock(Friends.class);
+        Mockito.doReturn(Collections.emptyList()).when(friends).iterate();
+        Mockito.doReturn(friends).when(bout).friends();
+        final Scopes scopes = new Scopes();
+        final Messages reader = new CdMessages(origin, bout, "anna", scopes);
+        MatcherAssert.assertThat(reader.unread(), Matchers.equalTo(0L));
+        MatcherAssert.assertThat(reader.unread(), Matchers.equalTo(0L));
+        new CdMessages(origin, bout, "jeff", scopes).post("hello");
+        MatcherAssert.assertThat(reader.unread(), Matchers.equalTo(1L));
+    }
+
 }
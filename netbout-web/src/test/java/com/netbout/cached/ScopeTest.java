@@ -0,0 +1,189 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.cached;
+
+import com.jcabi.aspects.Tv;
+import java.security.SecureRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+/**
+ * Test case for {@link Scope}.
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 2.15
+ */
+public final class ScopeTest {
+
+    /**
+     * Scope can forget one key and keep the others.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void forgetsOneKey() throws Exception {
+        final Scope scope = new Scopes().scope(
+            "test", new SecureRandom().nextLong()
+        );
+        final AtomicInteger loads = new AtomicInteger();
+        final Callable<Integer> loader = ScopeTest.loader(loads);
+        scope.get("first", loader);
+        scope.get("second", loader);
+        scope.forget("first");
+        scope.get("first", loader);
+        scope.get("second", loader);
+        MatcherAssert.assertThat(loads.get(), Matchers.equalTo(Tv.THREE));
+    }
+
+    /**
+     * Scope can flush all its keys, but not keys of other scopes.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void flushesAllKeys() throws Exception {
+        final long id = new SecureRandom().nextLong();
+        final Scopes scopes = new Scopes();
+        final Scope scope = scopes.scope("test", id);
+        final Scope other = scopes.scope("other", id);
+        final AtomicInteger loads = new AtomicInteger();
+        final Callable<Integer> loader = ScopeTest.loader(loads);
+        scope.get("alpha", loader);
+        scope.get("beta", loader);
+        other.get("alpha", loader);
+        scope.flush();
+        scope.get("alpha", loader);
+        scope.get("beta", loader);
+        other.get("alpha", loader);
+        MatcherAssert.assertThat(loads.get(), Matchers.equalTo(Tv.FIVE));
+    }
+
+    /**
+     * Scope can cache values briefly and forget them.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void forgetsBriefValues() throws Exception {
+        final Scope scope = new Scopes().scope(
+            "test", new SecureRandom().nextLong()
+        );
+        final AtomicInteger loads = new AtomicInteger();
+        final Callable<Integer> loader = ScopeTest.loader(loads);
+        scope.brief("unread", loader);
+        scope.brief("unread", loader);
+        scope.forget("unread");
+        scope.brief("unread", loader);
+        MatcherAssert.assertThat(loads.get(), Matchers.equalTo(2));
+    }
+
+    /**
+     * Scope can forget keys changed by other nodes.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void forgetsKeysChangedElsewhere() throws Exception {
+        final Channel channel = new Channel.Loopback();
+        final Scopes scopes = new Scopes();
+        scopes.connect(channel);
+        final long id = new SecureRandom().nextLong();
+        final Scope scope = scopes.scope("test", id);
+        final AtomicInteger loads = new AtomicInteger();
+        final Callable<Integer> loader = ScopeTest.loader(loads);
+        scope.get("one", loader);
+        scope.get("two", loader);
+        channel.publish(String.format("test:%d", id), "one");
+        scope.get("one", loader);
+        scope.get("two", loader);
+        channel.publish(String.format("test:%d", id), "");
+        scope.get("two", loader);
+        MatcherAssert.assertThat(loads.get(), Matchers.equalTo(Tv.FOUR));
+    }
+
+    /**
+     * Scope can keep values of different bases apart.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void keepsBasesApart() throws Exception {
+        final long id = new SecureRandom().nextLong();
+        final Scopes first = new Scopes();
+        final Channel channel = new Channel.Loopback();
+        first.connect(channel);
+        final Scope scope = first.scope("test", id);
+        final Scope other = new Scopes().scope("test", id);
+        final AtomicInteger loads = new AtomicInteger();
+        final Callable<Integer> loader = ScopeTest.loader(loads);
+        scope.get("key", loader);
+        other.get("key", loader);
+        other.flush();
+        scope.get("key", loader);
+        channel.publish(String.format("test:%d", id), "");
+        other.get("key", loader);
+        MatcherAssert.assertThat(loads.get(), Matchers.equalTo(2));
+    }
+
+    /**
+     * Scopes can forget their channel when closed.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void forgetsChannelWhenClosed() throws Exception {
+        final Scopes scopes = new Scopes();
+        final Channel channel = new Channel.Loopback();
+        final AtomicInteger changes = new AtomicInteger();
+        scopes.connect(channel);
+        channel.listen(
+            new Channel.Listener() {
+                @Override
+                public void changed(final String scope, final String key) {
+                    changes.incrementAndGet();
+                }
+            }
+        );
+        final Scope scope = scopes.scope("test", new SecureRandom().nextLong());
+        scope.forget("before");
+        scopes.close();
+        scope.forget("after");
+        MatcherAssert.assertThat(changes.get(), Matchers.equalTo(1));
+    }
+
+    /**
+     * Loader that counts its calls.
+     * @param loads Counter of loads
+     * @return Loader
+     */
+    private static Callable<Integer> loader(final AtomicInteger loads) {
+        return new Callable<Integer>() {
+            @Override
+            public Integer call() {
+                return loads.incrementAndGet();
+            }
+        };
+    }
+
+}
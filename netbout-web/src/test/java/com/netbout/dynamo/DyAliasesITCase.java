@@ -62,4 +62,15 @@ public final class DyAliasesITCase {
         );
     }
 
+    /**
+     * DyAliases can refuse an alias taken by someone else.
+     * @throws Exception If there is some problem inside
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void refusesOccupiedAlias() throws Exception {
+        final String name = "occupant";
+        new DyBase().user(new URN("urn:test:2")).aliases().add(name);
+        new DyBase().user(new URN("urn:test:3")).aliases().add(name);
+    }
+
 }
@@ -26,7 +26,17 @@
  */
 package com.netbout.dynamo;
 
+import com.amazonaws.services.dynamodbv2.model.AttributeAction;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.AttributeValueUpdate;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.S3Object;
 import com.jcabi.aspects.Tv;
+import com.jcabi.dynamo.Conditions;
+import com.jcabi.dynamo.Item;
+import com.jcabi.s3.Bucket;
+import com.jcabi.s3.Region;
 import com.jcabi.urn.URN;
 import com.netbout.spi.Aliases;
 import com.netbout.spi.Attachment;
@@ -34,11 +44,18 @@ import com.netbout.spi.Attachments;
 import com.netbout.spi.Bout;
 import com.netbout.spi.Inbox;
 import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
 import javax.ws.rs.core.MediaType;
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.hamcrest.MatcherAssert;
 import org.hamcrest.Matchers;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
 
 /**
  * Integration case for {@link DyAttachment}.
@@ -48,6 +65,13 @@ import org.junit.Test;
  */
 public final class DyAttachmentITCase {
 
+    /**
+     * Temporary folder.
+     * @checkstyle VisibilityModifier (3 lines)
+     */
+    @Rule
+    public final transient TemporaryFolder temp = new TemporaryFolder();
+
     /**
      * DyAttachment can create, save and load attachments.
      * @throws Exception If there is some problem inside
@@ -84,4 +108,130 @@ public final class DyAttachmentITCase {
         );
     }
 
+    /**
+     * DyAttachment can save and load big attachments.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void savesAndLoadsBigAttachment() throws Exception {
+        final String alias = "henrietta";
+        final Aliases aliases =
+            new DyBase().user(new URN("urn:test:89636")).aliases();
+        aliases.add(alias);
+        final Inbox inbox = aliases.iterate().iterator().next().inbox();
+        final Bout bout = inbox.bout(inbox.start());
+        final Attachments attachments = bout.attachments();
+        final String name = "big";
+        attachments.create(name);
+        final Attachment attachment = attachments.get(name);
+        final byte[] bytes = new byte[Tv.FIVE * Tv.HUNDRED * Tv.THOUSAND];
+        for (int idx = 0; idx < bytes.length; ++idx) {
+            bytes[idx] = (byte) (idx % Tv.SEVEN);
+        }
+        attachment.write(
+            new ByteArrayInputStream(bytes),
+            MediaType.APPLICATION_OCTET_STREAM,
+            "big-etag"
+        );
+        final InputStream input = attachment.read();
+        try {
+            MatcherAssert.assertThat(
+                IOUtils.toByteArray(input),
+                Matchers.equalTo(bytes)
+            );
+        } finally {
+            input.close();
+        }
+    }
+
+    /**
+     * DyAttachment can save big attachments straight from a file.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void savesAttachmentFromFile() throws Exception {
+        final Aliases aliases =
+            new DyBase().user(new URN("urn:test:89637")).aliases();
+        aliases.add("filemon");
+        final Inbox inbox = aliases.iterate().iterator().next().inbox();
+        final Bout bout = inbox.bout(inbox.start());
+        final Attachments attachments = bout.attachments();
+        final String name = "file";
+        attachments.create(name);
+        final byte[] bytes = new byte[Tv.HUNDRED * Tv.THOUSAND];
+        for (int idx = 0; idx < bytes.length; ++idx) {
+            bytes[idx] = (byte) (idx % Tv.FIVE);
+        }
+        final File file = this.temp.newFile();
+        FileUtils.writeByteArrayToFile(file, bytes);
+        final InputStream stream = new FileInputStream(file);
+        try {
+            attachments.get(name).write(
+                stream, MediaType.APPLICATION_OCTET_STREAM, "file-etag"
+            );
+        } finally {
+            stream.close();
+        }
+        final InputStream input = attachments.get(name).read();
+        try {
+            MatcherAssert.assertThat(
+                IOUtils.toByteArray(input),
+                Matchers.equalTo(bytes)
+            );
+        } finally {
+            input.close();
+        }
+    }
+
+    /**
+     * DyAttachment can read a range of S3 object and shut the client down.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void readsRangeAndShutsClientDown() throws Exception {
+        final String alias = "ranulf";
+        final Aliases aliases =
+            new DyBase().user(new URN("urn:test:89638")).aliases();
+        aliases.add(alias);
+        final Inbox inbox = aliases.iterate().iterator().next().inbox();
+        final Bout bout = inbox.bout(inbox.start());
+        final String name = "range";
+        bout.attachments().create(name);
+        final Item item = DyBase.region().table(DyAttachments.TBL)
+            .frame()
+            .where(DyAttachments.HASH, Conditions.equalTo(bout.number()))
+            .where(DyAttachments.RANGE, Conditions.equalTo(name))
+            .iterator().next();
+        item.put(
+            DyAttachments.ATTR_KEY,
+            new AttributeValueUpdate(
+                new AttributeValue("range.bin"), AttributeAction.PUT
+            )
+        );
+        final byte[] bytes = {(byte) 1, (byte) 2, (byte) 3};
+        final S3Object object = new S3Object();
+        object.setObjectContent(new ByteArrayInputStream(bytes));
+        final AmazonS3 aws = Mockito.mock(AmazonS3.class);
+        Mockito.doReturn(object).when(aws)
+            .getObject(Mockito.any(GetObjectRequest.class));
+        final Region region = Mockito.mock(Region.class);
+        Mockito.doReturn(aws).when(region).aws();
+        final Bucket bucket = Mockito.mock(Bucket.class);
+        Mockito.doReturn(region).when(bucket).region();
+        Mockito.doReturn("attachments").when(bucket).name();
+        final InputStream input = new DyAttachment(
+            DyBase.region(), bucket, item, alias
+        ).read(1L, 2L);
+        try {
+            MatcherAssert.assertThat(
+                IOUtils.toByteArray(input),
+                Matchers.equalTo(bytes)
+            );
+            Mockito.verify(aws, Mockito.never()).shutdown();
+        } finally {
+            input.close();
+        }
+        Mockito.verify(aws).shutdown();
+    }
+
 }
@@ -0,0 +1,107 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.dynamo;
+
+import com.jcabi.aspects.Tv;
+import com.netbout.cached.Channel;
+import java.util.Arrays;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+/**
+ * Integration case for {@link DyChannel}.
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 2.15
+ */
+public final class DyChannelITCase {
+
+    /**
+     * DyChannel can deliver changes to other nodes.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void deliversChangesToOtherNodes() throws Exception {
+        final Channel first = new DyChannel(DyBase.region());
+        final Channel second = new DyChannel(DyBase.region());
+        final BlockingQueue<String> changes = new LinkedBlockingQueue<>();
+        second.listen(
+            new Channel.Listener() {
+                @Override
+                public void changed(final String scope, final String key) {
+                    changes.add(String.format("%s/%s", scope, key));
+                }
+            }
+        );
+        first.publish("bout:1", "title");
+        first.publish("unread:1", "");
+        MatcherAssert.assertThat(
+            Arrays.asList(
+                changes.poll((long) Tv.TEN, TimeUnit.SECONDS),
+                changes.poll((long) Tv.TEN, TimeUnit.SECONDS)
+            ),
+            Matchers.containsInAnyOrder("bout:1/title", "unread:1/")
+        );
+        first.close();
+        second.close();
+    }
+
+    /**
+     * DyChannel can keep changes of one scope in order.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void keepsChangesOfScopeInOrder() throws Exception {
+        final Channel first = new DyChannel(DyBase.region());
+        final Channel second = new DyChannel(DyBase.region());
+        final BlockingQueue<String> changes = new LinkedBlockingQueue<>();
+        second.listen(
+            new Channel.Listener() {
+                @Override
+                public void changed(final String scope, final String key) {
+                    changes.add(key);
+                }
+            }
+        );
+        for (int idx = 0; idx < Tv.FIFTY; ++idx) {
+            first.publish("bout:77", String.format("key-%02d", idx));
+        }
+        for (int idx = 0; idx < Tv.FIFTY; ++idx) {
+            MatcherAssert.assertThat(
+                changes.poll((long) Tv.TEN, TimeUnit.SECONDS),
+                Matchers.equalTo(String.format("key-%02d", idx))
+            );
+        }
+        first.close();
+        second.close();
+    }
+
+}
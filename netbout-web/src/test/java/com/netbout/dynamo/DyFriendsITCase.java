@@ -26,12 +26,22 @@
  */
 package com.netbout.dynamo;
 
+import com.amazonaws.services.dynamodbv2.model.AttributeAction;
+import com.amazonaws.services.dynamodbv2.model.AttributeValueUpdate;
+import com.jcabi.aspects.Tv;
+import com.jcabi.dynamo.AttributeUpdates;
+import com.jcabi.dynamo.Conditions;
+import com.jcabi.dynamo.Item;
+import com.jcabi.dynamo.Region;
 import com.jcabi.urn.URN;
+import com.netbout.spi.Alias;
 import com.netbout.spi.Aliases;
 import com.netbout.spi.Bout;
 import com.netbout.spi.Friend;
 import com.netbout.spi.Friends;
 import com.netbout.spi.Inbox;
+import java.util.HashMap;
+import java.util.Map;
 import org.hamcrest.MatcherAssert;
 import org.hamcrest.Matchers;
 import org.junit.Test;
@@ -66,4 +76,89 @@ public final class DyFriendsITCase {
         );
     }
 
+    /**
+     * DyFriends can load emails of all friends.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void loadsEmailsOfFriends() throws Exception {
+        final Aliases aliases =
+            new DyBase().user(new URN("urn:test:8531")).aliases();
+        aliases.add("maxwell");
+        final Alias alias = aliases.iterate().iterator().next();
+        final String email = "maxwell@example.com";
+        alias.email(email);
+        final Inbox inbox = alias.inbox();
+        final Bout bout = inbox.bout(inbox.start());
+        final Friend friend = bout.friends().iterate().iterator().next();
+        MatcherAssert.assertThat(friend.email(), Matchers.equalTo(email));
+        MatcherAssert.assertThat(friend.photo(), Matchers.notNullValue());
+    }
+
+    /**
+     * DyFriends can load subscriptions of all friends.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void loadsSubscriptionsOfFriends() throws Exception {
+        final Region region = DyBase.region();
+        final Aliases aliases =
+            new DyBase(region).user(new URN("urn:test:8535")).aliases();
+        aliases.add("tristan");
+        final Inbox inbox = aliases.iterate().iterator().next().inbox();
+        final Bout bout = inbox.bout(inbox.start());
+        final String guest = "isolde";
+        final Aliases others =
+            new DyBase(region).user(new URN("urn:test:8536")).aliases();
+        others.add(guest);
+        bout.friends().invite(guest);
+        others.iterate().iterator().next().inbox()
+            .bout(bout.number()).subscribe(false);
+        final Map<String, Boolean> subs = new HashMap<>(2);
+        for (final Friend friend : inbox.bout(bout.number()).friends()
+            .iterate()) {
+            subs.put(friend.alias(), friend.subscribed());
+        }
+        MatcherAssert.assertThat(subs, Matchers.hasEntry("tristan", true));
+        MatcherAssert.assertThat(subs, Matchers.hasEntry(guest, false));
+    }
+
+    /**
+     * DyFriends can invite into a bout created before the list of friends
+     * was kept in every item.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void invitesIntoLegacyBout() throws Exception {
+        final Region region = DyBase.region();
+        final Aliases aliases =
+            new DyBase(region).user(new URN("urn:test:8532")).aliases();
+        aliases.add("lancelot");
+        final Inbox inbox = aliases.iterate().iterator().next().inbox();
+        final Bout bout = inbox.bout(inbox.start());
+        final String guest = "guinevere";
+        new DyBase(region).user(new URN("urn:test:8533")).aliases().add(guest);
+        bout.friends().invite(guest);
+        final Iterable<Item> rows = region.table(DyFriends.TBL)
+            .frame()
+            .where(DyFriends.HASH, Conditions.equalTo(bout.number()));
+        for (final Item row : rows) {
+            row.put(
+                new AttributeUpdates().with(
+                    DyFriends.ATTR_FRIENDS,
+                    new AttributeValueUpdate().withAction(
+                        AttributeAction.DELETE
+                    )
+                )
+            );
+        }
+        final String alias = "percival";
+        new DyBase(region).user(new URN("urn:test:8534")).aliases().add(alias);
+        inbox.bout(bout.number()).friends().invite(alias);
+        MatcherAssert.assertThat(
+            inbox.bout(bout.number()).friends().iterate(),
+            Matchers.<Friend>iterableWithSize(Tv.THREE)
+        );
+    }
+
 }
@@ -26,19 +26,39 @@
  */
 package com.netbout.dynamo;
 
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.google.common.collect.Iterables;
 import com.jcabi.aspects.Tv;
+import com.jcabi.dynamo.Conditions;
+import com.jcabi.dynamo.Credentials;
+import com.jcabi.dynamo.Region;
+import com.jcabi.manifests.Manifests;
 import com.jcabi.urn.URN;
 import com.netbout.spi.Aliases;
+import com.netbout.spi.Base;
 import com.netbout.spi.Bout;
 import com.netbout.spi.Friend;
 import com.netbout.spi.Friends;
 import com.netbout.spi.Inbox;
 import com.netbout.spi.Pageable;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.hamcrest.MatcherAssert;
 import org.hamcrest.Matchers;
 import org.junit.Test;
@@ -64,7 +84,8 @@ public final class DyInboxITCase {
         final Bout second = inbox.bout(inbox.start());
         first.messages().post("hello");
         second.messages().post("world");
-        final Iterator<Bout> result = inbox.search("ell").iterator();
+        final Iterator<Bout> result =
+            DyInboxITCase.search(inbox, "Hel").iterator();
         MatcherAssert.assertThat(
             "search result is empty",
             result.hasNext()
@@ -79,6 +100,40 @@ public final class DyInboxITCase {
         );
     }
 
+    /**
+     * DyInbox can find a bout by messages posted before the alias
+     * was invited, beyond the first page of the inbox.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void searchesInEntireInbox() throws Exception {
+        final Aliases author =
+            new DyBase().user(new URN("urn:test:88315")).aliases();
+        author.add("sherlock");
+        final Inbox mine = author.iterate().iterator().next().inbox();
+        final Bout bout = mine.bout(mine.start());
+        bout.messages().post("the hound of the Baskervilles");
+        final Aliases reader =
+            new DyBase().user(new URN("urn:test:88316")).aliases();
+        final String alias = "watson";
+        reader.add(alias);
+        final Inbox inbox = reader.iterate().iterator().next().inbox();
+        bout.friends().invite(alias);
+        for (int idx = 0; idx < Inbox.PAGE + 2; ++idx) {
+            inbox.start();
+        }
+        final Iterator<Bout> result =
+            DyInboxITCase.search(inbox, "baskerville").iterator();
+        MatcherAssert.assertThat(
+            "bout not found",
+            result.hasNext()
+        );
+        MatcherAssert.assertThat(
+            result.next().number(),
+            Matchers.equalTo(bout.number())
+        );
+    }
+
     /**
      * DyInbox can list bouts and create.
      * @throws Exception If there is some problem inside
@@ -127,6 +182,80 @@ public final class DyInboxITCase {
         );
     }
 
+    /**
+     * DyInbox can keep the total of unread messages in sync with bouts.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void keepsUnreadTotalInSync() throws Exception {
+        final Aliases author =
+            new DyBase().user(new URN("urn:test:88027")).aliases();
+        author.add("rebecca");
+        final Inbox mine = author.iterate().iterator().next().inbox();
+        final Aliases reader =
+            new DyBase().user(new URN("urn:test:88028")).aliases();
+        reader.add("tommy");
+        final Inbox inbox = reader.iterate().iterator().next().inbox();
+        final Bout bout = mine.bout(mine.start());
+        bout.friends().invite("tommy");
+        bout.messages().post("first");
+        bout.messages().post("second");
+        DyInboxITCase.await(inbox, 2L);
+        MatcherAssert.assertThat(inbox.unread(), Matchers.equalTo(2L));
+        Iterables.size(
+            inbox.bout(bout.number()).messages().jump(Inbox.NEVER).iterate()
+        );
+        DyInboxITCase.await(inbox, 0L);
+        MatcherAssert.assertThat(inbox.unread(), Matchers.equalTo(0L));
+    }
+
+    /**
+     * DyInbox can keep the total of unread messages when a friend is
+     * invited into the bout again.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void keepsUnreadTotalWhenInvitedAgain() throws Exception {
+        final Aliases author =
+            new DyBase().user(new URN("urn:test:88029")).aliases();
+        author.add("gisbourne");
+        final Inbox mine = author.iterate().iterator().next().inbox();
+        final Aliases reader =
+            new DyBase().user(new URN("urn:test:88030")).aliases();
+        final String alias = "marian";
+        reader.add(alias);
+        final Inbox inbox = reader.iterate().iterator().next().inbox();
+        final Bout bout = mine.bout(mine.start());
+        bout.friends().invite(alias);
+        bout.messages().post("hello");
+        DyInboxITCase.await(inbox, 1L);
+        bout.friends().invite(alias);
+        MatcherAssert.assertThat(
+            inbox.bout(bout.number()).messages().unread(),
+            Matchers.equalTo(1L)
+        );
+        MatcherAssert.assertThat(inbox.unread(), Matchers.equalTo(1L));
+    }
+
+    /**
+     * DyInbox can iterate all bouts, page by page.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void iteratesAllBouts() throws Exception {
+        final Aliases aliases =
+            new DyBase().user(new URN("urn:test:88317")).aliases();
+        aliases.add("pagina");
+        final Inbox inbox = aliases.iterate().iterator().next().inbox();
+        final int total = Inbox.PAGE + Tv.THREE;
+        for (int idx = 0; idx < total; ++idx) {
+            inbox.start();
+        }
+        MatcherAssert.assertThat(
+            inbox.iterate(), Matchers.<Bout>iterableWithSize(total)
+        );
+    }
+
     /**
      * DyInbox can jump over the list.
      * @throws Exception If there is some problem inside
@@ -159,4 +288,216 @@ public final class DyInboxITCase {
         MatcherAssert.assertThat(found, Matchers.equalTo(bouts));
     }
 
+    /**
+     * DyInbox can jump over bouts updated in the same millisecond.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void jumpsOverBoutsUpdatedTogether() throws Exception {
+        final String alias = "nicolas";
+        final Region region = new Region.Prefixed(
+            new Region.Simple(DyInboxITCase.creds()),
+            Manifests.read("Netbout-DynamoPrefix")
+        );
+        final Aliases aliases = new DyBase(region)
+            .user(new URN("urn:test:66150")).aliases();
+        aliases.add(alias);
+        final Inbox inbox = aliases.iterate().iterator().next().inbox();
+        final int total = Tv.FIVE;
+        final Set<Long> bouts = new HashSet<Long>(total);
+        final long updated = System.currentTimeMillis();
+        for (int idx = 0; idx < total; ++idx) {
+            final long number = inbox.start();
+            region.table(DyFriends.TBL).frame()
+                .where(DyFriends.HASH, Conditions.equalTo(number))
+                .where(DyFriends.RANGE, alias)
+                .iterator().next()
+                .put(
+                    DyFriends.ATTR_UPDATED,
+                    new AttributeValue().withN(Long.toString(updated))
+                );
+            bouts.add(number);
+        }
+        final List<Long> found = new ArrayList<Long>(total);
+        Pageable<Bout> pageable = inbox;
+        while (true) {
+            final Iterator<Bout> iterator = pageable.iterate().iterator();
+            if (!iterator.hasNext()) {
+                break;
+            }
+            final Bout bout = iterator.next();
+            pageable = pageable.jump(
+                Inbox.Cursor.of(bout.updated().getTime(), bout.number())
+            );
+            found.add(bout.number());
+        }
+        MatcherAssert.assertThat(found, Matchers.hasSize(total));
+        MatcherAssert.assertThat(
+            new HashSet<Long>(found), Matchers.equalTo(bouts)
+        );
+    }
+
+    /**
+     * DyInbox can start bouts with unique numbers in parallel.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void startsBoutsInParallel() throws Exception {
+        final String alias = "peter";
+        final Aliases aliases =
+            new DyBase().user(new URN("urn:test:77135")).aliases();
+        aliases.add(alias);
+        final Inbox inbox = aliases.iterate().iterator().next().inbox();
+        final int total = Tv.FIFTY;
+        final ExecutorService svc = Executors.newFixedThreadPool(Tv.FIVE);
+        final Collection<Future<Long>> futures =
+            new ArrayList<Future<Long>>(total);
+        for (int idx = 0; idx < total; ++idx) {
+            futures.add(
+                svc.submit(
+                    new Callable<Long>() {
+                        @Override
+                        public Long call() throws Exception {
+                            return inbox.start();
+                        }
+                    }
+                )
+            );
+        }
+        final Set<Long> numbers = new HashSet<Long>(total);
+        for (final Future<Long> future : futures) {
+            numbers.add(future.get());
+        }
+        svc.shutdown();
+        MatcherAssert.assertThat(numbers, Matchers.hasSize(total));
+    }
+
+    /**
+     * DyInbox can render a page of bouts with a single read.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void readsPageOfBoutsAtOnce() throws Exception {
+        final AtomicInteger reads = new AtomicInteger();
+        final Base base = new DyBase(
+            new Region.Prefixed(
+                new Region.Simple(
+                    DyInboxITCase.counting(DyInboxITCase.creds(), reads)
+                ),
+                Manifests.read("Netbout-DynamoPrefix")
+            )
+        );
+        base.user(new URN("urn:test:90554")).aliases().add("jenny");
+        final Aliases aliases = base.user(new URN("urn:test:90553")).aliases();
+        aliases.add("mary");
+        final Inbox inbox = aliases.iterate().iterator().next().inbox();
+        for (int idx = 0; idx < Tv.FIVE; ++idx) {
+            inbox.bout(inbox.start()).friends().invite("jenny");
+        }
+        TimeUnit.SECONDS.sleep(1L);
+        reads.set(0);
+        int bouts = 0;
+        for (final Bout bout : inbox.iterate()) {
+            bout.messages().unread();
+            bout.attachments().unseen();
+            MatcherAssert.assertThat(
+                bout.friends().iterate(),
+                Matchers.<Friend>iterableWithSize(2)
+            );
+            ++bouts;
+        }
+        MatcherAssert.assertThat(bouts, Matchers.equalTo(Tv.FIVE));
+        MatcherAssert.assertThat(reads.get(), Matchers.equalTo(1));
+    }
+
+    /**
+     * Credentials for DynamoDB Local.
+     * @return Credentials
+     */
+    private static Credentials creds() {
+        return new Credentials.Direct(
+            new Credentials.Simple(
+                Manifests.read("Netbout-DynamoKey"),
+                Manifests.read("Netbout-DynamoSecret")
+            ),
+            Integer.parseInt(System.getProperty("dynamo.port"))
+        );
+    }
+
+    /**
+     * Search the inbox until something is found, for ten seconds at most,
+     * since messages are indexed in background.
+     * @param inbox The inbox
+     * @param term What to find
+     * @return Bouts found
+     * @throws Exception If fails
+     */
+    private static Iterable<Bout> search(final Inbox inbox, final String term)
+        throws Exception {
+        final long start = System.currentTimeMillis();
+        Iterable<Bout> found = inbox.search(term);
+        while (!found.iterator().hasNext()
+            && System.currentTimeMillis() - start
+            < TimeUnit.SECONDS.toMillis((long) Tv.TEN)) {
+            TimeUnit.MILLISECONDS.sleep((long) Tv.HUNDRED);
+            found = inbox.search(term);
+        }
+        return found;
+    }
+
+    /**
+     * Wait until the inbox has this many unread messages, for ten
+     * seconds at most, since they are counted in background.
+     * @param inbox The inbox
+     * @param unread How many unread messages to expect
+     * @throws Exception If fails
+     */
+    private static void await(final Inbox inbox, final long unread)
+        throws Exception {
+        final long start = System.currentTimeMillis();
+        while (inbox.unread() != unread && System.currentTimeMillis() - start
+            < TimeUnit.SECONDS.toMillis((long) Tv.TEN)) {
+            TimeUnit.MILLISECONDS.sleep((long) Tv.HUNDRED);
+        }
+    }
+
+    /**
+     * Credentials that count all reads from DynamoDB.
+     * @param creds Original credentials
+     * @param reads Counter of reads
+     * @return Credentials
+     */
+    private static Credentials counting(final Credentials creds,
+        final AtomicInteger reads) {
+        return new Credentials() {
+            @Override
+            public AmazonDynamoDB aws() {
+                final AmazonDynamoDB aws = creds.aws();
+                return AmazonDynamoDB.class.cast(
+                    Proxy.newProxyInstance(
+                        AmazonDynamoDB.class.getClassLoader(),
+                        new Class<?>[] {AmazonDynamoDB.class},
+                        new InvocationHandler() {
+                            @Override
+                            public Object invoke(final Object proxy,
+                                final Method method, final Object[] args)
+                                throws Exception {
+                                if (method.getName().matches(
+                                    "query|scan|getItem|batchGetItem"
+                                )) {
+                                    reads.incrementAndGet();
+                                }
+                                try {
+                                    return method.invoke(aws, args);
+                                } catch (final InvocationTargetException ex) {
+                                    throw Exception.class.cast(ex.getCause());
+                                }
+                            }
+                        }
+                    )
+                );
+            }
+        };
+    }
+
 }
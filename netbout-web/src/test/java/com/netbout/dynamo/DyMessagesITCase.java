@@ -35,6 +35,7 @@ import com.netbout.spi.Message;
 import com.netbout.spi.Messages;
 import com.netbout.spi.Pageable;
 import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
 import org.hamcrest.MatcherAssert;
 import org.hamcrest.Matchers;
 import org.junit.Test;
@@ -128,4 +129,39 @@ public final class DyMessagesITCase {
             !result.hasNext()
         );
     }
+
+    /**
+     * DyMessages can find messages beyond the first page, through the index.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void searchesBeyondFirstPage() throws Exception {
+        final String alias = "fridrih";
+        final Aliases aliases =
+            new DyBase().user(new URN("urn:test:8831416")).aliases();
+        aliases.add(alias);
+        final Inbox inbox = aliases.iterate().iterator().next().inbox();
+        final Bout bout = inbox.bout(inbox.start());
+        bout.messages().post("a needle in the haystack");
+        for (int idx = 0; idx < Messages.PAGE + 2; ++idx) {
+            bout.messages().post(String.format("hay #%d", idx));
+        }
+        final long start = System.currentTimeMillis();
+        Iterator<Message> result = bout.messages().search("needle").iterator();
+        while (!result.hasNext()
+            && System.currentTimeMillis() - start < TimeUnit.SECONDS.toMillis(
+                (long) Tv.TEN
+            )) {
+            TimeUnit.MILLISECONDS.sleep((long) Tv.HUNDRED);
+            result = bout.messages().search("needle").iterator();
+        }
+        MatcherAssert.assertThat(
+            "indexed message not found",
+            result.hasNext()
+        );
+        MatcherAssert.assertThat(
+            result.next().text(),
+            Matchers.equalTo("a needle in the haystack")
+        );
+    }
 }
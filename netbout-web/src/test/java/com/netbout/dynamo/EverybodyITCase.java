@@ -0,0 +1,82 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.dynamo;
+
+import com.jcabi.dynamo.Attributes;
+import com.jcabi.dynamo.Region;
+import com.jcabi.urn.URN;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+/**
+ * Integration case for {@link Everybody}.
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 2.15
+ */
+public final class EverybodyITCase {
+
+    /**
+     * Everybody can tell occupied names from free ones.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void tellsOccupiedNames() throws Exception {
+        final Region region = DyBase.region();
+        final String name = "barbara";
+        new DyBase(region).user(new URN("urn:test:77")).aliases().add(name);
+        final Everybody everybody = new Everybody(region);
+        MatcherAssert.assertThat(everybody.occupied(name), Matchers.is(true));
+        MatcherAssert.assertThat(
+            everybody.occupied("nobodyhere"), Matchers.is(false)
+        );
+    }
+
+    /**
+     * Everybody can find names added by other nodes.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void findsNamesAddedElsewhere() throws Exception {
+        final Region region = DyBase.region();
+        final String name = "elsewhere";
+        final Everybody everybody = new Everybody(region);
+        MatcherAssert.assertThat(
+            everybody.registered(name), Matchers.is(false)
+        );
+        region.table(DyAliases.TBL).put(
+            new Attributes()
+                .with(DyAliases.HASH, name)
+                .with(DyAliases.ATTR_URN, "urn:test:78")
+        );
+        MatcherAssert.assertThat(
+            everybody.registered(name), Matchers.is(true)
+        );
+    }
+
+}
@@ -0,0 +1,85 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.dynamo;
+
+import co.stateful.Counter;
+import com.jcabi.dynamo.Attributes;
+import com.jcabi.dynamo.Region;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+/**
+ * Integration case for {@link Sequence}.
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 2.15
+ */
+public final class SequenceITCase {
+
+    /**
+     * Sequence can give out strictly sequential numbers.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void givesSequentialNumbers() throws Exception {
+        final Region region = DyBase.region();
+        final Counter first = new Sequence(region, 772_001L);
+        final Counter second = new Sequence(region, 772_001L);
+        first.set(0L);
+        MatcherAssert.assertThat(first.incrementAndGet(1L), Matchers.is(1L));
+        MatcherAssert.assertThat(second.incrementAndGet(1L), Matchers.is(2L));
+        MatcherAssert.assertThat(first.incrementAndGet(1L), Matchers.is(3L));
+        MatcherAssert.assertThat(
+            new Sequence(region, 772_002L).incrementAndGet(1L),
+            Matchers.is(1L)
+        );
+    }
+
+    /**
+     * Sequence can continue after the latest message of the bout.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void continuesAfterLatestMessage() throws Exception {
+        final Region region = DyBase.region();
+        final long bout = 772_003L;
+        final long latest = 9_876_543L;
+        region.table(DyMessages.TBL).put(
+            new Attributes()
+                .with(DyMessages.HASH, bout)
+                .with(DyMessages.RANGE, latest)
+                .with(DyMessages.ATTR_TEXT, "posted long ago")
+                .with(DyMessages.ATTR_ALIAS, "ancient")
+                .with(DyMessages.ATTR_DATE, System.currentTimeMillis())
+        );
+        MatcherAssert.assertThat(
+            new Sequence(region, bout).incrementAndGet(1L),
+            Matchers.is(latest + 1L)
+        );
+    }
+}
@@ -0,0 +1,123 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.dynamo;
+
+import com.jcabi.aspects.Tv;
+import com.jcabi.dynamo.Region;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+/**
+ * Integration case for {@link Terms}.
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 2.15
+ */
+public final class TermsITCase {
+
+    /**
+     * Terms can find messages by beginnings of their words.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void findsMessagesByWords() throws Exception {
+        final Terms terms = new Terms(DyBase.region(), "terms-one");
+        final long bout = 771_001L;
+        terms.index(bout, 1L, "The quick brown fox");
+        terms.index(bout, 2L, "A QUICKER brown dog, the quickest");
+        terms.index(bout, Tv.THREE, "nothing to see here");
+        MatcherAssert.assertThat(
+            terms.find(bout, "quick"), Matchers.contains(2L, 1L)
+        );
+        MatcherAssert.assertThat(
+            terms.find(bout, "Brown quicker"), Matchers.contains(2L)
+        );
+        MatcherAssert.assertThat(
+            terms.find(bout, "uick"), Matchers.emptyIterable()
+        );
+        MatcherAssert.assertThat(
+            terms.find(bout, "to"), Matchers.emptyIterable()
+        );
+    }
+
+    /**
+     * Terms can index long messages in many batches.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void indexesLongMessages() throws Exception {
+        final Terms terms = new Terms(DyBase.region(), "terms-two");
+        final long bout = 771_002L;
+        final StringBuilder text = new StringBuilder(0);
+        for (int idx = 0; idx < Tv.HUNDRED; ++idx) {
+            text.append(" word").append(idx);
+        }
+        terms.index(bout, Tv.SEVEN, text.toString());
+        MatcherAssert.assertThat(
+            terms.find(bout, "word99"), Matchers.contains((long) Tv.SEVEN)
+        );
+        MatcherAssert.assertThat(
+            terms.find(bout, "word"), Matchers.contains((long) Tv.SEVEN)
+        );
+    }
+
+    /**
+     * Terms can find bouts of an alias with one query per word.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void findsBoutsOfAlias() throws Exception {
+        final Terms terms = new Terms(DyBase.region(), "terms-three");
+        terms.index(771_003L, 1L, "secret plans");
+        terms.index(771_004L, 2L, "secret meeting");
+        terms.index(771_005L, Tv.THREE, "public plans");
+        MatcherAssert.assertThat(
+            terms.bouts("secret"), Matchers.contains(771_004L, 771_003L)
+        );
+        MatcherAssert.assertThat(
+            terms.bouts("plans secret"), Matchers.contains(771_003L)
+        );
+        MatcherAssert.assertThat(
+            terms.find(771_003L, "meeting"), Matchers.emptyIterable()
+        );
+    }
+
+    /**
+     * Terms keep aliases apart.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void keepsAliasesApart() throws Exception {
+        final Region region = DyBase.region();
+        new Terms(region, "terms-four").index(771_006L, 1L, "hidden plans");
+        MatcherAssert.assertThat(
+            new Terms(region, "terms-five").bouts("hidden"),
+            Matchers.emptyIterable()
+        );
+    }
+}
@@ -30,9 +30,21 @@ import com.icegreen.greenmail.user.GreenMailUser;
 import com.icegreen.greenmail.util.GreenMail;
 import com.icegreen.greenmail.util.GreenMailUtil;
 import com.icegreen.greenmail.util.ServerSetup;
+import com.jcabi.aspects.Tv;
 import com.netbout.misc.Ports;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import javax.mail.Flags;
+import javax.mail.Folder;
 import javax.mail.Message;
 import javax.mail.MessagingException;
+import javax.mail.Session;
+import javax.mail.Store;
+import javax.mail.URLName;
 import javax.mail.internet.MimeMessage;
 import org.hamcrest.MatcherAssert;
 import org.hamcrest.Matchers;
@@ -47,73 +59,157 @@ import org.junit.Test;
 public final class EmCatchTest {
 
     /**
-     * EmCatch can periodically read inbox and call Action.run.
+     * EmCatch can catch new messages, each of them once.
      * @throws Exception If there is some problem inside
      */
     @Test
-    public void readsInboxPeriodically() throws Exception {
+    public void catchesNewMessagesOnce() throws Exception {
         final Ports ports = new Ports();
         final GreenMail mail = new GreenMail(
-            new ServerSetup(ports.allocate(), null, "pop3")
+            new ServerSetup(ports.allocate(), null, "imap")
         );
         mail.start();
-        final ServerSetup setup = mail.getPop3().getServerSetup();
-        final String mailUser = "to";
-        // @checkstyle MagicNumberCheck (1 line)
-        final String from = "from@localhost.com";
-        // @checkstyle LocalFinalVariableNameCheck (1 line)
-        final String to = "to@localhost.com";
+        final ServerSetup setup = mail.getImap().getServerSetup();
         final String password = "soooosecret";
-        final String subject = GreenMailUtil.random();
-        final String body = GreenMailUtil.random();
-        final GreenMailUser user = mail.setUser(mailUser, password);
-        new EmCatch(
-            // @checkstyle AnonInnerLengthCheck (22 lines)
+        final GreenMailUser user = mail.setUser("to", password);
+        final List<String> subjects = new CopyOnWriteArrayList<>();
+        final EmCatch catcher = new EmCatch(
             new EmCatch.Action() {
                 @Override
                 public void run(final Message msg) {
-                    MatcherAssert.assertThat(msg, Matchers.notNullValue());
                     try {
-                        MatcherAssert.assertThat(
-                            msg.getSubject(),
-                            Matchers.equalTo(subject)
-                        );
-                        MatcherAssert.assertThat(
-                            msg.getFrom()[0].toString(),
-                            Matchers.equalTo(from)
-                        );
-                        MatcherAssert.assertThat(
-                            msg.getAllRecipients()[0].toString(),
-                            Matchers.equalTo(to)
-                        );
+                        subjects.add(msg.getSubject());
                     } catch (final MessagingException ex) {
                         throw new IllegalStateException(ex);
                     }
                 }
             },
-            mailUser,
+            "to",
             password,
             setup.getBindAddress(),
             setup.getPort(),
-            // @checkstyle MagicNumberCheck (1 line)
-            500L
+            (long) Tv.HUNDRED
         );
-        final MimeMessage message = GreenMailUtil.createTextEmail(
-            to,
-            from,
-            subject,
-            body,
-            setup
+        try {
+            final String first = GreenMailUtil.random();
+            user.deliver(EmCatchTest.email(first, setup));
+            EmCatchTest.await(subjects, 1);
+            final String second = GreenMailUtil.random();
+            user.deliver(EmCatchTest.email(second, setup));
+            EmCatchTest.await(subjects, 2);
+            TimeUnit.SECONDS.sleep(1L);
+            MatcherAssert.assertThat(
+                subjects, Matchers.contains(first, second)
+            );
+        } finally {
+            catcher.close();
+            ports.release(setup.getPort());
+            mail.stop();
+        }
+    }
+
+    /**
+     * EmCatch can mark a message as seen only when it is handled.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void marksSeenOnlyHandledMessages() throws Exception {
+        final Ports ports = new Ports();
+        final GreenMail mail = new GreenMail(
+            new ServerSetup(ports.allocate(), null, "imap")
         );
-        user.deliver(message);
-        MatcherAssert.assertThat(
-            mail.getReceivedMessages().length,
-            Matchers.equalTo(1)
+        mail.start();
+        final ServerSetup setup = mail.getImap().getServerSetup();
+        final String password = "veeerysecret";
+        final GreenMailUser user = mail.setUser("to", password);
+        final String bad = "broken";
+        final List<String> subjects = new CopyOnWriteArrayList<>();
+        final EmCatch catcher = new EmCatch(
+            new EmCatch.Action() {
+                @Override
+                public void run(final Message msg) {
+                    try {
+                        subjects.add(msg.getSubject());
+                        if (bad.equals(msg.getSubject())) {
+                            throw new IllegalArgumentException(bad);
+                        }
+                    } catch (final MessagingException ex) {
+                        throw new IllegalStateException(ex);
+                    }
+                }
+            },
+            "to",
+            password,
+            setup.getBindAddress(),
+            setup.getPort(),
+            (long) Tv.HUNDRED
         );
-        // @checkstyle MagicNumberCheck (1 line)
-        Thread.sleep(1000);
-        ports.release(setup.getPort());
-        mail.stop();
+        try {
+            user.deliver(EmCatchTest.email(bad, setup));
+            final String good = GreenMailUtil.random();
+            user.deliver(EmCatchTest.email(good, setup));
+            EmCatchTest.await(subjects, 2);
+            TimeUnit.SECONDS.sleep(1L);
+            final Store store = Session.getInstance(new Properties())
+                .getStore(
+                    new URLName(
+                        "imap", setup.getBindAddress(), setup.getPort(),
+                        null, "to", password
+                    )
+                );
+            store.connect();
+            try {
+                final Folder inbox = store.getFolder("INBOX");
+                inbox.open(Folder.READ_ONLY);
+                final Map<String, Boolean> seen = new HashMap<>(0);
+                for (final Message msg : inbox.getMessages()) {
+                    seen.put(msg.getSubject(), msg.isSet(Flags.Flag.SEEN));
+                }
+                inbox.close(false);
+                MatcherAssert.assertThat(
+                    seen,
+                    Matchers.allOf(
+                        Matchers.hasEntry(good, true),
+                        Matchers.hasEntry(bad, false)
+                    )
+                );
+            } finally {
+                store.close();
+            }
+        } finally {
+            catcher.close();
+            ports.release(setup.getPort());
+            mail.stop();
+        }
+    }
+
+    /**
+     * Make an email.
+     * @param subject Subject
+     * @param setup Server setup
+     * @return Message
+     */
+    private static MimeMessage email(final String subject,
+        final ServerSetup setup) {
+        return GreenMailUtil.createTextEmail(
+            "to@localhost.com", "from@localhost.com",
+            subject, GreenMailUtil.random(), setup
+        );
+    }
+
+    /**
+     * Wait until the list has enough items, for ten seconds at most.
+     * @param items Items
+     * @param size How many of them are expected
+     * @throws InterruptedException If interrupted
+     */
+    private static void await(final List<String> items, final int size)
+        throws InterruptedException {
+        final long start = System.currentTimeMillis();
+        while (items.size() < size && System.currentTimeMillis() - start
+            < TimeUnit.SECONDS.toMillis((long) Tv.TEN)) {
+            TimeUnit.MILLISECONDS.sleep((long) Tv.HUNDRED);
+        }
     }
 
 }
@@ -26,6 +26,7 @@
  */
 package com.netbout.email;
 
+import com.jcabi.aspects.Tv;
 import com.jcabi.email.Envelope;
 import com.jcabi.email.Postman;
 import com.netbout.mock.MkBase;
@@ -61,7 +62,8 @@ public final class EmMessagesITCase {
         bout.messages().post("Are you using GMail?");
         final ArgumentCaptor<Envelope> captor =
             ArgumentCaptor.forClass(Envelope.class);
-        Mockito.verify(postman).send(captor.capture());
+        Mockito.verify(postman, Mockito.timeout(Tv.FIVE * Tv.THOUSAND))
+            .send(captor.capture());
         final Message msg = captor.getValue().unwrap();
         final ByteArrayOutputStream baos = new ByteArrayOutputStream();
         MimeMultipart.class.cast(msg.getContent()).writeTo(baos);
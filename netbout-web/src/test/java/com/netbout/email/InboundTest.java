@@ -0,0 +1,166 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.email;
+
+import com.jcabi.aspects.Tv;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.mail.Message;
+import javax.mail.MessagingException;
+import javax.mail.Session;
+import javax.mail.internet.InternetAddress;
+import javax.mail.internet.MimeMessage;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+/**
+ * Test case for {@link Inbound}.
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 2.15
+ */
+public final class InboundTest {
+
+    /**
+     * Inbound can handle messages of one bout in order.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void keepsOrderOfMessagesInBout() throws Exception {
+        final List<String> first =
+            Collections.synchronizedList(new ArrayList<String>(0));
+        final List<String> second =
+            Collections.synchronizedList(new ArrayList<String>(0));
+        final Inbound inbound = new Inbound(
+            new EmCatch.Action() {
+                @Override
+                public void run(final Message msg) {
+                    try {
+                        if (msg.getAllRecipients()[0].toString()
+                            .startsWith("1@")) {
+                            first.add(msg.getSubject());
+                        } else {
+                            second.add(msg.getSubject());
+                        }
+                    } catch (final MessagingException ex) {
+                        throw new IllegalStateException(ex);
+                    }
+                }
+            }
+        );
+        final AtomicInteger done = new AtomicInteger();
+        final Inbound.Receipt receipt = new Inbound.Receipt() {
+            @Override
+            public void success() {
+                done.incrementAndGet();
+            }
+            @Override
+            public void failure() {
+                throw new UnsupportedOperationException("#failure()");
+            }
+        };
+        final List<String> expected = new ArrayList<>(Tv.FIFTY);
+        for (int idx = 0; idx < Tv.FIFTY; ++idx) {
+            final String subject = String.format("message %02d", idx);
+            expected.add(subject);
+            inbound.accept(
+                InboundTest.email("1@reply.netbout.com", subject), receipt
+            );
+            inbound.accept(
+                InboundTest.email("2@reply.netbout.com", subject), receipt
+            );
+        }
+        inbound.close();
+        MatcherAssert.assertThat(first, Matchers.equalTo(expected));
+        MatcherAssert.assertThat(second, Matchers.equalTo(expected));
+        MatcherAssert.assertThat(done.get(), Matchers.equalTo(Tv.HUNDRED));
+        MatcherAssert.assertThat(inbound.depth(), Matchers.equalTo(0));
+        MatcherAssert.assertThat(
+            inbound.latency(), Matchers.greaterThanOrEqualTo(0L)
+        );
+    }
+
+    /**
+     * Inbound can try the action again and give up on a dead letter.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void triesAgainAndRejectsDeadLetter() throws Exception {
+        final AtomicInteger runs = new AtomicInteger();
+        final Inbound inbound = new Inbound(
+            new EmCatch.Action() {
+                @Override
+                public void run(final Message msg) {
+                    runs.incrementAndGet();
+                    throw new IllegalArgumentException("can't post");
+                }
+            }
+        );
+        final AtomicInteger failed = new AtomicInteger();
+        inbound.accept(
+            InboundTest.email("5@reply.netbout.com", "dead"),
+            new Inbound.Receipt() {
+                @Override
+                public void success() {
+                    throw new UnsupportedOperationException("#success()");
+                }
+                @Override
+                public void failure() {
+                    failed.incrementAndGet();
+                }
+            }
+        );
+        inbound.close();
+        MatcherAssert.assertThat(runs.get(), Matchers.equalTo(Tv.THREE));
+        MatcherAssert.assertThat(failed.get(), Matchers.equalTo(1));
+    }
+
+    /**
+     * Make an email.
+     * @param rcpt Recipient
+     * @param subject Subject
+     * @return MIME bytes
+     * @throws Exception If fails
+     */
+    private static byte[] email(final String rcpt, final String subject)
+        throws Exception {
+        final MimeMessage msg =
+            new MimeMessage(Session.getInstance(new Properties()));
+        msg.setRecipient(Message.RecipientType.TO, new InternetAddress(rcpt));
+        msg.setSubject(subject);
+        msg.setText("hello");
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        msg.writeTo(baos);
+        return baos.toByteArray();
+    }
+
+}
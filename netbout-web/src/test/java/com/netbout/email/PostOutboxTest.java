@@ -0,0 +1,209 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.email;
+
+import com.jcabi.aspects.Tv;
+import com.jcabi.email.Envelope;
+import com.jcabi.email.Postman;
+import com.jcabi.email.enclosure.EnPlain;
+import com.jcabi.email.stamp.StRecipient;
+import com.jcabi.email.stamp.StSubject;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import javax.mail.Message;
+import org.apache.commons.io.FileUtils;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+/**
+ * Test case for {@link PostOutbox}.
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 2.15
+ */
+public final class PostOutboxTest {
+
+    /**
+     * Temporary folder.
+     * @checkstyle VisibilityModifier (3 lines)
+     */
+    @Rule
+    public final transient TemporaryFolder temp = new TemporaryFolder();
+
+    /**
+     * PostOutbox can deliver an email in background.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void deliversEmail() throws Exception {
+        final Postman postman = Mockito.mock(Postman.class);
+        final PostOutbox outbox = new PostOutbox(
+            postman, this.temp.newFolder(), (long) Tv.HUNDRED
+        );
+        try {
+            outbox.send(PostOutboxTest.envelope("#1: hi", "hello"));
+            Mockito.verify(postman, Mockito.timeout(Tv.FIVE * Tv.THOUSAND))
+                .send(Mockito.any(Envelope.class));
+        } finally {
+            outbox.close();
+        }
+    }
+
+    /**
+     * PostOutbox can collect emails of one bout into one.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void collectsEmailsIntoOne() throws Exception {
+        final Postman postman = Mockito.mock(Postman.class);
+        final PostOutbox outbox = new PostOutbox(
+            postman, this.temp.newFolder(), (long) Tv.THOUSAND
+        );
+        try {
+            outbox.send(PostOutboxTest.envelope("#2: hey", "first text"));
+            outbox.send(PostOutboxTest.envelope("#2: hey", "second text"));
+            TimeUnit.SECONDS.sleep((long) Tv.THREE);
+            final ArgumentCaptor<Envelope> captor =
+                ArgumentCaptor.forClass(Envelope.class);
+            Mockito.verify(postman).send(captor.capture());
+            final Message msg = captor.getValue().unwrap();
+            final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            msg.writeTo(baos);
+            MatcherAssert.assertThat(
+                baos.toString(),
+                Matchers.allOf(
+                    Matchers.containsString("first text"),
+                    Matchers.containsString("second text")
+                )
+            );
+        } finally {
+            outbox.close();
+        }
+    }
+
+    /**
+     * PostOutbox can deliver emails left in the journal.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void deliversEmailsAfterRestart() throws Exception {
+        final File dir = this.temp.newFolder();
+        final PostOutbox before = new PostOutbox(
+            Mockito.mock(Postman.class), dir, TimeUnit.HOURS.toMillis(1L)
+        );
+        before.send(PostOutboxTest.envelope("#3: hello", "are you there?"));
+        before.close();
+        final Postman postman = Mockito.mock(Postman.class);
+        final PostOutbox after = new PostOutbox(
+            postman, dir, (long) Tv.HUNDRED
+        );
+        try {
+            Mockito.verify(postman, Mockito.timeout(Tv.FIVE * Tv.THOUSAND))
+                .send(Mockito.any(Envelope.class));
+        } finally {
+            after.close();
+        }
+    }
+
+    /**
+     * PostOutbox can skip a record torn at the end of the journal.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void skipsTornRecord() throws Exception {
+        final File dir = this.temp.newFolder();
+        final PostOutbox before = new PostOutbox(
+            Mockito.mock(Postman.class), dir, TimeUnit.HOURS.toMillis(1L)
+        );
+        before.send(PostOutboxTest.envelope("#5: torn", "still here?"));
+        before.close();
+        final File journal = new File(dir, "outbox.journal");
+        FileUtils.write(
+            journal, "- 1x\n+ 77 RnJvbTo", StandardCharsets.UTF_8, true
+        );
+        final Postman postman = Mockito.mock(Postman.class);
+        final PostOutbox after = new PostOutbox(
+            postman, dir, (long) Tv.HUNDRED
+        );
+        try {
+            Mockito.verify(postman, Mockito.timeout(Tv.FIVE * Tv.THOUSAND))
+                .send(Mockito.any(Envelope.class));
+            MatcherAssert.assertThat(
+                FileUtils.readFileToString(journal, StandardCharsets.UTF_8),
+                Matchers.not(Matchers.containsString("+ 77"))
+            );
+        } finally {
+            after.close();
+        }
+    }
+
+    /**
+     * PostOutbox can try again when delivery fails.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void retriesFailedDelivery() throws Exception {
+        final Postman postman = Mockito.mock(Postman.class);
+        Mockito.doThrow(new IOException("SMTP is down"))
+            .doNothing()
+            .when(postman).send(Mockito.any(Envelope.class));
+        final PostOutbox outbox = new PostOutbox(
+            postman, this.temp.newFolder(), (long) Tv.HUNDRED
+        );
+        try {
+            outbox.send(PostOutboxTest.envelope("#4: again", "once more"));
+            Mockito.verify(
+                postman, Mockito.timeout(Tv.FIVE * Tv.THOUSAND).times(2)
+            ).send(Mockito.any(Envelope.class));
+        } finally {
+            outbox.close();
+        }
+    }
+
+    /**
+     * Make an envelope to one friend.
+     * @param subject Subject
+     * @param text Text
+     * @return Envelope
+     */
+    private static Envelope envelope(final String subject,
+        final String text) {
+        return new Envelope.MIME()
+            .with(new StRecipient("jeff", "jeff@example.com"))
+            .with(new StSubject(subject))
+            .with(new EnPlain(text));
+    }
+
+}
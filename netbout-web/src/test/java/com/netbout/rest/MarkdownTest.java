@@ -26,7 +26,14 @@
  */
 package com.netbout.rest;
 
+import com.jcabi.aspects.Tv;
 import com.jcabi.matchers.XhtmlMatchers;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.hamcrest.MatcherAssert;
 import org.hamcrest.Matchers;
 import org.junit.Test;
@@ -57,6 +64,53 @@ public final class MarkdownTest {
         );
     }
 
+    /**
+     * Markdown can render the same text only once.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void rendersSameTextOnce() throws Exception {
+        final String text = "**cached** text, see http://www.netbout.com";
+        MatcherAssert.assertThat(
+            new Markdown(text).html(),
+            Matchers.sameInstance(new Markdown(text).html())
+        );
+    }
+
+    /**
+     * Markdown can render texts in many threads.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void rendersInManyThreads() throws Exception {
+        final int total = Tv.HUNDRED;
+        final ExecutorService svc = Executors.newFixedThreadPool(Tv.TEN);
+        final List<Future<String>> futures =
+            new ArrayList<Future<String>>(total);
+        for (int idx = 0; idx < total; ++idx) {
+            final String text = String.format("text **number %d**", idx);
+            futures.add(
+                svc.submit(
+                    new Callable<String>() {
+                        @Override
+                        public String call() {
+                            return new Markdown(text).html();
+                        }
+                    }
+                )
+            );
+        }
+        for (int idx = 0; idx < total; ++idx) {
+            MatcherAssert.assertThat(
+                futures.get(idx).get(),
+                Matchers.containsString(
+                    String.format("<strong>number %d</strong>", idx)
+                )
+            );
+        }
+        svc.shutdown();
+    }
+
     /**
      * Markdown can format a text to HTML.
      * @throws Exception If there is some problem inside
@@ -0,0 +1,113 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.rest;
+
+import com.jcabi.aspects.Tv;
+import java.io.File;
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.io.FileUtils;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Test case for {@link Thumbs}.
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 2.15
+ */
+public final class ThumbsTest {
+
+    /**
+     * Temporary folder.
+     * @checkstyle VisibilityModifier (3 lines)
+     */
+    @Rule
+    public final transient TemporaryFolder temp = new TemporaryFolder();
+
+    /**
+     * Thumbs can read a thumbnail from disk, without rendering it.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void readsThumbnailFromDisk() throws Exception {
+        final File dir = this.temp.newFolder();
+        final URI photo = URI.create("http://localhost:1/not-reachable.png");
+        final byte[] png = {(byte) 1, (byte) 2, (byte) 3};
+        FileUtils.writeByteArrayToFile(
+            new File(dir, Thumbs.name("william", photo)), png
+        );
+        MatcherAssert.assertThat(
+            new Thumbs(dir).get("william", photo),
+            Matchers.equalTo(png)
+        );
+    }
+
+    /**
+     * Thumbs can delete thumbnails not read for a long time.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void deletesOldThumbnails() throws Exception {
+        final File dir = this.temp.newFolder();
+        final File old = new File(dir, "old.png");
+        FileUtils.writeByteArrayToFile(old, new byte[] {(byte) 1});
+        MatcherAssert.assertThat(
+            old.setLastModified(
+                System.currentTimeMillis() - TimeUnit.DAYS.toMillis(
+                    (long) Tv.HUNDRED
+                )
+            ),
+            Matchers.is(true)
+        );
+        final File fresh = new File(dir, "fresh.png");
+        FileUtils.writeByteArrayToFile(fresh, new byte[] {(byte) 2});
+        MatcherAssert.assertThat(new Thumbs(dir).clean(), Matchers.is(1));
+        MatcherAssert.assertThat(old.exists(), Matchers.is(false));
+        MatcherAssert.assertThat(fresh.exists(), Matchers.is(true));
+    }
+
+    /**
+     * Thumbs can give different names to different photos.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void namesThumbnailsByPhoto() throws Exception {
+        final String alias = "jack";
+        final String first = Thumbs.name(
+            alias, URI.create("http://img.netbout.com/a.png")
+        );
+        MatcherAssert.assertThat(
+            Thumbs.name(alias, URI.create("http://img.netbout.com/b.png")),
+            Matchers.not(Matchers.equalTo(first))
+        );
+    }
+
+}
@@ -54,4 +54,36 @@ public final class TkFaviconTest {
         );
     }
 
+    /**
+     * TkFavicon can render the same icon for all big numbers.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void rendersSameIconForBigNumbers() throws Exception {
+        MatcherAssert.assertThat(
+            new RsPrint(
+                new TkFavicon().act(new RqFake("GET", "/?unread=150"))
+            ).printBody(),
+            Matchers.equalTo(
+                new RsPrint(
+                    new TkFavicon().act(new RqFake("GET", "/?unread=99"))
+                ).printBody()
+            )
+        );
+    }
+
+    /**
+     * TkFavicon can ask browsers to keep the icon.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void asksToCacheIcon() throws Exception {
+        MatcherAssert.assertThat(
+            new RsPrint(
+                new TkFavicon().act(new RqFake("GET", "/?unread=5"))
+            ).printHead(),
+            Matchers.containsString("Cache-Control: public, max-age=")
+        );
+    }
+
 }
@@ -34,6 +34,7 @@ import org.hamcrest.Matchers;
 import org.junit.Test;
 import org.takes.facets.auth.RqWithAuth;
 import org.takes.facets.fork.RqRegex;
+import org.takes.rq.RqWithHeader;
 import org.takes.rs.RsPrint;
 
 /**
@@ -67,4 +68,35 @@ public final class TkFriendTest {
         );
     }
 
+    /**
+     * TkFriend can reply "not modified" to a known etag.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void repliesNotModifiedToKnownEtag() throws Exception {
+        final Base base = new MkBase();
+        final String alias = "robin";
+        final String urn = "urn:test:2";
+        base.user(new URN(urn)).aliases().add(alias);
+        final String etag = Thumbs.name(
+            alias,
+            base.user(new URN(urn)).aliases().iterate()
+                .iterator().next().photo()
+        );
+        MatcherAssert.assertThat(
+            new RsPrint(
+                new TkFriend(base).act(
+                    new RqRegex.Fake(
+                        new RqWithHeader(
+                            new RqWithAuth(urn),
+                            String.format("If-None-Match: \"%s\"", etag)
+                        ),
+                        "(.*)", alias
+                    )
+                )
+            ).print(),
+            Matchers.startsWith("HTTP/1.1 304")
+        );
+    }
+
 }
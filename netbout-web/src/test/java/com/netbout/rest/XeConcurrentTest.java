@@ -0,0 +1,75 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.rest;
+
+import com.jcabi.matchers.XhtmlMatchers;
+import org.hamcrest.MatcherAssert;
+import org.junit.Test;
+import org.takes.rs.xe.XeAppend;
+import org.xembly.Directives;
+import org.xembly.Xembler;
+
+/**
+ * Test case for {@link XeConcurrent}.
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 2.15
+ */
+public final class XeConcurrentTest {
+
+    /**
+     * XeConcurrent can keep the order of sources.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void keepsOrderOfSources() throws Exception {
+        MatcherAssert.assertThat(
+            new Xembler(
+                new Directives().add("root").append(
+                    new XeConcurrent(
+                        new XeAppend("first", "1"),
+                        new XeAppend(
+                            "second",
+                            new XeConcurrent(
+                                new XeAppend("alpha", "a"),
+                                new XeAppend("beta", "b")
+                            )
+                        ),
+                        new XeAppend("third", "3")
+                    ).toXembly()
+                )
+            ).xml(),
+            XhtmlMatchers.hasXPaths(
+                "/root/*[1][name()='first' and .='1']",
+                "/root/*[2][name()='second']/*[1][name()='alpha']",
+                "/root/*[2][name()='second']/*[2][name()='beta']",
+                "/root/*[3][name()='third' and .='3']"
+            )
+        );
+    }
+
+}
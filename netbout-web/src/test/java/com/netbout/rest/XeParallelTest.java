@@ -0,0 +1,120 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.rest;
+
+import com.jcabi.aspects.Tv;
+import com.jcabi.matchers.XhtmlMatchers;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+import org.takes.rs.xe.XeAppend;
+import org.takes.rs.xe.XeSource;
+import org.takes.rs.xe.XeTransform;
+import org.xembly.Directives;
+import org.xembly.Xembler;
+
+/**
+ * Test case for {@link XeParallel}.
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 2.15
+ */
+public final class XeParallelTest {
+
+    /**
+     * XeParallel can keep the order of items.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void keepsOrderOfItems() throws Exception {
+        final List<Integer> items = new ArrayList<>(Tv.TWENTY);
+        for (int idx = 0; idx < Tv.TWENTY; ++idx) {
+            items.add(idx);
+        }
+        MatcherAssert.assertThat(
+            XeParallelTest.xml(items, 0L),
+            XhtmlMatchers.hasXPaths(
+                "/root[count(item)=20]",
+                "/root/item[1][.='0']",
+                "/root/item[10][.='9']",
+                "/root/item[20][.='19']"
+            )
+        );
+    }
+
+    /**
+     * XeParallel can render items at the same time.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void rendersItemsConcurrently() throws Exception {
+        final List<Integer> items = new ArrayList<>(Tv.TWENTY);
+        for (int idx = 0; idx < Tv.TWENTY; ++idx) {
+            items.add(idx);
+        }
+        final long start = System.currentTimeMillis();
+        XeParallelTest.xml(items, (long) Tv.HUNDRED);
+        MatcherAssert.assertThat(
+            System.currentTimeMillis() - start,
+            Matchers.lessThan(TimeUnit.SECONDS.toMillis(1L))
+        );
+    }
+
+    /**
+     * Render items to XML.
+     * @param items Items
+     * @param delay Delay of every item, in msec
+     * @return XML
+     * @throws Exception If fails
+     */
+    private static String xml(final Iterable<Integer> items,
+        final long delay) throws Exception {
+        return new Xembler(
+            new Directives().add("root").append(
+                new XeParallel<>(
+                    items,
+                    new XeTransform.Func<Integer>() {
+                        @Override
+                        public XeSource transform(final Integer item) {
+                            try {
+                                TimeUnit.MILLISECONDS.sleep(delay);
+                            } catch (final InterruptedException ex) {
+                                Thread.currentThread().interrupt();
+                                throw new IllegalStateException(ex);
+                            }
+                            return new XeAppend("item", item.toString());
+                        }
+                    }
+                ).toXembly()
+            )
+        ).xml();
+    }
+
+}
@@ -0,0 +1,182 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.rest;
+
+import com.jcabi.aspects.Tv;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+import org.takes.rs.RsPrint;
+import org.w3c.dom.Node;
+import org.xembly.Directives;
+import org.xembly.Xembler;
+
+/**
+ * Test case for {@link Xslt}.
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 2.15
+ */
+public final class XsltTest {
+
+    /**
+     * Xslt can transform XML with a stylesheet from classpath.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void transformsWithStylesheetFromClasspath() throws Exception {
+        MatcherAssert.assertThat(
+            XsltTest.render("Jeffrey"),
+            Matchers.containsString("<p>Jeffrey</p>")
+        );
+    }
+
+    /**
+     * Xslt can transform a document without printing it.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void transformsDocument() throws Exception {
+        final Node dom = new Xembler(
+            new Directives().add("page").add("name").set("Anna")
+        ).dom();
+        MatcherAssert.assertThat(
+            new RsPrint(
+                new Xslt("/com/netbout/rest/xslt-page.xsl").html(dom)
+            ).printBody(),
+            Matchers.containsString("<p>Anna</p>")
+        );
+        MatcherAssert.assertThat(
+            new RsPrint(Xslt.xml(dom)).printBody(),
+            Matchers.containsString("<name>Anna</name>")
+        );
+    }
+
+    /**
+     * Xslt can render a page with texts in its language.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void rendersPageWithTexts() throws Exception {
+        MatcherAssert.assertThat(
+            new String(
+                new Xslt("/xsl/account.xsl").transform(
+                    new ByteArrayInputStream(
+                        new StringBuilder("<page>")
+                            .append("<alias><name>jeff</name>")
+                            .append("<locale>en</locale></alias>")
+                            .append("<version><name>2.15</name></version>")
+                            .append("</page>")
+                            .toString()
+                            .getBytes(StandardCharsets.UTF_8)
+                    )
+                ),
+                StandardCharsets.UTF_8
+            ),
+            Matchers.containsString("Every time you get a new message")
+        );
+    }
+
+    /**
+     * Xslt can include a stylesheet by relative path.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void includesByRelativePath() throws Exception {
+        MatcherAssert.assertThat(
+            new String(
+                new Xslt("/com/netbout/rest/xslt-relative.xsl").transform(
+                    new ByteArrayInputStream(
+                        "<page><name>Walter</name></page>"
+                            .getBytes(StandardCharsets.UTF_8)
+                    )
+                ),
+                StandardCharsets.UTF_8
+            ),
+            Matchers.containsString("<p>Walter</p>")
+        );
+    }
+
+    /**
+     * Xslt can transform in many threads at the same time.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void transformsInManyThreads() throws Exception {
+        final ExecutorService svc = Executors.newFixedThreadPool(Tv.EIGHT);
+        final Collection<Future<String>> futures = new ArrayList<>(0);
+        for (int idx = 0; idx < Tv.HUNDRED; ++idx) {
+            final String name = String.format("name-%d", idx);
+            futures.add(
+                svc.submit(
+                    new Callable<String>() {
+                        @Override
+                        public String call() throws Exception {
+                            return XsltTest.render(name);
+                        }
+                    }
+                )
+            );
+        }
+        int idx = 0;
+        for (final Future<String> future : futures) {
+            MatcherAssert.assertThat(
+                future.get(),
+                Matchers.containsString(String.format("<p>name-%d</p>", idx))
+            );
+            ++idx;
+        }
+        svc.shutdown();
+    }
+
+    /**
+     * Render a page with the name.
+     * @param name The name
+     * @return HTML
+     * @throws Exception If fails
+     */
+    private static String render(final String name) throws Exception {
+        return new String(
+            new Xslt("/com/netbout/rest/xslt-page.xsl").transform(
+                new ByteArrayInputStream(
+                    String.format("<page><name>%s</name></page>", name)
+                        .getBytes(StandardCharsets.UTF_8)
+                )
+            ),
+            StandardCharsets.UTF_8
+        );
+    }
+
+}
@@ -0,0 +1,207 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.rest.bout;
+
+import com.jcabi.urn.URN;
+import com.netbout.mock.MkBase;
+import com.netbout.spi.Alias;
+import com.netbout.spi.Attachment;
+import com.netbout.spi.User;
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.apache.commons.lang3.CharEncoding;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+import org.takes.Response;
+import org.takes.facets.auth.RqWithAuth;
+import org.takes.rq.RqFake;
+import org.takes.rs.RsPrint;
+
+/**
+ * Test case for {@link TkDownload}.
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 2.15
+ */
+public final class TkDownloadTest {
+
+    /**
+     * URN of the user.
+     */
+    private static final String URN = "urn:test:1";
+
+    /**
+     * TkDownload can reply "not modified" to a known etag.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void repliesNotModifiedToKnownEtag() throws Exception {
+        final MkBase base = new MkBase();
+        final long bout = TkDownloadTest.attach(base);
+        MatcherAssert.assertThat(
+            new RsPrint(
+                TkDownloadTest.download(
+                    base, bout, "If-None-Match: \"e1\""
+                )
+            ).print(),
+            Matchers.startsWith("HTTP/1.1 304")
+        );
+    }
+
+    /**
+     * TkDownload can match a list of etags and a star.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void matchesListOfEtags() throws Exception {
+        final MkBase base = new MkBase();
+        final long bout = TkDownloadTest.attach(base);
+        MatcherAssert.assertThat(
+            new RsPrint(
+                TkDownloadTest.download(
+                    base, bout, "If-None-Match: \"e0\", W/\"e1\""
+                )
+            ).print(),
+            Matchers.startsWith("HTTP/1.1 304")
+        );
+        MatcherAssert.assertThat(
+            new RsPrint(
+                TkDownloadTest.download(base, bout, "If-None-Match: *")
+            ).print(),
+            Matchers.startsWith("HTTP/1.1 304")
+        );
+        MatcherAssert.assertThat(
+            new RsPrint(
+                TkDownloadTest.download(
+                    base, bout, "If-None-Match: \"e0\", \"e2\""
+                )
+            ).print(),
+            Matchers.startsWith("HTTP/1.1 200")
+        );
+    }
+
+    /**
+     * TkDownload can return a range of bytes.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void returnsRangeOfBytes() throws Exception {
+        final MkBase base = new MkBase();
+        final long bout = TkDownloadTest.attach(base);
+        final RsPrint response = new RsPrint(
+            TkDownloadTest.download(base, bout, "Range: bytes=7-")
+        );
+        MatcherAssert.assertThat(
+            response.print(),
+            Matchers.allOf(
+                Matchers.startsWith("HTTP/1.1 206"),
+                Matchers.containsString("Content-Range: bytes 7-12/13"),
+                Matchers.containsString("ETag: \"e1\""),
+                Matchers.endsWith("world!")
+            )
+        );
+    }
+
+    /**
+     * TkDownload can ignore a range of outdated content.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void ignoresRangeOfOutdatedContent() throws Exception {
+        final MkBase base = new MkBase();
+        final long bout = TkDownloadTest.attach(base);
+        MatcherAssert.assertThat(
+            new RsPrint(
+                TkDownloadTest.download(
+                    base, bout, "Range: bytes=7-", "If-Range: \"e0\""
+                )
+            ).print(),
+            Matchers.allOf(
+                Matchers.startsWith("HTTP/1.1 200"),
+                Matchers.endsWith("Hello, world!")
+            )
+        );
+        MatcherAssert.assertThat(
+            new RsPrint(
+                TkDownloadTest.download(
+                    base, bout, "Range: bytes=0-4", "If-Range: \"e1\""
+                )
+            ).print(),
+            Matchers.allOf(
+                Matchers.startsWith("HTTP/1.1 206"),
+                Matchers.containsString("Content-Range: bytes 0-4/13"),
+                Matchers.endsWith("\r\n\r\nHello")
+            )
+        );
+    }
+
+    /**
+     * Create a bout with an attachment.
+     * @param base Base
+     * @return Bout number
+     * @throws Exception If fails
+     */
+    private static long attach(final MkBase base) throws Exception {
+        final User user = base.user(new URN(TkDownloadTest.URN));
+        user.aliases().add("jane");
+        final Alias alias = user.aliases().iterate().iterator().next();
+        final long bout = alias.inbox().start();
+        alias.inbox().bout(bout).attachments().create("hello.txt");
+        final Attachment attachment = alias.inbox().bout(bout)
+            .attachments().get("hello.txt");
+        attachment.write(
+            new ByteArrayInputStream(
+                "Hello, world!".getBytes(CharEncoding.UTF_8)
+            ),
+            "text/plain", "e1"
+        );
+        return bout;
+    }
+
+    /**
+     * Download the attachment.
+     * @param base Base
+     * @param bout Bout number
+     * @param extra Extra HTTP headers
+     * @return Response
+     * @throws Exception If fails
+     */
+    private static Response download(final MkBase base, final long bout,
+        final String... extra) throws Exception {
+        final List<String> head = new ArrayList<>(extra.length + 2);
+        head.add(String.format("GET /b/%d/download?name=hello.txt", bout));
+        head.add("Host: www.netbout.com");
+        head.addAll(Arrays.asList(extra));
+        return new FkBout(".*", new TkDownload(base)).route(
+            new RqWithAuth(TkDownloadTest.URN, new RqFake(head, ""))
+        ).get();
+    }
+
+}
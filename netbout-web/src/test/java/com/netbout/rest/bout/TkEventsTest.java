@@ -0,0 +1,222 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.rest.bout;
+
+import com.jcabi.urn.URN;
+import com.netbout.cached.Bus;
+import com.netbout.mock.MkBase;
+import com.netbout.spi.Alias;
+import com.netbout.spi.Bout;
+import com.netbout.spi.User;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+import org.takes.HttpException;
+import org.takes.Request;
+import org.takes.facets.auth.RqWithAuth;
+import org.takes.rq.RqFake;
+import org.takes.rs.RsPrint;
+
+/**
+ * Test case for {@link TkEvents}.
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 2.15
+ */
+public final class TkEventsTest {
+
+    /**
+     * URN of the user.
+     */
+    private static final String URN = "urn:test:1";
+
+    /**
+     * How long to hold requests that shouldn't wait, in milliseconds.
+     */
+    private static final long SHORT = 100L;
+
+    /**
+     * TkEvents can send the number of a new message.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void sendsNumberOfNewMessage() throws Exception {
+        final MkBase base = new MkBase();
+        final Bout bout = TkEventsTest.bout(base);
+        bout.messages().post("hi there");
+        final long number = bout.messages().iterate().iterator().next()
+            .number();
+        MatcherAssert.assertThat(
+            TkEventsTest.events(
+                base,
+                new RqFake(
+                    "GET",
+                    String.format("/b/%d/events?after=0", bout.number())
+                ),
+                TkEventsTest.SHORT
+            ),
+            Matchers.containsString(
+                String.format("id: %d\ndata: %1$d\n", number)
+            )
+        );
+    }
+
+    /**
+     * TkEvents can send no events when nothing is new.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void sendsNothingWhenNothingIsNew() throws Exception {
+        final MkBase base = new MkBase();
+        final Bout bout = TkEventsTest.bout(base);
+        bout.messages().post("hello");
+        final long number = bout.messages().iterate().iterator().next()
+            .number();
+        MatcherAssert.assertThat(
+            TkEventsTest.events(
+                base,
+                new RqFake(
+                    Arrays.asList(
+                        String.format("GET /b/%d/events", bout.number()),
+                        "Host: www.netbout.com",
+                        String.format("Last-Event-ID: %d", number)
+                    ),
+                    ""
+                ),
+                TkEventsTest.SHORT
+            ),
+            Matchers.not(Matchers.containsString("data:"))
+        );
+    }
+
+    /**
+     * TkEvents can hold the request until a new message is posted.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void waitsForNewMessage() throws Exception {
+        final MkBase base = new MkBase();
+        final Bout bout = TkEventsTest.bout(base);
+        bout.messages().post("first");
+        final long number = bout.messages().iterate().iterator().next()
+            .number();
+        final ExecutorService service = Executors.newSingleThreadExecutor();
+        try {
+            final Future<String> events = service.submit(
+                new Callable<String>() {
+                    @Override
+                    public String call() throws Exception {
+                        return TkEventsTest.events(
+                            base,
+                            new RqFake(
+                                "GET",
+                                String.format(
+                                    "/b/%d/events?after=%d",
+                                    bout.number(), number
+                                )
+                            ),
+                            TimeUnit.MINUTES.toMillis(1L)
+                        );
+                    }
+                }
+            );
+            TimeUnit.MILLISECONDS.sleep(TkEventsTest.SHORT);
+            bout.messages().post("second");
+            new Bus().ring(bout.number());
+            MatcherAssert.assertThat(
+                events.get(1L, TimeUnit.MINUTES),
+                Matchers.containsString(
+                    String.format(
+                        "data: %d\n",
+                        bout.messages().iterate().iterator().next().number()
+                    )
+                )
+            );
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    /**
+     * TkEvents can reject a broken event ID.
+     * @throws Exception If there is some problem inside
+     */
+    @Test(expected = HttpException.class)
+    public void rejectsBrokenEventId() throws Exception {
+        final MkBase base = new MkBase();
+        final Bout bout = TkEventsTest.bout(base);
+        TkEventsTest.events(
+            base,
+            new RqFake(
+                Arrays.asList(
+                    String.format("GET /b/%d/events", bout.number()),
+                    "Host: www.netbout.com",
+                    "Last-Event-ID: abc"
+                ),
+                ""
+            ),
+            TkEventsTest.SHORT
+        );
+    }
+
+    /**
+     * Create a bout.
+     * @param base Base
+     * @return Bout
+     * @throws Exception If fails
+     */
+    private static Bout bout(final MkBase base) throws Exception {
+        final User user = base.user(new URN(TkEventsTest.URN));
+        user.aliases().add("mark");
+        final Alias alias = user.aliases().iterate().iterator().next();
+        return alias.inbox().bout(alias.inbox().start());
+    }
+
+    /**
+     * Ask for events.
+     * @param base Base
+     * @param req Request
+     * @param msec How long to hold the request, in milliseconds
+     * @return Body of the response
+     * @throws Exception If fails
+     */
+    private static String events(final MkBase base, final Request req,
+        final long msec) throws Exception {
+        return new RsPrint(
+            new FkBout("/events", new TkEvents(base, msec)).route(
+                new RqWithAuth(TkEventsTest.URN, req)
+            ).get()
+        ).printBody();
+    }
+
+}